@@ -1,14 +1,43 @@
 DROP TABLE IF EXISTS Category;
+DROP TABLE IF EXISTS Category_Tombstone;
+DROP SEQUENCE IF EXISTS category_change_seq;
 
 -- Enable the UUID extension if it's not already enabled
 CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
 
+-- Orders all the writes to the categories, for GET /api/categories?since=<version>
+CREATE SEQUENCE category_change_seq;
+
 CREATE TABLE Category (
-  id PRIMARY KEY DEFAULT uuid_generate_v4(),
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
   name VARCHAR(50) NOT NULL,
-  description VARCHAR(255)
+  description VARCHAR(255),
+  -- Incremented by every update, for If-Match
+  version BIGINT DEFAULT 0 NOT NULL,
+  change_version BIGINT DEFAULT nextval('category_change_seq')
+);
+
+-- The deleted categories, so that GET /api/categories?since=<version> reports them
+CREATE TABLE Category_Tombstone (
+  id UUID PRIMARY KEY,
+  change_version BIGINT NOT NULL
 );
 
+-- Serves the keyset pagination of GET /api/categories
+CREATE INDEX CATEGORY_NAME_ID_IDX ON Category (name, id);
+
+-- Serve GET /api/categories?since=<version>
+CREATE INDEX CATEGORY_CHANGE_VERSION_IDX ON Category (change_version);
+CREATE INDEX CATEGORY_TOMBSTONE_CHANGE_VERSION_IDX ON Category_Tombstone (change_version);
+
+-- Serves the LOWER(name) LIKE '%...%' name search, which a b-tree index can't
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS CATEGORY_NAME_TRGM_IDX ON Category USING GIN (LOWER(name) gin_trgm_ops);
+
+-- Full-text search over name (weight A) and description (weight B)
+ALTER TABLE Category ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (setweight(to_tsvector('english', coalesce(name, '')), 'A') || setweight(to_tsvector('english', coalesce(description, '')), 'B')) STORED;
+CREATE INDEX IF NOT EXISTS CATEGORY_SEARCH_VECTOR_IDX ON Category USING GIN (search_vector);
+
 -- A 16 record sample
 INSERT INTO category(ID, NAME, DESCRIPTION) VALUES ('560281a2-75ba-49cf-b2ee-3a7c4c6cd916','Vehicles','Vehicles');
 INSERT INTO category(ID, NAME, DESCRIPTION) VALUES ('5d82d8d1-5979-408c-a12c-f8641b46241a','Property','Property');
@@ -0,0 +1,10 @@
+-- Grows the category table to a given number of rows so that the benchmarks can be run
+-- against catalogues of different sizes. Usage:
+--
+-- psql -h localhost -U magazenn -d categories_database -v rows=1000000 -f seed-categories.sql
+
+INSERT INTO category (id, name, description)
+SELECT gen_random_uuid(), 'Generated ' || n, 'Generated category ' || n
+FROM generate_series(1, :rows - (SELECT count(*) FROM category)) AS n;
+
+ANALYZE category;
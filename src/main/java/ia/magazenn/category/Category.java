@@ -13,13 +13,20 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Data;
 
 /**
  * JPA entity class for a Category. Re-used in the API layer.
  */
 @Entity
-@Table(name = "CATEGORY", schema = "public")
+@Table(name = "CATEGORY", schema = "public",
+		indexes = { @Index(name = "CATEGORY_NAME_ID_IDX", columnList = "NAME, ID"),
+				@Index(name = "CATEGORY_CHANGE_VERSION_IDX", columnList = "CHANGE_VERSION") })
 @Data
 public class Category {
 
@@ -37,4 +44,23 @@ public class Category {
 	@Column(name = "DESCRIPTION", length = 300)
 	private String description;
 
+	/**
+	 * Incremented by every update, to detect concurrent ones. Exposed as the
+	 * <code>ETag</code> of the category.
+	 */
+	@JsonIgnore
+	@Version
+	@Column(name = "VERSION", nullable = false)
+	private Long version;
+
+	/**
+	 * Position of the last write of this category among all the writes to the categories,
+	 * taken from the <code>category_change_seq</code> sequence created in
+	 * <code>import.sql</code> on every insert and update.
+	 */
+	@JsonIgnore
+	@Generated(event = { EventType.INSERT, EventType.UPDATE }, sql = "nextval('category_change_seq')")
+	@Column(name = "CHANGE_VERSION")
+	private Long changeVersion;
+
 }
@@ -0,0 +1,37 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category;
+
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+import lombok.Data;
+
+/**
+ * JPA entity class recording the deletion of a {@link Category}, so that clients syncing
+ * the changes since a version learn about it.
+ */
+@Entity
+@Table(name = "CATEGORY_TOMBSTONE", schema = "public",
+		indexes = @Index(name = "CATEGORY_TOMBSTONE_CHANGE_VERSION_IDX", columnList = "CHANGE_VERSION"))
+@Data
+public class CategoryTombstone {
+
+	@Id
+	@Column(name = "ID", columnDefinition = "uuid", updatable = false, nullable = false)
+	private UUID id;
+
+	/**
+	 * Position of the deletion among all the writes to the categories, see
+	 * {@link Category#getChangeVersion()}.
+	 */
+	@Column(name = "CHANGE_VERSION", nullable = false)
+	private long changeVersion;
+
+}
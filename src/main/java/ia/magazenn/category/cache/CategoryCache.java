@@ -0,0 +1,146 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.smallrye.mutiny.Uni;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+import ia.magazenn.category.repository.CategoryRepository;
+import ia.magazenn.category.service.CategoryChange;
+
+/**
+ * Bounded cache of categories by identifier, in front of
+ * {@link CategoryRepository#findById(Object)}.
+ * <p>
+ * Identifiers that don't match any category are cached too (as an empty
+ * {@link Optional}), with a shorter time to live, so that clients holding stale
+ * references don't hit the database on every call. Every {@link CategoryChange} evicts
+ * the identifiers it touches.
+ * <p>
+ * Hits, misses, evictions and size are published as the <code>cache.*</code> meters
+ * tagged <code>cache=categories.by-id</code>. The {@link Category} instances handed out
+ * are shared between all the readers and must not be modified.
+ */
+@ApplicationScoped
+public class CategoryCache {
+
+	static final String CACHE_NAME = "categories.by-id";
+
+	private final CategoryRepository categoryRepository;
+
+	private final boolean enabled;
+
+	private final Cache<UUID, Optional<Category>> categoriesById;
+
+	/**
+	 * Incremented on every change so that a load racing with a write doesn't cache a
+	 * stale category.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	public CategoryCache(CategoryRepository categoryRepository, CategoryConfig categoryConfig,
+			MeterRegistry meterRegistry) {
+		var config = categoryConfig.idCache();
+		this.categoryRepository = categoryRepository;
+		this.enabled = config.enabled();
+		this.categoriesById = Caffeine.newBuilder()
+			.maximumSize(config.maximumSize())
+			.expireAfter(Expiry.<UUID, Optional<Category>>writing(
+					(id, category) -> category.isPresent() ? config.expireAfterWrite()
+							: config.negativeExpireAfterWrite()))
+			.recordStats()
+			.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, this.categoriesById, CACHE_NAME);
+	}
+
+	void onCategoryChange(@Observes CategoryChange change) {
+		this.generation.incrementAndGet();
+
+		if (change.reset()) {
+			this.categoriesById.invalidateAll();
+		}
+		else {
+			change.created().forEach(category -> invalidate(category.getId()));
+			change.updated().forEach(category -> invalidate(category.getId()));
+			change.deleted().keySet().forEach(this::invalidate);
+		}
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Returns a category, from the cache if present and from the database otherwise.
+	 * @param id The identifier of the category
+	 * @return The category, or <code>null</code> if there is none with this identifier
+	 */
+	public Uni<Category> findById(UUID id) {
+		if (!this.enabled || (id == null)) {
+			return this.categoryRepository.findById(id);
+		}
+
+		var cached = this.categoriesById.getIfPresent(id);
+
+		if (cached != null) {
+			return Uni.createFrom().item(cached.orElse(null));
+		}
+
+		var generation = this.generation.get();
+
+		return this.categoryRepository.findById(id).map(category -> install(generation, id, category));
+	}
+
+	/**
+	 * Empties the cache.
+	 */
+	public void invalidate() {
+		this.generation.incrementAndGet();
+		this.categoriesById.invalidateAll();
+	}
+
+	private void invalidate(UUID id) {
+		if (id != null) {
+			this.categoriesById.invalidate(id);
+		}
+	}
+
+	/**
+	 * Caches a freshly loaded category, unless a write happened since the load started.
+	 */
+	private Category install(long generation, UUID id, Category category) {
+		var loaded = (category != null) ? CategorySnapshot.detach(category) : null;
+
+		if (this.generation.get() == generation) {
+			this.categoriesById.put(id, Optional.ofNullable(loaded));
+
+			if (this.generation.get() != generation) {
+				// A write slipped in between the check and the put
+				this.categoriesById.invalidate(id);
+			}
+		}
+
+		return loaded;
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import io.quarkus.runtime.Startup;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.interceptor.Interceptor;
+
+import ia.magazenn.category.service.CategoryChange;
+
+/**
+ * Version of the whole catalogue of categories, incremented by every
+ * {@link CategoryChange}.
+ * <p>
+ * It starts from the time the application started, in milliseconds, so that a restarted
+ * instance doesn't hand out versions it already used for different content.
+ * <p>
+ * The version is incremented after the caches have applied the change, and each change
+ * is then appended to the {@link CategoryChangeFeed} under its version, in order.
+ */
+@ApplicationScoped
+@Startup
+public class CategoryCatalogVersion {
+
+	private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+	private final CategoryChangeFeed categoryChangeFeed;
+
+	public CategoryCatalogVersion(CategoryChangeFeed categoryChangeFeed) {
+		this.categoryChangeFeed = categoryChangeFeed;
+		categoryChangeFeed.startAt(this.version.get());
+	}
+
+	synchronized void onCategoryChange(
+			@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) CategoryChange change) {
+		this.categoryChangeFeed.append(this.version.incrementAndGet(), change);
+	}
+
+	/**
+	 * Must be read <strong>before</strong> reading the categories it describes, so that a
+	 * concurrent write makes the version older than the content rather than newer.
+	 * @return The current version
+	 */
+	public long current() {
+		return this.version.get();
+	}
+
+}
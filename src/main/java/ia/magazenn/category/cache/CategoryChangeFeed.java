@@ -0,0 +1,313 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+import ia.magazenn.category.service.CategoryChange;
+
+/**
+ * Feed of the changes to the categories, as {@link CategoryFeedEvent events} tagged with
+ * the {@link CategoryCatalogVersion catalogue version} they belong to.
+ * <p>
+ * The last <code>category.changes.buffer-size</code> events are kept in memory, so that a
+ * client reconnecting with the identifier of the last event it received gets the events
+ * it missed. A client connecting for the first time, too far behind, or coming from
+ * another instance of the service, first receives a {@link CategoryFeedEvent#SNAPSHOT
+ * snapshot} of all the categories instead.
+ * <p>
+ * Up to <code>category.changes.client-buffer-size</code> events are held for each client
+ * not reading them as fast as they happen; a client falling further behind is
+ * disconnected rather than holding an ever growing backlog in memory.
+ * <p>
+ * The number of connected clients is published as the
+ * <code>categories.changes.subscribers</code> gauge, and the snapshots sent as the
+ * <code>categories.changes.snapshots</code> counter.
+ */
+@ApplicationScoped
+public class CategoryChangeFeed {
+
+	/**
+	 * Sorts after the events of the same version, as a snapshot includes all of them.
+	 */
+	private static final int END_OF_VERSION = Integer.MAX_VALUE;
+
+	/**
+	 * Identifies this instance in the event identifiers, as the versions of another
+	 * instance don't describe the same events.
+	 */
+	private final String instance = HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextInt());
+
+	private final CategorySnapshot categorySnapshot;
+
+	private final int capacity;
+
+	private final int clientCapacity;
+
+	private final Counter snapshots;
+
+	private final ArrayDeque<Entry> buffer = new ArrayDeque<>();
+
+	private final Set<Listener> listeners = new HashSet<>();
+
+	/**
+	 * Clients that last received an event at or after the horizon can resume from the
+	 * buffer.
+	 */
+	private EventId horizon = new EventId(0, END_OF_VERSION);
+
+	private long version;
+
+	public CategoryChangeFeed(CategorySnapshot categorySnapshot, CategoryConfig categoryConfig,
+			MeterRegistry meterRegistry) {
+		this.categorySnapshot = categorySnapshot;
+		this.capacity = categoryConfig.changes().bufferSize();
+		this.clientCapacity = categoryConfig.changes().clientBufferSize();
+		this.snapshots = Counter.builder("categories.changes.snapshots")
+			.description("Snapshots of all the categories sent to clients of the change feed")
+			.register(meterRegistry);
+		Gauge.builder("categories.changes.subscribers", this, CategoryChangeFeed::subscribers)
+			.description("Clients connected to the change feed")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Sets the version the feed starts from, called once by {@link CategoryCatalogVersion}.
+	 * @param version The initial catalogue version
+	 */
+	synchronized void startAt(long version) {
+		this.version = version;
+		this.horizon = new EventId(version, END_OF_VERSION);
+	}
+
+	/**
+	 * Publishes a change to the connected clients. Called by
+	 * {@link CategoryCatalogVersion}, in the order of the versions.
+	 * @param version The catalogue version resulting from {@code change}
+	 * @param change The change
+	 */
+	synchronized void append(long version, CategoryChange change) {
+		this.version = version;
+
+		if (change.reset()) {
+			this.buffer.clear();
+			this.horizon = new EventId(version, END_OF_VERSION);
+
+			var event = snapshot(version, change.created().stream().map(CategorySnapshot::detach).toList());
+			this.listeners.forEach(listener -> listener.send(event));
+			return;
+		}
+
+		var entries = entries(version, change);
+
+		for (var entry : entries) {
+			this.buffer.addLast(entry);
+
+			if (this.buffer.size() > this.capacity) {
+				this.horizon = this.buffer.removeFirst().id();
+			}
+
+			this.listeners.forEach(listener -> listener.send(entry.event()));
+		}
+	}
+
+	/**
+	 * Streams the changes to the categories.
+	 * @param lastEventId The identifier of the last event received by the client, or
+	 * <code>null</code> if it never received any
+	 * @return The events missed since {@code lastEventId}, or a snapshot of all the
+	 * categories if they are not available anymore, followed by the events of the changes
+	 * happening while the client is connected, failing with a {@link BackPressureFailure}
+	 * if the client falls too far behind
+	 */
+	public Multi<CategoryFeedEvent> events(String lastEventId) {
+		return Multi.createFrom().<CategoryFeedEvent>emitter(emitter -> {
+			var listener = new Listener(emitter);
+			long snapshotVersion;
+
+			synchronized (this) {
+				this.listeners.add(listener);
+				emitter.onTermination(() -> remove(listener));
+
+				var after = parse(lastEventId);
+
+				if (canResume(after)) {
+					Log.debugf("Resuming the change feed after %s", lastEventId);
+					this.buffer.stream()
+						.filter(entry -> entry.id().isAfter(after))
+						.forEach(entry -> emitter.emit(entry.event()));
+					return;
+				}
+
+				// Changes happening while the snapshot is read are sent after it
+				listener.pending = new ArrayList<>();
+				snapshotVersion = this.version;
+			}
+
+			Log.debugf("Sending a snapshot of version %d to the change feed, last event was %s", snapshotVersion,
+					lastEventId);
+			this.snapshots.increment();
+			this.categorySnapshot.categories()
+				.subscribe()
+				.with(categories -> listener.start(snapshot(snapshotVersion, categories)), emitter::fail);
+		})
+			.onOverflow()
+			.buffer(this.clientCapacity)
+			.onFailure(BackPressureFailure.class)
+			.invoke(exc -> Log.debugf("Disconnecting a client of the change feed more than %d events behind",
+					this.clientCapacity));
+	}
+
+	private synchronized void remove(Listener listener) {
+		this.listeners.remove(listener);
+	}
+
+	private synchronized int subscribers() {
+		return this.listeners.size();
+	}
+
+	private boolean canResume(EventId after) {
+		return (after != null) && !after.isAfter(new EventId(this.version, END_OF_VERSION))
+				&& !this.horizon.isAfter(after);
+	}
+
+	private List<Entry> entries(long version, CategoryChange change) {
+		var entries = new ArrayList<Entry>(
+				change.created().size() + change.updated().size() + change.deleted().size());
+
+		for (var category : change.created()) {
+			entries.add(entry(new EventId(version, entries.size() + 1), CategoryFeedEvent.CREATED,
+					CategorySnapshot.detach(category)));
+		}
+
+		for (var category : change.updated()) {
+			entries.add(entry(new EventId(version, entries.size() + 1), CategoryFeedEvent.UPDATED,
+					CategorySnapshot.detach(category)));
+		}
+
+		for (var id : change.deleted().keySet()) {
+			entries.add(entry(new EventId(version, entries.size() + 1), CategoryFeedEvent.DELETED, Map.of("id", id)));
+		}
+
+		return entries;
+	}
+
+	private Entry entry(EventId id, String name, Object data) {
+		return new Entry(id, new CategoryFeedEvent(format(id), name, data));
+	}
+
+	private CategoryFeedEvent snapshot(long version, List<Category> categories) {
+		return new CategoryFeedEvent(format(new EventId(version, END_OF_VERSION)), CategoryFeedEvent.SNAPSHOT,
+				categories);
+	}
+
+	/**
+	 * Formats an event identifier as <code>version-index-instance</code>, or
+	 * <code>version-instance</code> for a snapshot.
+	 */
+	private String format(EventId id) {
+		return (id.index() == END_OF_VERSION) ? id.version() + "-" + this.instance
+				: id.version() + "-" + id.index() + "-" + this.instance;
+	}
+
+	/**
+	 * @return The identifier formatted by {@link #format(EventId)}, or <code>null</code>
+	 * if it is missing, malformed or comes from another instance
+	 */
+	private EventId parse(String lastEventId) {
+		if ((lastEventId == null) || lastEventId.isBlank()) {
+			return null;
+		}
+
+		var parts = lastEventId.strip().split("-");
+
+		if (((parts.length != 2) && (parts.length != 3)) || !this.instance.equals(parts[parts.length - 1])) {
+			return null;
+		}
+
+		try {
+			return new EventId(Long.parseLong(parts[0]),
+					(parts.length == 2) ? END_OF_VERSION : Integer.parseInt(parts[1]));
+		}
+		catch (NumberFormatException exc) {
+			return null;
+		}
+	}
+
+	/**
+	 * Position of an event in the feed.
+	 * @param version The catalogue version of the change the event belongs to
+	 * @param index The position of the event among the events of the change, from 1
+	 */
+	private record EventId(long version, int index) {
+
+		boolean isAfter(EventId other) {
+			return (this.version > other.version) || ((this.version == other.version) && (this.index > other.index));
+		}
+
+	}
+
+	private record Entry(EventId id, CategoryFeedEvent event) {
+
+	}
+
+	/**
+	 * A connected client. Its events are held back while its snapshot is being read.
+	 */
+	private final class Listener {
+
+		private final MultiEmitter<? super CategoryFeedEvent> emitter;
+
+		private List<CategoryFeedEvent> pending;
+
+		private Listener(MultiEmitter<? super CategoryFeedEvent> emitter) {
+			this.emitter = emitter;
+		}
+
+		/**
+		 * Called with the lock of the feed held.
+		 */
+		private void send(CategoryFeedEvent event) {
+			if (this.pending != null) {
+				this.pending.add(event);
+			}
+			else {
+				this.emitter.emit(event);
+			}
+		}
+
+		private void start(CategoryFeedEvent snapshot) {
+			synchronized (CategoryChangeFeed.this) {
+				this.emitter.emit(snapshot);
+				this.pending.forEach(this.emitter::emit);
+				this.pending = null;
+			}
+		}
+
+	}
+
+}
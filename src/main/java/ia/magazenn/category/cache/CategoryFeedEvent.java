@@ -0,0 +1,32 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+/**
+ * An event of the {@link CategoryChangeFeed}, sent as a server-sent event.
+ * @param id Identifies the event, to resume the feed after it. Starts with the catalogue
+ * version the event belongs to
+ * @param name {@link #CREATED}, {@link #UPDATED}, {@link #DELETED} or {@link #SNAPSHOT}
+ * @param data The category for {@link #CREATED} and {@link #UPDATED}, its identifier for
+ * {@link #DELETED}, and all the categories for {@link #SNAPSHOT}
+ */
+public record CategoryFeedEvent(String id, String name, Object data) {
+
+	public static final String CREATED = "created";
+
+	public static final String UPDATED = "updated";
+
+	public static final String DELETED = "deleted";
+
+	/**
+	 * Replaces all the categories the client knows of, sent when it can't resume from the
+	 * event it last received.
+	 */
+	public static final String SNAPSHOT = "snapshot";
+
+}
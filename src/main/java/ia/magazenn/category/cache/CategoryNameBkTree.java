@@ -0,0 +1,289 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import ia.magazenn.category.Category;
+
+/**
+ * BK-tree of categories by {@link CategoryNameTrie#normalize(String) normalized} name,
+ * using the Levenshtein distance. A search with a maximum distance only visits the
+ * children whose distance to their parent is within that distance of the query's, which
+ * is a small part of the tree for distances of 1 or 2.
+ * <p>
+ * BK-trees can't remove a node without re-inserting its whole subtree, so removing the
+ * last category of a name leaves an empty node that still routes searches. The tree is
+ * rebuilt from its non-empty nodes once they are outnumbered by the empty ones.
+ * <p>
+ * Immutable: {@link #put(String, Category)} and {@link #remove(String, UUID)} return a
+ * new tree, which only copies the nodes on the path to the name and shares all the
+ * others.
+ */
+final class CategoryNameBkTree {
+
+	static final CategoryNameBkTree EMPTY = new CategoryNameBkTree(null, 0, 0);
+
+	private static final int MIN_NODES_TO_COMPACT = 64;
+
+	private final Node root;
+
+	private final int nodes;
+
+	private final int emptyNodes;
+
+	private CategoryNameBkTree(Node root, int nodes, int emptyNodes) {
+		this.root = root;
+		this.nodes = nodes;
+		this.emptyNodes = emptyNodes;
+	}
+
+	/**
+	 * A category at a given distance from the searched name.
+	 */
+	record Match(Category category, int distance) {
+
+	}
+
+	/**
+	 * @param key A {@link CategoryNameTrie#normalize(String) normalized} name
+	 * @param category The category with this name
+	 * @return The tree with the category
+	 */
+	CategoryNameBkTree put(String key, Category category) {
+		if (this.root == null) {
+			return new CategoryNameBkTree(Node.leaf(key, category), 1, 0);
+		}
+
+		var parents = new ArrayDeque<Node>();
+		var distances = new ArrayDeque<Integer>();
+		var node = this.root;
+
+		while (true) {
+			var distance = distance(key, node.key);
+
+			if (distance == 0) {
+				var emptyNodes = node.categories.isEmpty() ? (this.emptyNodes - 1) : this.emptyNodes;
+				return new CategoryNameBkTree(copyPath(parents, distances, node.withCategory(category)), this.nodes,
+						emptyNodes);
+			}
+
+			parents.push(node);
+			distances.push(distance);
+			var child = node.child(distance);
+
+			if (child == null) {
+				return new CategoryNameBkTree(copyPath(parents, distances, Node.leaf(key, category)), this.nodes + 1,
+						this.emptyNodes);
+			}
+
+			node = child;
+		}
+	}
+
+	/**
+	 * @param key The {@link CategoryNameTrie#normalize(String) normalized} name the
+	 * category was put with
+	 * @param id The identifier of the category
+	 * @return The tree without the category, or this one if it didn't hold it
+	 */
+	CategoryNameBkTree remove(String key, UUID id) {
+		var parents = new ArrayDeque<Node>();
+		var distances = new ArrayDeque<Integer>();
+		var node = this.root;
+
+		while (node != null) {
+			var distance = distance(key, node.key);
+
+			if (distance == 0) {
+				if (!node.categories.containsKey(id)) {
+					return this;
+				}
+
+				var updated = node.withoutCategory(id);
+				var emptyNodes = updated.categories.isEmpty() ? (this.emptyNodes + 1) : this.emptyNodes;
+
+				return new CategoryNameBkTree(copyPath(parents, distances, updated), this.nodes, emptyNodes)
+					.compactIfNeeded();
+			}
+
+			parents.push(node);
+			distances.push(distance);
+			node = node.child(distance);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Copies the parents of a replaced node, from the closest one up to the root.
+	 * @return The new root
+	 */
+	private static Node copyPath(Deque<Node> parents, Deque<Integer> distances, Node replaced) {
+		var node = replaced;
+
+		while (!parents.isEmpty()) {
+			node = parents.pop().withChild(distances.pop(), node);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Finds the categories whose name is at most {@code maxDistance} edits away from
+	 * {@code query}.
+	 * @param query A {@link CategoryNameTrie#normalize(String) normalized} name
+	 * @param maxDistance The maximum Levenshtein distance
+	 * @return The matching categories, in no particular order
+	 */
+	List<Match> search(String query, int maxDistance) {
+		var matches = new ArrayList<Match>();
+
+		if (this.root == null) {
+			return matches;
+		}
+
+		var candidates = new ArrayDeque<Node>();
+		candidates.push(this.root);
+
+		while (!candidates.isEmpty()) {
+			var node = candidates.pop();
+			var distance = distance(query, node.key);
+
+			if (distance <= maxDistance) {
+				node.categories.values().forEach(category -> matches.add(new Match(category, distance)));
+			}
+
+			// Triangle inequality: only these children can be within maxDistance of the query
+			var to = Math.min(distance + maxDistance, node.children.length - 1);
+
+			for (var childDistance = Math.max(1, distance - maxDistance); childDistance <= to; childDistance++) {
+				var child = node.children[childDistance];
+
+				if (child != null) {
+					candidates.push(child);
+				}
+			}
+		}
+
+		return matches;
+	}
+
+	private CategoryNameBkTree compactIfNeeded() {
+		if ((this.nodes < MIN_NODES_TO_COMPACT) || (this.emptyNodes * 2 < this.nodes)) {
+			return this;
+		}
+
+		var entries = new ArrayList<Node>(this.nodes - this.emptyNodes);
+		var pending = new ArrayDeque<Node>();
+		pending.push(this.root);
+
+		while (!pending.isEmpty()) {
+			var node = pending.pop();
+
+			if (!node.categories.isEmpty()) {
+				entries.add(node);
+			}
+
+			Arrays.stream(node.children).filter(Objects::nonNull).forEach(pending::push);
+		}
+
+		var compacted = EMPTY;
+
+		for (var entry : entries) {
+			for (var category : entry.categories.values()) {
+				compacted = compacted.put(entry.key, category);
+			}
+		}
+
+		return compacted;
+	}
+
+	/**
+	 * Levenshtein distance, with two rows instead of the full matrix.
+	 */
+	static int distance(String first, String second) {
+		var previous = new int[second.length() + 1];
+		var current = new int[second.length() + 1];
+
+		for (var j = 0; j <= second.length(); j++) {
+			previous[j] = j;
+		}
+
+		for (var i = 1; i <= first.length(); i++) {
+			current[0] = i;
+
+			for (var j = 1; j <= second.length(); j++) {
+				var substitution = previous[j - 1] + ((first.charAt(i - 1) == second.charAt(j - 1)) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+			}
+
+			var swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		return previous[second.length()];
+	}
+
+	private static final class Node {
+
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		private final String key;
+
+		private final Map<UUID, Category> categories;
+
+		/**
+		 * Indexed by distance to this node, so mostly small.
+		 */
+		private final Node[] children;
+
+		Node(String key, Map<UUID, Category> categories, Node[] children) {
+			this.key = key;
+			this.categories = categories;
+			this.children = children;
+		}
+
+		static Node leaf(String key, Category category) {
+			return new Node(key, Map.of(category.getId(), category), NO_CHILDREN);
+		}
+
+		Node child(int distance) {
+			return (distance < this.children.length) ? this.children[distance] : null;
+		}
+
+		Node withChild(int distance, Node child) {
+			var children = Arrays.copyOf(this.children, Math.max(this.children.length, distance + 1));
+			children[distance] = child;
+			return new Node(this.key, this.categories, children);
+		}
+
+		Node withCategory(Category category) {
+			var categories = new LinkedHashMap<>(this.categories);
+			categories.put(category.getId(), category);
+			return new Node(this.key, categories, this.children);
+		}
+
+		Node withoutCategory(UUID id) {
+			var categories = new LinkedHashMap<>(this.categories);
+			categories.remove(id);
+			return new Node(this.key, categories, this.children);
+		}
+
+	}
+
+}
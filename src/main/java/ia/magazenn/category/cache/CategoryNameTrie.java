@@ -0,0 +1,281 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import ia.magazenn.category.Category;
+
+/**
+ * Radix trie of categories by normalized name: each edge holds a run of characters
+ * rather than a single one, so the number of nodes is bounded by twice the number of
+ * distinct names. Children are kept in an array sorted by their first character.
+ * <p>
+ * Immutable: {@link #put(String, Category)} and {@link #remove(String, UUID)} return a
+ * new trie, which only copies the nodes on the path to the name and shares all the
+ * others. A trie can therefore be read by any number of threads while the next one is
+ * being built.
+ */
+final class CategoryNameTrie {
+
+	static final CategoryNameTrie EMPTY = new CategoryNameTrie(new Node("", Node.NO_CHILDREN, Map.of()));
+
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+	private final Node root;
+
+	private CategoryNameTrie(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Lower-cases and strips the accents of a name, so that <code>"Électro"</code>
+	 * matches <code>"electronics"</code>.
+	 * @param name The name
+	 * @return The normalized name
+	 */
+	static String normalize(String name) {
+		return COMBINING_MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD))
+			.replaceAll("")
+			.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @param key A {@link #normalize(String) normalized} name
+	 * @param category The category with this name
+	 * @return The trie with the category
+	 */
+	CategoryNameTrie put(String key, Category category) {
+		return new CategoryNameTrie(put(this.root, key, 0, category));
+	}
+
+	private static Node put(Node node, String key, int index, Category category) {
+		if (index == key.length()) {
+			return node.withCategory(category);
+		}
+
+		var child = node.child(key.charAt(index));
+
+		if (child == null) {
+			var leaf = new Node(key.substring(index), Node.NO_CHILDREN, Map.of(category.getId(), category));
+			return node.withChild(leaf);
+		}
+
+		var common = commonPrefixLength(child.edge, key, index);
+
+		if (common < child.edge.length()) {
+			// Split the edge where the key diverges from it
+			child = new Node(child.edge.substring(0, common),
+					new Node[] { child.withEdge(child.edge.substring(common)) }, Map.of());
+		}
+
+		return node.withChild(put(child, key, index + common, category));
+	}
+
+	/**
+	 * @param key The {@link #normalize(String) normalized} name the category was put with
+	 * @param id The identifier of the category
+	 * @return The trie without the category, or this one if it didn't hold it
+	 */
+	CategoryNameTrie remove(String key, UUID id) {
+		var root = remove(this.root, key, 0, id);
+
+		return (root != this.root) ? new CategoryNameTrie(root) : this;
+	}
+
+	private static Node remove(Node node, String key, int index, UUID id) {
+		if (index == key.length()) {
+			return node.categories.containsKey(id) ? node.withoutCategory(id) : node;
+		}
+
+		var child = node.child(key.charAt(index));
+
+		if ((child == null) || !key.startsWith(child.edge, index)) {
+			return node;
+		}
+
+		var updated = remove(child, key, index + child.edge.length(), id);
+
+		if (updated == child) {
+			return node;
+		}
+
+		// Prune the empty leaves, and merge the nodes left with a single child
+		if (updated.categories.isEmpty() && (updated.children.length == 0)) {
+			return node.withoutChild(child);
+		}
+
+		if (updated.categories.isEmpty() && (updated.children.length == 1)) {
+			var onlyChild = updated.children[0];
+			return node.withChild(onlyChild.withEdge(updated.edge + onlyChild.edge));
+		}
+
+		return node.withChild(updated);
+	}
+
+	/**
+	 * Collects the categories whose normalized name starts with {@code prefix}, in
+	 * alphabetical order of their normalized name.
+	 * @param prefix A {@link #normalize(String) normalized} prefix
+	 * @param limit The maximum number of categories to return
+	 * @return At most {@code limit} categories
+	 */
+	List<Category> startingWith(String prefix, int limit) {
+		var node = this.root;
+		var index = 0;
+
+		while (index < prefix.length()) {
+			var child = node.child(prefix.charAt(index));
+
+			if (child == null) {
+				return List.of();
+			}
+
+			var common = commonPrefixLength(child.edge, prefix, index);
+
+			if ((index + common < prefix.length()) && (common < child.edge.length())) {
+				return List.of();
+			}
+
+			node = child;
+			index += common;
+		}
+
+		var categories = new ArrayList<Category>(Math.min(limit, 16));
+		collect(node, limit, categories);
+
+		return categories;
+	}
+
+	private static void collect(Node node, int limit, List<Category> categories) {
+		for (var category : node.categories.values()) {
+			if (categories.size() == limit) {
+				return;
+			}
+
+			categories.add(category);
+		}
+
+		for (var child : node.children) {
+			if (categories.size() == limit) {
+				return;
+			}
+
+			collect(child, limit, categories);
+		}
+	}
+
+	private static int commonPrefixLength(String edge, String key, int from) {
+		var max = Math.min(edge.length(), key.length() - from);
+		var length = 0;
+
+		while ((length < max) && (edge.charAt(length) == key.charAt(from + length))) {
+			length++;
+		}
+
+		return length;
+	}
+
+	private static final class Node {
+
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		private final String edge;
+
+		private final Node[] children;
+
+		private final Map<UUID, Category> categories;
+
+		Node(String edge, Node[] children, Map<UUID, Category> categories) {
+			this.edge = edge;
+			this.children = children;
+			this.categories = categories;
+		}
+
+		Node child(char first) {
+			var index = indexOf(first);
+			return (index >= 0) ? this.children[index] : null;
+		}
+
+		Node withEdge(String edge) {
+			return new Node(edge, this.children, this.categories);
+		}
+
+		Node withCategory(Category category) {
+			var categories = new LinkedHashMap<>(this.categories);
+			categories.put(category.getId(), category);
+			return new Node(this.edge, this.children, categories);
+		}
+
+		Node withoutCategory(UUID id) {
+			var categories = new LinkedHashMap<>(this.categories);
+			categories.remove(id);
+			return new Node(this.edge, this.children, categories);
+		}
+
+		/**
+		 * @return This node with {@code child} added, or replacing the child starting
+		 * with the same character
+		 */
+		Node withChild(Node child) {
+			var index = indexOf(child.edge.charAt(0));
+
+			if (index >= 0) {
+				var children = this.children.clone();
+				children[index] = child;
+				return new Node(this.edge, children, this.categories);
+			}
+
+			var insertion = -(index + 1);
+			var children = new Node[this.children.length + 1];
+			System.arraycopy(this.children, 0, children, 0, insertion);
+			children[insertion] = child;
+			System.arraycopy(this.children, insertion, children, insertion + 1, this.children.length - insertion);
+			return new Node(this.edge, children, this.categories);
+		}
+
+		Node withoutChild(Node child) {
+			var index = indexOf(child.edge.charAt(0));
+			var children = Arrays.copyOf(this.children, this.children.length - 1);
+			System.arraycopy(this.children, index + 1, children, index, this.children.length - index - 1);
+			return new Node(this.edge, children, this.categories);
+		}
+
+		private int indexOf(char first) {
+			var low = 0;
+			var high = this.children.length - 1;
+
+			while (low <= high) {
+				var middle = (low + high) >>> 1;
+				var middleFirst = this.children[middle].edge.charAt(0);
+
+				if (middleFirst < first) {
+					low = middle + 1;
+				}
+				else if (middleFirst > first) {
+					high = middle - 1;
+				}
+				else {
+					return middle;
+				}
+			}
+
+			return -(low + 1);
+		}
+
+	}
+
+}
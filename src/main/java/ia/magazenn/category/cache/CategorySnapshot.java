@@ -0,0 +1,248 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.vertx.VertxContextSupport;
+import io.smallrye.mutiny.Uni;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+import ia.magazenn.category.repository.CategoryRepository;
+import ia.magazenn.category.service.CategoryChange;
+
+/**
+ * Copy-on-write, in-memory snapshot of all the categories.
+ * <p>
+ * The snapshot is loaded at startup. After that, every {@link CategoryChange} swaps in a
+ * new immutable copy, so reads never go to the database. A read arriving while no
+ * snapshot is loaded (the startup load failed or {@link #invalidate()} was called) loads
+ * it from the database.
+ * <p>
+ * As changes may arrive in another order than the one they were committed in, a write of
+ * a category is only applied if its {@link Category#getChangeVersion() change version} is
+ * above the one of the last write of that category applied. The change versions of the
+ * deletions are kept until the next reset, so that a late write can't bring a deleted
+ * category back. Once more than <code>category.snapshot.max-deletions</code> are kept,
+ * the snapshot is dropped instead and reloaded from the database by the next read.
+ * <p>
+ * The {@link Category} instances handed out are shared between all the readers and must
+ * not be modified.
+ */
+@ApplicationScoped
+public class CategorySnapshot {
+
+	private final CategoryRepository categoryRepository;
+
+	private final boolean enabled;
+
+	private final int maxDeletions;
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	private final AtomicReference<State> state = new AtomicReference<>(new State(0, null, Map.of()));
+
+	public CategorySnapshot(CategoryRepository categoryRepository, CategoryConfig categoryConfig,
+			MeterRegistry meterRegistry) {
+		this.categoryRepository = categoryRepository;
+		this.enabled = categoryConfig.snapshot().enabled();
+		this.maxDeletions = categoryConfig.snapshot().maxDeletions();
+		this.hits = Counter.builder("categories.snapshot.requests")
+			.description("Reads of all the categories served by the in-memory snapshot")
+			.tag("result", "hit")
+			.register(meterRegistry);
+		this.misses = Counter.builder("categories.snapshot.requests")
+			.description("Reads of all the categories served by the in-memory snapshot")
+			.tag("result", "miss")
+			.register(meterRegistry);
+	}
+
+	void onStart(@Observes StartupEvent event) {
+		if (this.enabled) {
+			try {
+				var categories = VertxContextSupport
+					.subscribeAndAwait(() -> Panache.withSession(() -> load(this.state.get().generation())));
+				Log.infof("Loaded %d categories into the snapshot", categories.size());
+			}
+			catch (Throwable exc) {
+				Log.warn("Unable to load the categories snapshot, it will be loaded on the first read", exc);
+			}
+		}
+	}
+
+	void onCategoryChange(@Observes CategoryChange change) {
+		this.state.updateAndGet(current -> apply(current, change));
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Returns all the categories, from the snapshot if it is loaded and from the database
+	 * otherwise.
+	 * @return All the categories
+	 */
+	public Uni<List<Category>> categories() {
+		if (!this.enabled) {
+			return this.categoryRepository.listAll();
+		}
+
+		var current = this.state.get();
+
+		if (current.isLoaded()) {
+			this.hits.increment();
+			return Uni.createFrom().item(current.categories());
+		}
+
+		this.misses.increment();
+		return load(current.generation());
+	}
+
+	/**
+	 * Drops the current snapshot so that the next read reloads it from the database.
+	 */
+	public void invalidate() {
+		this.state.updateAndGet(current -> current.next(null));
+	}
+
+	private Uni<List<Category>> load(long generation) {
+		return this.categoryRepository.listAll().map(categories -> install(generation, categories));
+	}
+
+	/**
+	 * Installs freshly loaded categories, unless a write happened since the load started,
+	 * in which case they may already be stale and are only returned to the caller.
+	 */
+	private List<Category> install(long generation, List<Category> categories) {
+		var loaded = copyOf(categories);
+		this.state.updateAndGet(current -> (current.generation() == generation) ? current.next(loaded) : current);
+		return loaded;
+	}
+
+	private State apply(State current, CategoryChange change) {
+		if (change.reset()) {
+			return (change.deleted().size() > this.maxDeletions) ? current.next(null)
+					: current.next(copyOf(change.created()), change.deleted());
+		}
+
+		if (!current.isLoaded()) {
+			return current.next(null);
+		}
+
+		var categoriesById = new LinkedHashMap<UUID, Category>();
+		current.categories().forEach(category -> categoriesById.put(category.getId(), category));
+		var deleted = new HashMap<>(current.deleted());
+
+		for (var category : change.created()) {
+			write(categoriesById, deleted, category);
+		}
+
+		for (var category : change.updated()) {
+			write(categoriesById, deleted, category);
+		}
+
+		change.deleted().forEach((id, changeVersion) -> {
+			if (isLatest(changeVersion, categoriesById.get(id), deleted.get(id))) {
+				categoriesById.remove(id);
+				deleted.put(id, changeVersion);
+			}
+		});
+
+		if (deleted.size() > this.maxDeletions) {
+			return current.next(null);
+		}
+
+		return current.next(List.copyOf(categoriesById.values()), deleted);
+	}
+
+	private static void write(Map<UUID, Category> categoriesById, Map<UUID, Long> deleted, Category category) {
+		var id = category.getId();
+
+		if (isLatest(category.getChangeVersion(), categoriesById.get(id), deleted.get(id))) {
+			categoriesById.put(id, detach(category));
+			deleted.remove(id);
+		}
+	}
+
+	/**
+	 * @param changeVersion The change version of a write
+	 * @param existing The category in the snapshot, if any
+	 * @param deletedAt The change version of its last deletion applied, if any
+	 * @return <code>true</code> unless a later write of the same category was already
+	 * applied. Writes of unknown change version are always applied
+	 */
+	static boolean isLatest(Long changeVersion, Category existing, Long deletedAt) {
+		if (changeVersion == null) {
+			return true;
+		}
+
+		var current = (existing != null) ? existing.getChangeVersion() : deletedAt;
+
+		return (current == null) || (changeVersion > current);
+	}
+
+	private static List<Category> copyOf(List<Category> categories) {
+		return categories.stream().map(CategorySnapshot::detach).toList();
+	}
+
+	/**
+	 * Copies a {@link Category} so that a cache never shares an instance with a caller or
+	 * with a Hibernate session.
+	 */
+	static Category detach(Category category) {
+		var copy = new Category();
+		copy.setId(category.getId());
+		copy.setName(category.getName());
+		copy.setDescription(category.getDescription());
+		copy.setVersion(category.getVersion());
+		copy.setChangeVersion(category.getChangeVersion());
+
+		return copy;
+	}
+
+	/**
+	 * @param generation Incremented on every change so that a load racing with a write
+	 * doesn't install stale categories
+	 * @param categories The categories, or <code>null</code> if not loaded
+	 * @param deleted The identifiers of the categories deleted since the last reset, with
+	 * the change version of their deletion
+	 */
+	private record State(long generation, List<Category> categories, Map<UUID, Long> deleted) {
+
+		boolean isLoaded() {
+			return this.categories != null;
+		}
+
+		State next(List<Category> categories) {
+			return next(categories, Map.of());
+		}
+
+		State next(List<Category> categories, Map<UUID, Long> deleted) {
+			return new State(this.generation + 1, categories, Map.copyOf(deleted));
+		}
+
+	}
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import io.smallrye.mutiny.Uni;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+import ia.magazenn.category.service.CategoryChange;
+
+/**
+ * In-memory name indexes of all the categories, used to suggest categories while the
+ * user types and to find categories despite typos.
+ * <p>
+ * Names are {@link CategoryNameTrie#normalize(String) normalized} (lower-cased, without
+ * accents) and indexed in a {@link CategoryNameTrie} for prefixes and in a
+ * {@link CategoryNameBkTree}, along with each of their words, for typos. The indexes are
+ * loaded lazily from the {@link CategorySnapshot} and then kept up to date by observing
+ * {@link CategoryChange} events, so searches don't touch the database.
+ * <p>
+ * Both indexes are immutable: every {@link CategoryChange} swaps in new ones, which share
+ * the unchanged part of the previous ones, so searches never wait for each other or for
+ * a write. Changes are applied in {@link Category#getChangeVersion() change version}
+ * order by category, as in the {@link CategorySnapshot}, and the indexes are dropped
+ * to be reloaded once more than <code>category.snapshot.max-deletions</code> deletions
+ * are remembered.
+ * <p>
+ * The {@link Category} instances handed out are shared between all the readers and must
+ * not be modified.
+ */
+@ApplicationScoped
+public class CategorySuggestions {
+
+	private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private static final int MIN_WORD_LENGTH = 3;
+
+	private final CategorySnapshot categorySnapshot;
+
+	private final int maxDeletions;
+
+	private final AtomicReference<State> state = new AtomicReference<>(new State(0, null, Map.of(), Map.of()));
+
+	public CategorySuggestions(CategorySnapshot categorySnapshot, CategoryConfig categoryConfig) {
+		this.categorySnapshot = categorySnapshot;
+		this.maxDeletions = categoryConfig.snapshot().maxDeletions();
+	}
+
+	void onCategoryChange(@Observes CategoryChange change) {
+		this.state.updateAndGet(current -> apply(current, change));
+	}
+
+	/**
+	 * Suggests categories whose name starts with {@code prefix}, ignoring case and
+	 * accents, in alphabetical order.
+	 * @param prefix The beginning of the name
+	 * @param limit The maximum number of categories to return
+	 * @return At most {@code limit} categories
+	 */
+	public Uni<List<Category>> suggest(String prefix, int limit) {
+		var key = CategoryNameTrie.normalize(prefix);
+
+		return indexes().map(indexes -> indexes.trie().startingWith(key, limit));
+	}
+
+	/**
+	 * Finds the categories whose name, or one of its words, is within a few edits of
+	 * {@code name}, ignoring case and accents. Up to 5 characters, 1 edit is allowed, and
+	 * 2 edits above that.
+	 * @param name The name, possibly misspelled
+	 * @return The matching categories, the closest first, then in alphabetical order
+	 */
+	public Uni<List<Category>> similarTo(String name) {
+		var key = CategoryNameTrie.normalize(name);
+		var maxDistance = (key.length() <= 5) ? 1 : 2;
+
+		return indexes().map(indexes -> indexes.bkTree().search(key, maxDistance)).map(CategorySuggestions::rank);
+	}
+
+	/**
+	 * Drops the indexes so that they are reloaded on next use.
+	 */
+	public void invalidate() {
+		this.state.updateAndGet(current -> current.next(null, Map.of(), Map.of()));
+	}
+
+	private Uni<Indexes> indexes() {
+		var current = this.state.get();
+
+		if (current.isLoaded()) {
+			return Uni.createFrom().item(current.indexes());
+		}
+
+		return this.categorySnapshot.categories().map(categories -> install(current.generation(), categories));
+	}
+
+	/**
+	 * Installs the indexes of freshly loaded categories, unless a write happened since the
+	 * load started, in which case they may already be stale and are only used to answer
+	 * the caller.
+	 */
+	private Indexes install(long generation, List<Category> categories) {
+		var loaded = load(new State(generation, null, Map.of(), Map.of()), categories, Map.of());
+		this.state.updateAndGet(current -> (current.generation() == generation) ? loaded : current);
+		return loaded.indexes();
+	}
+
+	private State apply(State current, CategoryChange change) {
+		if (change.reset()) {
+			return (change.deleted().size() > this.maxDeletions) ? current.next(null, Map.of(), Map.of())
+					: load(current, change.created(), change.deleted());
+		}
+
+		if (!current.isLoaded()) {
+			return current.next(null, Map.of(), Map.of());
+		}
+
+		var indexes = current.indexes();
+		var categoriesById = new HashMap<>(current.categoriesById());
+		var deleted = new HashMap<>(current.deleted());
+
+		for (var category : change.created()) {
+			indexes = write(indexes, categoriesById, deleted, category);
+		}
+
+		for (var category : change.updated()) {
+			indexes = write(indexes, categoriesById, deleted, category);
+		}
+
+		for (var deletion : change.deleted().entrySet()) {
+			var id = deletion.getKey();
+			var existing = categoriesById.get(id);
+
+			if (CategorySnapshot.isLatest(deletion.getValue(), existing, deleted.get(id))) {
+				indexes = remove(indexes, existing);
+				categoriesById.remove(id);
+				deleted.put(id, deletion.getValue());
+			}
+		}
+
+		if (deleted.size() > this.maxDeletions) {
+			return current.next(null, Map.of(), Map.of());
+		}
+
+		return current.next(indexes, categoriesById, deleted);
+	}
+
+	private static State load(State current, List<Category> categories, Map<UUID, Long> deleted) {
+		var indexes = new Indexes(CategoryNameTrie.EMPTY, CategoryNameBkTree.EMPTY);
+		var categoriesById = new HashMap<UUID, Category>();
+		var noDeletions = new HashMap<UUID, Long>();
+
+		for (var category : categories) {
+			indexes = write(indexes, categoriesById, noDeletions, category);
+		}
+
+		return current.next(indexes, categoriesById, deleted);
+	}
+
+	private static Indexes write(Indexes indexes, Map<UUID, Category> categoriesById, Map<UUID, Long> deleted,
+			Category category) {
+		var id = category.getId();
+
+		if ((id == null)
+				|| !CategorySnapshot.isLatest(category.getChangeVersion(), categoriesById.get(id), deleted.get(id))) {
+			return indexes;
+		}
+
+		var detached = CategorySnapshot.detach(category);
+		var updated = remove(indexes, categoriesById.put(id, detached));
+		deleted.remove(id);
+
+		if (detached.getName() == null) {
+			return updated;
+		}
+
+		var key = CategoryNameTrie.normalize(detached.getName());
+		var bkTree = updated.bkTree();
+
+		for (var word : words(key)) {
+			bkTree = bkTree.put(word, detached);
+		}
+
+		return new Indexes(updated.trie().put(key, detached), bkTree);
+	}
+
+	/**
+	 * @param category The indexed category to remove, may be <code>null</code>
+	 */
+	private static Indexes remove(Indexes indexes, Category category) {
+		if ((category == null) || (category.getName() == null)) {
+			return indexes;
+		}
+
+		var key = CategoryNameTrie.normalize(category.getName());
+		var bkTree = indexes.bkTree();
+
+		for (var word : words(key)) {
+			bkTree = bkTree.remove(word, category.getId());
+		}
+
+		return new Indexes(indexes.trie().remove(key, category.getId()), bkTree);
+	}
+
+	private static List<Category> rank(List<CategoryNameBkTree.Match> matches) {
+		var distancesById = new LinkedHashMap<UUID, CategoryNameBkTree.Match>();
+
+		// A category may match through its name and several of its words, keep the closest
+		matches.forEach(match -> distancesById.merge(match.category().getId(), match,
+				(first, second) -> (first.distance() <= second.distance()) ? first : second));
+
+		return distancesById.values()
+			.stream()
+			.sorted(Comparator.comparingInt(CategoryNameBkTree.Match::distance)
+				.thenComparing(match -> CategoryNameTrie.normalize(match.category().getName())))
+			.map(CategoryNameBkTree.Match::category)
+			.toList();
+	}
+
+	/**
+	 * @return The whole key and each of its words long enough to be worth matching
+	 */
+	private static Set<String> words(String key) {
+		var words = new LinkedHashSet<String>();
+		words.add(key);
+		WORD_SEPARATORS.splitAsStream(key).filter(word -> word.length() >= MIN_WORD_LENGTH).forEach(words::add);
+
+		return words;
+	}
+
+	private record Indexes(CategoryNameTrie trie, CategoryNameBkTree bkTree) {
+
+	}
+
+	/**
+	 * @param generation Incremented on every change so that a load racing with a write
+	 * doesn't install stale indexes
+	 * @param indexes The indexes, or <code>null</code> if not loaded
+	 * @param categoriesById The indexed categories, needed to remove them and to order
+	 * their writes
+	 * @param deleted The identifiers of the categories deleted since the last reset, with
+	 * the change version of their deletion
+	 */
+	private record State(long generation, Indexes indexes, Map<UUID, Category> categoriesById,
+			Map<UUID, Long> deleted) {
+
+		boolean isLoaded() {
+			return this.indexes != null;
+		}
+
+		State next(Indexes indexes, Map<UUID, Category> categoriesById, Map<UUID, Long> deleted) {
+			return new State(this.generation + 1, indexes, Map.copyOf(categoriesById), Map.copyOf(deleted));
+		}
+
+	}
+
+}
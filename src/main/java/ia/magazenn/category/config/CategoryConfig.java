@@ -0,0 +1,284 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.List;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * Application specific configuration, bound to the <code>category</code> prefix.
+ */
+@ConfigMapping(prefix = "category")
+public interface CategoryConfig {
+
+	/**
+	 * Configuration of the in-memory snapshot of all the categories.
+	 */
+	Snapshot snapshot();
+
+	/**
+	 * Configuration of the cache of categories by identifier.
+	 */
+	IdCache idCache();
+
+	/**
+	 * Configuration of the cache of the serialized JSON responses.
+	 */
+	JsonCache jsonCache();
+
+	/**
+	 * Configuration of the HTTP caching of the categories.
+	 */
+	Http http();
+
+	/**
+	 * Configuration of the streamed export of all the categories.
+	 */
+	Export export();
+
+	/**
+	 * Configuration of the bulk inserts done when replacing all the categories.
+	 */
+	BulkInsert bulkInsert();
+
+	/**
+	 * Configuration of the newline delimited JSON import of categories.
+	 */
+	BulkImport bulkImport();
+
+	/**
+	 * Configuration of the static assets served compressed.
+	 */
+	StaticAssets staticAssets();
+
+	/**
+	 * Configuration of the notifications of changes between the instances of the service.
+	 */
+	Notifications notifications();
+
+	/**
+	 * Configuration of the feed of changes streamed as server-sent events.
+	 */
+	Changes changes();
+
+	/**
+	 * Configuration of the coalescing of concurrent category creations.
+	 */
+	GroupCommit groupCommit();
+
+	interface Snapshot {
+
+		/**
+		 * Whether <code>GET /api/categories</code> is served from the in-memory snapshot
+		 * instead of querying the database on every call.
+		 */
+		@WithDefault("true")
+		boolean enabled();
+
+		/**
+		 * The maximum number of deletions remembered to ignore the writes arriving after
+		 * them. Above that, the snapshot and the suggestion indexes are reloaded, which
+		 * forgets them, rather than copying an ever growing map on every write.
+		 */
+		@WithDefault("10000")
+		@Min(1)
+		int maxDeletions();
+
+	}
+
+	interface IdCache {
+
+		/**
+		 * Whether <code>GET /api/categories/{id}</code> is served from the cache.
+		 */
+		@WithDefault("true")
+		boolean enabled();
+
+		/**
+		 * The maximum number of identifiers in the cache, found or not.
+		 */
+		@WithDefault("10000")
+		@Min(1)
+		long maximumSize();
+
+		/**
+		 * How long a category that was found stays in the cache.
+		 */
+		@WithDefault("10m")
+		Duration expireAfterWrite();
+
+		/**
+		 * How long an identifier that wasn't found stays in the cache. Kept short as
+		 * another instance of the service may create it.
+		 */
+		@WithDefault("30s")
+		Duration negativeExpireAfterWrite();
+
+	}
+
+	interface JsonCache {
+
+		/**
+		 * Whether the JSON of all the categories and of each category is kept serialized
+		 * between requests, instead of being serialized on every response.
+		 */
+		@WithDefault("true")
+		boolean enabled();
+
+	}
+
+	interface Http {
+
+		/**
+		 * The <code>Cache-Control</code> header of the responses tagged with the catalogue
+		 * version. <code>no-cache</code> lets clients keep responses but revalidate them
+		 * with <code>If-None-Match</code> on every use.
+		 */
+		@WithDefault("no-cache")
+		String cacheControl();
+
+	}
+
+	interface Export {
+
+		/**
+		 * The number of rows read from the database per round trip.
+		 */
+		@WithDefault("500")
+		int fetchSize();
+
+	}
+
+	interface BulkInsert {
+
+		/**
+		 * The maximum number of rows per <code>INSERT</code> statement. PostgreSQL limits a
+		 * statement to 65535 parameters, that is 21845 rows.
+		 */
+		@WithDefault("1000")
+		@Max(21845)
+		@Min(1)
+		int batchSize();
+
+	}
+
+	interface BulkImport {
+
+		/**
+		 * The maximum number of rejected lines reported in the import summary.
+		 */
+		@WithDefault("100")
+		@Min(0)
+		int maxErrors();
+
+	}
+
+	interface StaticAssets {
+
+		/**
+		 * The assets, relative to <code>META-INF/resources</code>, served compressed and
+		 * under a content-hashed URL.
+		 */
+		@WithDefault("css/patternfly.css,css/patternfly-addons.css")
+		List<String> paths();
+
+	}
+
+	interface Notifications {
+
+		/**
+		 * Whether writes are notified to, and received from, the other instances of the
+		 * service sharing the database.
+		 */
+		@WithDefault("true")
+		boolean enabled();
+
+		/**
+		 * The PostgreSQL channel of the notifications.
+		 */
+		@WithDefault("category_changes")
+		String channel();
+
+		/**
+		 * The maximum number of identifiers in a notification. Above that, the other
+		 * instances are asked to reload all the categories. PostgreSQL limits a payload to
+		 * 8000 bytes, and a deleted identifier takes up to 59 of them with its change
+		 * version, so no more than 130 always fit. Notifications that wouldn't fit are
+		 * sent as reloads whatever this maximum.
+		 */
+		@WithDefault("100")
+		@Max(130)
+		@Min(0)
+		int maxIds();
+
+		/**
+		 * How long to wait before listening again after losing the connection.
+		 */
+		@WithDefault("1s")
+		Duration reconnectInterval();
+
+	}
+
+	interface Changes {
+
+		/**
+		 * The number of events kept in memory for clients resuming the feed with
+		 * <code>Last-Event-ID</code>. Clients further behind receive all the categories
+		 * again.
+		 */
+		@WithDefault("1000")
+		@Min(1)
+		int bufferSize();
+
+		/**
+		 * The number of events held for a client not reading them as fast as they happen.
+		 * A client falling further behind is disconnected, and resumes with
+		 * <code>Last-Event-ID</code> when it reconnects.
+		 */
+		@WithDefault("1000")
+		@Min(1)
+		int clientBufferSize();
+
+	}
+
+	interface GroupCommit {
+
+		/**
+		 * Whether categories created concurrently are inserted together, with a single
+		 * multi-row <code>INSERT</code> in a single transaction, instead of one transaction
+		 * each.
+		 */
+		@WithDefault("false")
+		boolean enabled();
+
+		/**
+		 * The maximum number of categories inserted together. A full group is inserted
+		 * right away.
+		 */
+		@WithDefault("100")
+		@Max(21845)
+		@Min(1)
+		int maxBatchSize();
+
+		/**
+		 * The maximum time, in microseconds, the first category of a group waits for other
+		 * ones before the group is inserted.
+		 */
+		@WithDefault("500")
+		@Min(0)
+		long maxWaitMicros();
+
+	}
+
+}
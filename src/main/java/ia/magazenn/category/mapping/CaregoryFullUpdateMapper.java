@@ -21,11 +21,14 @@ import ia.magazenn.category.Category;
 public interface CaregoryFullUpdateMapper {
 
 	/**
-	 * Maps all fields except <code>id</code> from {@code input} onto {@code target}.
+	 * Maps all fields except <code>id</code>, <code>version</code> and
+	 * <code>changeVersion</code> from {@code input} onto {@code target}.
 	 * @param input The input {@link Category}
 	 * @param target The target {@link Category}
 	 */
 	@Mapping(target = "id", ignore = true)
+	@Mapping(target = "version", ignore = true)
+	@Mapping(target = "changeVersion", ignore = true)
 	void mapFullUpdate(Category input, @MappingTarget Category target);
 
 }
@@ -0,0 +1,88 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.notification;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.service.CategoryChange;
+
+/**
+ * Payload of the PostgreSQL notification describing a {@link CategoryChange} to the other
+ * instances of the service. Only identifiers are sent, as a payload is limited to 8000
+ * bytes: the receivers read the categories themselves.
+ * @param origin The instance that made the change, which ignores its own notifications
+ * @param sentAt When the notification was sent, in milliseconds since the epoch
+ * @param created The identifiers of the categories that were created
+ * @param updated The identifiers of the categories that were updated
+ * @param deleted The identifiers of the categories that were deleted, with the change
+ * version of their deletion
+ * @param reset <code>true</code> if the receivers must reload all the categories, in
+ * which case no identifiers are sent
+ */
+@RegisterForReflection
+record CategoryChangeNotification(String origin, long sentAt, List<UUID> created, List<UUID> updated,
+		Map<UUID, Long> deleted, boolean reset) {
+
+	/**
+	 * PostgreSQL rejects payloads of 8000 bytes or more, failing the transaction sending
+	 * them.
+	 */
+	static final int MAX_PAYLOAD_BYTES = 7999;
+
+	/**
+	 * The most the JSON takes besides the origin and the identifiers.
+	 */
+	private static final int MAX_ENVELOPE_BYTES = 128;
+
+	/**
+	 * The most a created or updated identifier takes: <code>"&lt;id&gt;",</code>.
+	 */
+	private static final int MAX_ID_BYTES = 39;
+
+	/**
+	 * The most a deleted identifier takes:
+	 * <code>"&lt;id&gt;":&lt;change version&gt;,</code>.
+	 */
+	private static final int MAX_DELETED_ID_BYTES = 59;
+
+	CategoryChangeNotification {
+		// Empty lists are left out of the JSON
+		created = (created != null) ? created : List.of();
+		updated = (updated != null) ? updated : List.of();
+		deleted = (deleted != null) ? deleted : Map.of();
+	}
+
+	/**
+	 * @param origin The instance that made the change
+	 * @param change The change
+	 * @param maxIds The maximum number of identifiers to send, above which the receivers
+	 * are asked to reload all the categories instead. They are asked to as well when the
+	 * identifiers might not fit in {@value #MAX_PAYLOAD_BYTES} bytes.
+	 * @return The notification of {@code change}
+	 */
+	static CategoryChangeNotification of(String origin, CategoryChange change, int maxIds) {
+		var ids = change.created().size() + change.updated().size() + change.deleted().size();
+		var maxBytes = MAX_ENVELOPE_BYTES + origin.length() + (change.created().size() * MAX_ID_BYTES)
+				+ (change.updated().size() * MAX_ID_BYTES) + (change.deleted().size() * MAX_DELETED_ID_BYTES);
+
+		if (change.reset() || (ids > maxIds) || (maxBytes > MAX_PAYLOAD_BYTES)) {
+			return new CategoryChangeNotification(origin, System.currentTimeMillis(), List.of(), List.of(), Map.of(),
+					true);
+		}
+
+		return new CategoryChangeNotification(origin, System.currentTimeMillis(),
+				change.created().stream().map(Category::getId).toList(),
+				change.updated().stream().map(Category::getId).toList(), change.deleted(), false);
+	}
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.common.vertx.VertxContext;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.pgclient.pubsub.PgSubscriber;
+import io.vertx.pgclient.PgConnectOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+import ia.magazenn.category.repository.CategoryRepository;
+import ia.magazenn.category.service.CategoryChange;
+import ia.magazenn.category.service.CategoryService;
+
+/**
+ * Keeps the in-memory state of the instances of the service running against the same
+ * database in sync, with PostgreSQL <code>LISTEN</code>/<code>NOTIFY</code>.
+ * <p>
+ * {@link CategoryService} {@link #send(CategoryChange) sends} a notification of each
+ * write within its transaction, so that it is only delivered if the write is committed.
+ * Every instance listens to these notifications on a dedicated connection, reads the
+ * categories they mention and fires the matching {@link CategoryChange}, which updates
+ * its caches exactly like a local write. Notifications are handled one at a time, in the
+ * order they are received, so that reading the categories of a notification can't
+ * overwrite the changes of a later one. Once listening, and again after losing the
+ * connection, when notifications may have been missed, an instance reloads all the
+ * categories.
+ * <p>
+ * The delay between sending and receiving notifications is published as the
+ * <code>categories.notifications.lag</code> timer, which relies on the clocks of the
+ * instances being synchronized, and the reloads as the
+ * <code>categories.notifications.resyncs</code> counter.
+ */
+@ApplicationScoped
+public class CategoryChangeNotifier {
+
+	private static final String VERTX_REACTIVE_PREFIX = "vertx-reactive:";
+
+	/**
+	 * Identifies this instance in the notifications it sends.
+	 */
+	private final String origin = UUID.randomUUID().toString();
+
+	private final CategoryRepository categoryRepository;
+
+	private final Event<CategoryChange> categoryChangeEvent;
+
+	private final ObjectMapper objectMapper;
+
+	private final Vertx vertx;
+
+	private final CategoryConfig.Notifications config;
+
+	private final Optional<String> url;
+
+	private final Optional<String> username;
+
+	private final Optional<String> password;
+
+	private final Timer lag;
+
+	private final Counter resyncs;
+
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+
+	private final Queue<Supplier<Uni<Void>>> pending = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	private PgSubscriber subscriber;
+
+	public CategoryChangeNotifier(CategoryRepository categoryRepository, Event<CategoryChange> categoryChangeEvent,
+			ObjectMapper objectMapper, Vertx vertx, CategoryConfig categoryConfig, MeterRegistry meterRegistry,
+			@ConfigProperty(name = "quarkus.datasource.reactive.url") Optional<String> url,
+			@ConfigProperty(name = "quarkus.datasource.username") Optional<String> username,
+			@ConfigProperty(name = "quarkus.datasource.password") Optional<String> password) {
+		this.categoryRepository = categoryRepository;
+		this.categoryChangeEvent = categoryChangeEvent;
+		this.objectMapper = objectMapper;
+		this.vertx = vertx;
+		this.config = categoryConfig.notifications();
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.lag = Timer.builder("categories.notifications.lag")
+			.description("Delay between a write on another instance and its notification being received")
+			.publishPercentileHistogram()
+			.register(meterRegistry);
+		this.resyncs = Counter.builder("categories.notifications.resyncs")
+			.description("Reloads of all the categories requested by a notification, or on listening and reconnecting")
+			.register(meterRegistry);
+	}
+
+	void onStart(@Observes StartupEvent event) {
+		if (!this.config.enabled()) {
+			return;
+		}
+
+		if (this.url.isEmpty()) {
+			Log.warn("No quarkus.datasource.reactive.url, changes made by other instances won't be received");
+			return;
+		}
+
+		var interval = this.config.reconnectInterval().toMillis();
+		this.subscriber = PgSubscriber.subscriber(this.vertx, connectOptions()).reconnectPolicy(retries -> interval);
+		this.subscriber.channel(this.config.channel()).handler(this::onNotification).subscribeHandler(() -> {
+			// Notifications may have been missed before listening, or while reconnecting
+			if (this.subscribed.getAndSet(true)) {
+				Log.info("Listening to category changes again, reloading all the categories");
+			}
+
+			enqueue(this::resync);
+		});
+
+		this.subscriber.connect()
+			.onFailure()
+			.invoke(exc -> Log.warnf("Unable to listen to category changes, retrying: %s", exc.getMessage()))
+			.onFailure()
+			.retry()
+			.withBackOff(this.config.reconnectInterval(), this.config.reconnectInterval().multipliedBy(30))
+			.indefinitely()
+			.subscribe()
+			.with(ok -> Log.infof("Listening to category changes on %s", this.config.channel()));
+	}
+
+	void onStop(@Observes ShutdownEvent event) {
+		if (this.subscriber != null) {
+			this.subscriber.closeAndAwait();
+		}
+	}
+
+	/**
+	 * Notifies the other instances of a change. Must be called within the transaction
+	 * making the change.
+	 * @param change The change, may be <code>null</code> if nothing changed
+	 * @return A {@link Uni} completing once the notification is queued
+	 */
+	public Uni<Void> send(CategoryChange change) {
+		if (!this.config.enabled() || (change == null)) {
+			return Uni.createFrom().voidItem();
+		}
+
+		String payload;
+
+		try {
+			payload = this.objectMapper
+				.writeValueAsString(CategoryChangeNotification.of(this.origin, change, this.config.maxIds()));
+		}
+		catch (JsonProcessingException exc) {
+			return Uni.createFrom().failure(exc);
+		}
+
+		return Panache.getSession()
+			.chain(session -> session.createNativeQuery("SELECT 1 FROM pg_notify(?1, ?2)")
+				.setParameter(1, this.config.channel())
+				.setParameter(2, payload)
+				.getSingleResult())
+			.replaceWithVoid();
+	}
+
+	private void onNotification(String payload) {
+		CategoryChangeNotification notification;
+
+		try {
+			notification = this.objectMapper.readValue(payload, CategoryChangeNotification.class);
+		}
+		catch (JsonProcessingException exc) {
+			Log.warnf("Invalid category change notification, reloading all the categories: %s", payload);
+			enqueue(this::resync);
+			return;
+		}
+
+		if (this.origin.equals(notification.origin())) {
+			return;
+		}
+
+		this.lag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - notification.sentAt())));
+		Log.debugf("Received category change notification: %s", notification);
+		enqueue(() -> notification.reset() ? resync() : apply(notification));
+	}
+
+	/**
+	 * Reads the categories created and updated by another instance, and fires their
+	 * change. Categories that can't be found anymore were deleted since, which is
+	 * notified too.
+	 */
+	private Uni<Void> apply(CategoryChangeNotification notification) {
+		var ids = new ArrayList<UUID>(notification.created());
+		ids.addAll(notification.updated());
+
+		return Panache.withSession(() -> this.categoryRepository.listByIds(ids)).invoke(categories -> {
+			var categoriesById = categories.stream().collect(Collectors.toMap(Category::getId, Function.identity()));
+			var created = found(notification.created(), categoriesById);
+			var updated = found(notification.updated(), categoriesById);
+
+			this.categoryChangeEvent.fire(new CategoryChange(created, updated, notification.deleted(), false));
+		}).replaceWithVoid();
+	}
+
+	private static List<Category> found(List<UUID> ids, Map<UUID, Category> categoriesById) {
+		return ids.stream().map(categoriesById::get).filter(Objects::nonNull).toList();
+	}
+
+	private Uni<Void> resync() {
+		this.resyncs.increment();
+
+		return Panache.withSession(this.categoryRepository::listAll)
+			.invoke(categories -> this.categoryChangeEvent.fire(CategoryChange.replaced(categories)))
+			.invoke(categories -> Log.infof("Reloaded %d categories", categories.size()))
+			.replaceWithVoid();
+	}
+
+	/**
+	 * Runs {@code work} once the work queued before is done.
+	 */
+	private void enqueue(Supplier<Uni<Void>> work) {
+		this.pending.add(work);
+
+		if (this.pendingCount.getAndIncrement() == 0) {
+			runNext();
+		}
+	}
+
+	/**
+	 * Runs the next queued work on a new duplicated Vert.x context, as required by
+	 * Hibernate Reactive, as notifications are received on the root context of their
+	 * connection.
+	 */
+	private void runNext() {
+		var work = this.pending.poll();
+
+		VertxContext.createNewDuplicatedContext(this.vertx.getDelegate().getOrCreateContext())
+			.runOnContext(ignored -> Uni.createFrom()
+				.deferred(work)
+				.onFailure()
+				.invoke(exc -> Log.warnf(exc, "Unable to apply a category change notification"))
+				.onFailure()
+				.recoverWithNull()
+				.subscribe()
+				.with(done -> {
+					if (this.pendingCount.decrementAndGet() > 0) {
+						runNext();
+					}
+				}));
+	}
+
+	private PgConnectOptions connectOptions() {
+		var uri = this.url.get().split(",")[0].strip();
+
+		if (uri.startsWith(VERTX_REACTIVE_PREFIX)) {
+			uri = uri.substring(VERTX_REACTIVE_PREFIX.length());
+		}
+
+		var options = PgConnectOptions.fromUri(uri);
+		this.username.ifPresent(options::setUser);
+		this.password.ifPresent(options::setPassword);
+
+		return options;
+	}
+
+}
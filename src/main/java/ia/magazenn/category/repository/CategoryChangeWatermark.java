@@ -0,0 +1,77 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.repository;
+
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.hibernate.reactive.panache.common.WithSession;
+import io.smallrye.mutiny.Uni;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import ia.magazenn.category.Category;
+
+/**
+ * Tells up to which {@link Category#getChangeVersion() change version} all the writes
+ * to the categories are done, so that a client syncing with
+ * <code>GET /api/categories?since=&lt;version&gt;</code> never skips a write.
+ * <p>
+ * Change versions are taken when writing rather than when committing, so a transaction
+ * may commit after another one that took higher versions. Every writing transaction
+ * therefore first {@link #hold() holds} a transaction-level advisory lock keyed by a
+ * change version lower than all the ones it takes, which the database releases only
+ * once the transaction is visible to others. The watermark is then the lowest of these
+ * keys still held, minus one, and at most the last change version taken before looking
+ * at them, as the transactions starting afterwards only take higher ones.
+ * <p>
+ * The bigint advisory locks of the database are reserved for this.
+ */
+@ApplicationScoped
+@WithSession
+public class CategoryChangeWatermark {
+
+	private static final String HOLD = "SELECT 1 FROM pg_advisory_xact_lock_shared(nextval('category_change_seq'))";
+
+	/**
+	 * The locks are only read once the last value of the sequence is, thanks to the
+	 * correlated subquery.
+	 */
+	private static final String WATERMARK = """
+			SELECT CASE WHEN s.is_called THEN s.last_value ELSE s.last_value - 1 END,
+			  (SELECT min((l.classid::bigint << 32) | l.objid::bigint) FROM pg_locks l
+			   WHERE l.locktype = 'advisory' AND l.objsubid = 1 AND l.granted AND s.last_value IS NOT NULL
+			     AND l.database = (SELECT oid FROM pg_database WHERE datname = current_database()))
+			FROM category_change_seq s
+			""";
+
+	/**
+	 * Marks the current transaction as writing categories. Must be called within the
+	 * transaction, before it takes any change version.
+	 * @return A {@link Uni} completing once the lock is held
+	 */
+	public Uni<Void> hold() {
+		return Panache.getSession()
+			.chain(session -> session.createNativeQuery(HOLD, Integer.class).getSingleResult())
+			.replaceWithVoid();
+	}
+
+	/**
+	 * Must be called before, and outside of, the transaction reading the changes, so
+	 * that the writes committed in between are visible to it.
+	 * @return The change version at or below which every write is either committed or
+	 * rolled back
+	 */
+	public Uni<Long> current() {
+		return Panache.getSession()
+			.chain(session -> session.createNativeQuery(WATERMARK, Object[].class).getSingleResult())
+			.map(row -> {
+				var last = ((Number) row[0]).longValue();
+				return (row[1] != null) ? Math.min(last, ((Number) row[1]).longValue() - 1) : last;
+			});
+	}
+
+}
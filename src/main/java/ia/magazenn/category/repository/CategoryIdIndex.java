@@ -0,0 +1,156 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.repository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.service.CategoryChange;
+
+/**
+ * Dense array of the identifiers of all the categories, used to pick a random category
+ * in constant time.
+ * <p>
+ * Identifiers are stored as two parallel <code>long</code> arrays, which
+ * {@link #random()} picks from, and mapped to their position in them. Additions append at
+ * the end and removals move the last identifier into the freed slot, so the arrays never
+ * have holes and both take constant time. Adding an identifier already present does
+ * nothing, so that a change racing with a load can't make a category more likely to be
+ * picked.
+ * <p>
+ * The index is loaded lazily by {@link CategoryRepository#findRandom()} and then kept up
+ * to date by observing {@link CategoryChange} events.
+ */
+@ApplicationScoped
+public class CategoryIdIndex {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] mostSignificantBits = new long[INITIAL_CAPACITY];
+
+	private long[] leastSignificantBits = new long[INITIAL_CAPACITY];
+
+	private final Map<UUID, Integer> positions = new HashMap<>();
+
+	private int size;
+
+	private boolean loaded;
+
+	private long generation;
+
+	void onCategoryChange(@Observes CategoryChange change) {
+		synchronized (this) {
+			this.generation++;
+
+			if (change.reset()) {
+				replaceWith(change.created().stream().map(Category::getId).filter(Objects::nonNull).toList());
+			}
+			else if (this.loaded) {
+				change.created().stream().map(Category::getId).filter(Objects::nonNull).forEach(this::add);
+				change.deleted().keySet().forEach(this::remove);
+			}
+		}
+	}
+
+	public synchronized boolean isLoaded() {
+		return this.loaded;
+	}
+
+	public synchronized long generation() {
+		return this.generation;
+	}
+
+	/**
+	 * Loads the index, unless a change happened since {@code generation} was read, in which
+	 * case {@code ids} may be stale and are ignored.
+	 * @param generation The {@link #generation()} read before querying {@code ids}
+	 * @param ids The identifiers of all the categories
+	 */
+	public synchronized void load(long generation, Collection<UUID> ids) {
+		if (this.generation == generation) {
+			this.generation++;
+			replaceWith(ids);
+		}
+	}
+
+	/**
+	 * Drops the index so that it is reloaded on next use.
+	 */
+	public synchronized void invalidate() {
+		this.generation++;
+		this.loaded = false;
+		this.size = 0;
+		this.positions.clear();
+	}
+
+	/**
+	 * @return A random identifier, or <code>null</code> if there are no categories or the
+	 * index isn't loaded
+	 */
+	public synchronized UUID random() {
+		if (this.size == 0) {
+			return null;
+		}
+
+		var index = ThreadLocalRandom.current().nextInt(this.size);
+
+		return new UUID(this.mostSignificantBits[index], this.leastSignificantBits[index]);
+	}
+
+	public synchronized void remove(UUID id) {
+		var index = this.positions.remove(id);
+
+		if (index == null) {
+			return;
+		}
+
+		var last = --this.size;
+
+		if (index != last) {
+			this.mostSignificantBits[index] = this.mostSignificantBits[last];
+			this.leastSignificantBits[index] = this.leastSignificantBits[last];
+			this.positions.put(new UUID(this.mostSignificantBits[index], this.leastSignificantBits[index]), index);
+		}
+	}
+
+	private void add(UUID id) {
+		if (this.positions.putIfAbsent(id, this.size) != null) {
+			return;
+		}
+
+		if (this.size == this.mostSignificantBits.length) {
+			var capacity = this.size * 2;
+			this.mostSignificantBits = Arrays.copyOf(this.mostSignificantBits, capacity);
+			this.leastSignificantBits = Arrays.copyOf(this.leastSignificantBits, capacity);
+		}
+
+		this.mostSignificantBits[this.size] = id.getMostSignificantBits();
+		this.leastSignificantBits[this.size] = id.getLeastSignificantBits();
+		this.size++;
+	}
+
+	private void replaceWith(Collection<UUID> ids) {
+		var capacity = Math.max(INITIAL_CAPACITY, ids.size());
+		this.mostSignificantBits = new long[capacity];
+		this.leastSignificantBits = new long[capacity];
+		this.size = 0;
+		this.positions.clear();
+		this.loaded = true;
+		ids.forEach(this::add);
+	}
+
+}
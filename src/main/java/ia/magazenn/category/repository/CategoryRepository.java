@@ -9,15 +9,27 @@ package ia.magazenn.category.repository;
 
 import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
 import io.quarkus.hibernate.reactive.panache.common.WithSession;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.OptimisticLockException;
+
+import org.hibernate.reactive.mutiny.Mutiny;
 
 import ia.magazenn.category.Category;
+import ia.magazenn.category.CategoryTombstone;
 
 /**
  * Repository class for managing data operations on a {@link Category}.
@@ -26,19 +38,518 @@ import ia.magazenn.category.Category;
 @WithSession
 public class CategoryRepository implements PanacheRepositoryBase<Category, UUID> {
 
+	/**
+	 * The columns mapped by {@link Category}, for native queries.
+	 */
+	private static final String COLUMNS = "id, name, description, version, change_version";
+
+	/**
+	 * The maximum number of identifiers bound to a single statement, as PostgreSQL limits
+	 * a statement to 65535 parameters.
+	 */
+	private static final int MAX_IDS_PER_STATEMENT = 10_000;
+
+	private static final String SEARCH = """
+			SELECT c.id, c.name, c.description, c.version, c.change_version
+			FROM category c, websearch_to_tsquery('english', ?1) query
+			WHERE c.search_vector @@ query
+			ORDER BY ts_rank(c.search_vector, query) DESC, c.name, c.id
+			LIMIT ?2 OFFSET ?3
+			""";
+
+	/**
+	 * Deletes categories and records their tombstones in the same statement, returning the
+	 * change version of each deletion. A category deleted again after being re-created
+	 * keeps a single tombstone.
+	 */
+	private static final String DELETE_WITH_TOMBSTONES = """
+			WITH deleted AS (DELETE FROM category %s RETURNING id)
+			INSERT INTO category_tombstone (id, change_version)
+			SELECT id, nextval('category_change_seq') FROM deleted
+			ON CONFLICT (id) DO UPDATE SET change_version = EXCLUDED.change_version
+			RETURNING id, change_version
+			""";
+
+	/**
+	 * Inserts a category, or replaces it if it already exists. The row an update returns
+	 * always has a version above 0.
+	 */
+	private static final String UPSERT = """
+			INSERT INTO category (id, name, description) VALUES (?1, ?2, ?3)
+			ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description,
+			version = category.version + 1, change_version = nextval('category_change_seq')
+			RETURNING %s
+			""".formatted(COLUMNS);
+
+	private static final String DELETED_SINCE = """
+			FROM CategoryTombstone t
+			WHERE t.changeVersion > ?1 AND t.changeVersion <= ?2 AND NOT EXISTS (FROM Category c WHERE c.id = t.id)
+			ORDER BY t.changeVersion
+			""";
+
+	private final CategoryIdIndex categoryIdIndex;
+
+	public CategoryRepository(CategoryIdIndex categoryIdIndex) {
+		this.categoryIdIndex = categoryIdIndex;
+	}
+
+	/**
+	 * Finds a random category by picking an identifier from the {@link CategoryIdIndex}
+	 * and fetching it by primary key, which costs the same whatever the number of
+	 * categories.
+	 * @return A random category, or <code>null</code> if there are none
+	 */
 	public Uni<Category> findRandom() {
+		return randomId().onItem()
+			.ifNotNull()
+			.transformToUni(id -> findById(id).onItem().ifNull().switchTo(() -> {
+				// Deleted behind the index's back (i.e. by another instance of the service)
+				this.categoryIdIndex.remove(id);
+				return findRandomByOffset();
+			}));
+	}
+
+	/**
+	 * Finds the categories with the given identifiers in a single statement.
+	 * @param ids The identifiers
+	 * @return The categories found, in no particular order
+	 */
+	public Uni<List<Category>> listByIds(Collection<UUID> ids) {
+		return ids.isEmpty() ? Uni.createFrom().item(List.of()) : list("id IN ?1", ids);
+	}
+
+	/**
+	 * Deletes the categories with the given identifiers, recording their
+	 * {@link CategoryTombstone}s, and tells which ones existed. Identifiers are deleted
+	 * with one statement per {@value #MAX_IDS_PER_STATEMENT}, in the current transaction.
+	 * @param ids The identifiers
+	 * @return The identifiers of the deleted categories, with the
+	 * {@link Category#getChangeVersion() change version} of their deletion
+	 */
+	public Uni<Map<UUID, Long>> deleteByIds(Collection<UUID> ids) {
+		if (ids.isEmpty()) {
+			return Uni.createFrom().item(Map.of());
+		}
+
+		var idList = List.copyOf(ids);
+		var chunks = IntStream.iterate(0, from -> from < idList.size(), from -> from + MAX_IDS_PER_STATEMENT)
+			.mapToObj(from -> idList.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, idList.size())))
+			.toList();
+
+		// Chunks have to run one after the other as a session can't be used concurrently
+		return Multi.createFrom()
+			.iterable(chunks)
+			.onItem()
+			.transformToUniAndConcatenate(chunk -> deleteWithTombstones("WHERE id IN (?1)", chunk))
+			.collect()
+			.in(HashMap<UUID, Long>::new, Map::putAll)
+			.map(Map::copyOf);
+	}
+
+	/**
+	 * Replaces the name and the description of a category in a single
+	 * <code>UPDATE … RETURNING</code> statement, without loading it first. The returned
+	 * category isn't attached to the session.
+	 * @param category The identifier of the category to update, its new values, and the
+	 * {@link Category#getVersion() version} and
+	 * {@link Category#getChangeVersion() change version} it must still have, if any
+	 * @return The updated category, or <code>null</code> if there is none with this
+	 * identifier
+	 * @throws OptimisticLockException If the category doesn't have the expected version
+	 * anymore, holding its current state
+	 */
+	public Uni<Category> replaceById(Category category) {
+		var columns = new LinkedHashMap<String, Object>();
+		columns.put("name", category.getName());
+		columns.put("description", category.getDescription());
+
+		return updateById(category.getId(), columns, category.getVersion(), category.getChangeVersion());
+	}
+
+	/**
+	 * Updates the non-null name and description of a category in a single
+	 * <code>UPDATE … RETURNING</code> statement, without loading it first, or only reads
+	 * it if both are <code>null</code>. The returned category isn't attached to the
+	 * session.
+	 * @param category The identifier of the category to update, its new values,
+	 * <code>null</code> for the ones to leave unchanged, and the
+	 * {@link Category#getVersion() version} and
+	 * {@link Category#getChangeVersion() change version} it must still have, if any
+	 * @return The updated category, or <code>null</code> if there is none with this
+	 * identifier
+	 * @throws OptimisticLockException If the category doesn't have the expected version
+	 * anymore, holding its current state
+	 */
+	public Uni<Category> patchById(Category category) {
+		var columns = new LinkedHashMap<String, Object>();
+
+		if (category.getName() != null) {
+			columns.put("name", category.getName());
+		}
+
+		if (category.getDescription() != null) {
+			columns.put("description", category.getDescription());
+		}
+
+		return updateById(category.getId(), columns, category.getVersion(), category.getChangeVersion());
+	}
+
+	/**
+	 * Inserts a category, or replaces the name and the description of the existing one, in
+	 * a single <code>INSERT … ON CONFLICT (id) DO UPDATE</code> statement. The returned
+	 * category isn't attached to the session.
+	 * @param category The category, with its identifier
+	 * @return The inserted category, whose {@link Category#getVersion() version} is 0, or
+	 * the updated one, whose version is above 0
+	 */
+	public Uni<Category> upsertById(Category category) {
+		return getSession().chain(session -> session.createNativeQuery(UPSERT, Object[].class)
+			.setParameter(1, category.getId())
+			.setParameter(2, category.getName())
+			.setParameter(3, category.getDescription())
+			.getSingleResult()).map(CategoryRepository::toCategory);
+	}
+
+	/**
+	 * Updates the given columns of a category, only if it has the expected version, and
+	 * change version when given. When it doesn't, the same statement returns its current
+	 * state instead, flagged as not matching, so that a conflict can be told from a
+	 * missing category without another round trip.
+	 */
+	private Uni<Category> updateById(UUID id, Map<String, Object> columns, Long expectedVersion,
+			Long expectedChangeVersion) {
+		var versionParameter = columns.size() + 2;
+		var matches = "true";
+
+		if (expectedVersion != null) {
+			matches = "version = ?" + versionParameter;
+
+			if (expectedChangeVersion != null) {
+				matches += " AND change_version = ?" + (versionParameter + 1);
+			}
+		}
+
+		var sql = new StringBuilder();
+
+		if (columns.isEmpty()) {
+			// Nothing to write, but still a single statement telling whether it exists
+			sql.append("SELECT ").append(COLUMNS).append(", ").append(matches).append(" FROM category WHERE id = ?1");
+		}
+		else {
+			var update = new StringBuilder("UPDATE category SET ");
+			var parameter = 2;
+
+			for (var column : columns.keySet()) {
+				update.append(column).append(" = ?").append(parameter++).append(", ");
+			}
+
+			update.append("version = version + 1, change_version = nextval('category_change_seq') WHERE id = ?1");
+
+			if (expectedVersion == null) {
+				sql.append(update).append(" RETURNING ").append(COLUMNS).append(", true");
+			}
+			else {
+				// Both queries see the row as it was before the update
+				sql.append("WITH updated AS (")
+					.append(update)
+					.append(" AND ")
+					.append(matches)
+					.append(" RETURNING ")
+					.append(COLUMNS)
+					.append(") SELECT ")
+					.append(COLUMNS)
+					.append(", true FROM updated UNION ALL SELECT ")
+					.append(COLUMNS)
+					.append(", false FROM category WHERE id = ?1 AND NOT EXISTS (SELECT 1 FROM updated)");
+			}
+		}
+
+		return getSession().chain(session -> {
+			var query = session.createNativeQuery(sql.toString(), Object[].class).setParameter(1, id);
+			var position = 2;
+
+			for (var value : columns.values()) {
+				query.setParameter(position++, value);
+			}
+
+			if (expectedVersion != null) {
+				query.setParameter(versionParameter, expectedVersion);
+
+				if (expectedChangeVersion != null) {
+					query.setParameter(versionParameter + 1, expectedChangeVersion);
+				}
+			}
+
+			return query.getSingleResultOrNull();
+		}).map(row -> {
+			if (row == null) {
+				return null;
+			}
+
+			var category = toCategory(row);
+
+			if (!((Boolean) row[5])) {
+				throw new OptimisticLockException(
+						"Category %s isn't at version %d anymore".formatted(id, expectedVersion), null, category);
+			}
+
+			return category;
+		});
+	}
+
+	/**
+	 * Maps a row of {@link #COLUMNS} to a category that isn't attached to the session, so
+	 * that it isn't mistaken for a stale instance the session may already hold.
+	 */
+	private static Category toCategory(Object[] row) {
+		var category = new Category();
+		category.setId((UUID) row[0]);
+		category.setName((String) row[1]);
+		category.setDescription((String) row[2]);
+		category.setVersion(((Number) row[3]).longValue());
+		category.setChangeVersion(((Number) row[4]).longValue());
+
+		return category;
+	}
+
+	/**
+	 * Deletes a category, recording its {@link CategoryTombstone}.
+	 * @param id The identifier
+	 * @return <code>true</code> if the category was deleted
+	 */
+	@Override
+	public Uni<Boolean> deleteById(UUID id) {
+		return deleteWithTombstones("WHERE id = ?1", id).map(deleted -> !deleted.isEmpty());
+	}
+
+	/**
+	 * Deletes all the categories in a single statement, recording their
+	 * {@link CategoryTombstone}s.
+	 * @return The number of deleted categories
+	 */
+	@Override
+	public Uni<Long> deleteAll() {
+		return deleteAllReturningVersions().map(deleted -> (long) deleted.size());
+	}
+
+	/**
+	 * Deletes all the categories in a single statement, recording their
+	 * {@link CategoryTombstone}s.
+	 * @return The identifiers of the deleted categories, with the
+	 * {@link Category#getChangeVersion() change version} of their deletion
+	 */
+	public Uni<Map<UUID, Long>> deleteAllReturningVersions() {
+		return deleteWithTombstones("", null);
+	}
+
+	private Uni<Map<UUID, Long>> deleteWithTombstones(String where, Object parameter) {
+		return getSession().chain(session -> {
+			var query = session.createNativeQuery(DELETE_WITH_TOMBSTONES.formatted(where), Object[].class);
+
+			if (parameter != null) {
+				query.setParameter(1, parameter);
+			}
+
+			return query.getResultList();
+		}).map(CategoryRepository::toVersionsById);
+	}
+
+	/**
+	 * Maps rows of <code>id, change_version</code> by identifier.
+	 */
+	private static Map<UUID, Long> toVersionsById(List<Object[]> rows) {
+		return rows.stream()
+			.collect(Collectors.toUnmodifiableMap(row -> (UUID) row[0], row -> ((Number) row[1]).longValue()));
+	}
+
+	/**
+	 * Makes the current transaction read all its rows from the same snapshot, taken by
+	 * its next statement. Must be called before any other statement of the transaction.
+	 * @return A {@link Uni} completing once the isolation level is set
+	 */
+	public Uni<Void> readFromSnapshot() {
+		return getSession()
+			.chain(session -> session.createNativeQuery("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ")
+				.executeUpdate())
+			.replaceWithVoid();
+	}
+
+	/**
+	 * Lists the categories created or updated between two versions, in the order they
+	 * were written.
+	 * @param version The {@link Category#getChangeVersion() change version} to start
+	 * after
+	 * @param until The change version to stop at, included
+	 * @return The categories
+	 */
+	public Uni<List<Category>> listChangedSince(long version, long until) {
+		return list("changeVersion > ?1 AND changeVersion <= ?2", Sort.by("changeVersion"), version, until);
+	}
+
+	/**
+	 * Lists the tombstones of the categories deleted between two versions and not
+	 * created again since.
+	 * @param version The {@link Category#getChangeVersion() change version} to start
+	 * after
+	 * @param until The change version to stop at, included
+	 * @return The tombstones, in the order the categories were deleted
+	 */
+	public Uni<List<CategoryTombstone>> listDeletedSince(long version, long until) {
+		return getSession().chain(session -> session.createSelectionQuery(DELETED_SINCE, CategoryTombstone.class)
+			.setParameter(1, version)
+			.setParameter(2, until)
+			.getResultList());
+	}
+
+	/**
+	 * Inserts categories with multi-row <code>INSERT</code> statements of up to
+	 * {@code batchSize} rows each, in the current transaction. Categories without an
+	 * identifier are given a random one, and all of them the change version set by the
+	 * database.
+	 * <p>
+	 * The inserted categories aren't attached to the session.
+	 * @param categories The categories to insert
+	 * @param batchSize The maximum number of rows per statement
+	 * @return The number of inserted categories
+	 */
+	public Uni<Integer> insertAll(List<Category> categories, int batchSize) {
+		if (categories.isEmpty()) {
+			return Uni.createFrom().item(0);
+		}
+
+		categories.stream()
+			.filter(category -> category.getId() == null)
+			.forEach(category -> category.setId(UUID.randomUUID()));
+		// As set by the column default
+		categories.forEach(category -> category.setVersion(0L));
+
+		var batches = IntStream.iterate(0, from -> from < categories.size(), from -> from + batchSize)
+			.mapToObj(from -> categories.subList(from, Math.min(from + batchSize, categories.size())))
+			.toList();
+
+		// Batches have to run one after the other as a session can't be used concurrently
+		return getSession().chain(session -> Multi.createFrom()
+			.iterable(batches)
+			.onItem()
+			.transformToUniAndConcatenate(batch -> insertBatch(session, batch))
+			.collect()
+			.with(Collectors.summingInt(Integer::intValue)));
+	}
+
+	private static Uni<Integer> insertBatch(Mutiny.Session session, List<Category> batch) {
+		var sql = new StringBuilder("INSERT INTO category (id, name, description) VALUES ");
+		var categoriesById = new LinkedHashMap<UUID, Category>();
+
+		for (var row = 0; row < batch.size(); row++) {
+			var parameter = (row * 3) + 1;
+			sql.append((row == 0) ? "" : ", ")
+				.append("(?")
+				.append(parameter)
+				.append(", ?")
+				.append(parameter + 1)
+				.append(", ?")
+				.append(parameter + 2)
+				.append(')');
+		}
+
+		sql.append(" RETURNING id, change_version");
+		var query = session.createNativeQuery(sql.toString(), Object[].class);
+
+		for (var row = 0; row < batch.size(); row++) {
+			var category = batch.get(row);
+			var parameter = (row * 3) + 1;
+			query.setParameter(parameter, category.getId())
+				.setParameter(parameter + 1, category.getName())
+				.setParameter(parameter + 2, category.getDescription());
+			categoriesById.put(category.getId(), category);
+		}
+
+		return query.getResultList().map(rows -> {
+			toVersionsById(rows).forEach((id, version) -> categoriesById.get(id).setChangeVersion(version));
+			return rows.size();
+		});
+	}
+
+	public Uni<List<UUID>> listAllIds() {
+		return getSession()
+			.chain(session -> session.createSelectionQuery("SELECT id FROM Category", UUID.class).getResultList());
+	}
+
+	private Uni<UUID> randomId() {
+		if (this.categoryIdIndex.isLoaded()) {
+			return Uni.createFrom().item(this.categoryIdIndex::random);
+		}
+
+		var generation = this.categoryIdIndex.generation();
+
+		return listAllIds().map(ids -> {
+			this.categoryIdIndex.load(generation, ids);
+			return ids.isEmpty() ? null : ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+		});
+	}
+
+	private Uni<Category> findRandomByOffset() {
 		return count().map(count -> (count > 0) ? count : null)
 			.onItem()
 			.ifNotNull()
-			.transform(count -> new Random().nextInt(count.intValue()))
+			.transform(count -> ThreadLocalRandom.current().nextInt(count.intValue()))
 			.onItem()
 			.ifNotNull()
 			.transformToUni(randomCategory -> findAll().page(randomCategory, 1).firstResult());
 	}
 
+	/**
+	 * Finds the categories whose name contains {@code name}, ignoring case. The
+	 * <code>LOWER(name) LIKE</code> predicate is served by the
+	 * <code>CATEGORY_NAME_TRGM_IDX</code> trigram index created in <code>import.sql</code>,
+	 * so it doesn't scan the whole table as long as {@code name} has at least 3
+	 * characters.
+	 * @param name The substring to look for
+	 * @return The matching categories, or an empty list if {@code name} is
+	 * <code>null</code>
+	 */
 	public Uni<List<Category>> listAllWhereNameLike(String name) {
 		return (name != null) ? list("LOWER(name) LIKE CONCAT('%', ?1, '%')", name.toLowerCase())
 				: Uni.createFrom().item(List::of);
 	}
 
+	/**
+	 * Lists the categories ordered by <code>(name, id)</code>, starting strictly after a
+	 * given position. The row value comparison lets the database walk the
+	 * <code>(name, id)</code> index from that position instead of sorting and skipping
+	 * rows.
+	 * @param afterName The name of the category to start after, or <code>null</code> to
+	 * start from the beginning
+	 * @param afterId The identifier of the category to start after, or <code>null</code>
+	 * to start from the beginning
+	 * @param limit The maximum number of categories to return
+	 * @return The categories
+	 */
+	public Uni<List<Category>> listPage(String afterName, UUID afterId, int limit) {
+		var sort = Sort.by("name").and("id");
+		var query = ((afterName != null) && (afterId != null))
+				? find("(name, id) > (?1, ?2)", sort, afterName, afterId) : findAll(sort);
+
+		return query.page(0, limit).list();
+	}
+
+	/**
+	 * Full-text search over the name and the description, most relevant first. Matches in
+	 * the name weigh more than matches in the description.
+	 * <p>
+	 * The <code>search_vector</code> generated column and its GIN index are created in
+	 * <code>import.sql</code>, as they can't be expressed with JPA mappings.
+	 * @param text The search text, in web search syntax (i.e. <code>"home -garden"</code>)
+	 * @param limit The maximum number of categories to return
+	 * @param offset The number of categories to skip
+	 * @return The matching categories
+	 */
+	public Uni<List<Category>> search(String text, int limit, int offset) {
+		return getSession().chain(session -> session.createNativeQuery(SEARCH, Category.class)
+			.setParameter(1, text)
+			.setParameter(2, limit)
+			.setParameter(3, offset)
+			.getResultList());
+	}
+
 }
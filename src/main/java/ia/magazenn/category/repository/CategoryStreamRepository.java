@@ -0,0 +1,62 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.repository;
+
+import io.smallrye.mutiny.Multi;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import ia.magazenn.category.Category;
+
+/**
+ * Streams {@link Category categories} straight from the reactive PostgreSQL client,
+ * without going through Hibernate, so that they never all have to be held in memory.
+ */
+@ApplicationScoped
+public class CategoryStreamRepository {
+
+	private static final String SELECT_ALL = "SELECT id, name, description FROM category";
+
+	private final Pool pool;
+
+	public CategoryStreamRepository(Pool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Streams all the categories through a database cursor. Only {@code fetchSize} rows
+	 * are read at a time, and the next ones are only read once the downstream subscriber
+	 * requests them.
+	 * @param fetchSize The number of rows read per round trip
+	 * @return All the categories
+	 */
+	public Multi<Category> streamAll(int fetchSize) {
+		// PostgreSQL cursors only live inside a transaction, which is rolled back when the
+		// connection is closed
+		return Multi.createFrom()
+			.resourceFromUni(() -> this.pool.getConnection().call(SqlConnection::begin),
+					connection -> connection.prepare(SELECT_ALL)
+						.onItem()
+						.transformToMulti(statement -> statement.createStream(fetchSize).toMulti()))
+			.withFinalizer(SqlConnection::close)
+			.map(CategoryStreamRepository::toCategory);
+	}
+
+	private static Category toCategory(Row row) {
+		var category = new Category();
+		category.setId(row.getUUID("id"));
+		category.setName(row.getString("name"));
+		category.setDescription(row.getString("description"));
+
+		return category;
+	}
+
+}
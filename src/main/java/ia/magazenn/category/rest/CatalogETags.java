@@ -0,0 +1,161 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.rest;
+
+import io.quarkus.logging.Log;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.ResponseBuilder;
+import jakarta.ws.rs.core.Response.Status;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.cache.CategoryCatalogVersion;
+import ia.magazenn.category.config.CategoryConfig;
+
+/**
+ * Strong entity tags derived from the {@link CategoryCatalogVersion}, for the read
+ * endpoints whose content only depends on the categories. A request whose
+ * <code>If-None-Match</code> matches the current version is answered with
+ * <code>304 Not Modified</code> before reading or serializing anything.
+ * <p>
+ * A single category is tagged with its own {@link Category#getVersion() version} and
+ * {@link Category#getChangeVersion() change version} instead, which
+ * <code>If-Match</code> compares against when updating it. The version alone starts
+ * again from 0 when a category is deleted and created again with the same identifier,
+ * while change versions are never reused.
+ */
+@ApplicationScoped
+public class CatalogETags {
+
+	private final CategoryCatalogVersion categoryCatalogVersion;
+
+	private final String cacheControl;
+
+	public CatalogETags(CategoryCatalogVersion categoryCatalogVersion, CategoryConfig categoryConfig) {
+		this.categoryCatalogVersion = categoryCatalogVersion;
+		this.cacheControl = categoryConfig.http().cacheControl();
+	}
+
+	/**
+	 * @param variant Distinguishes the representations of the same resource (i.e.
+	 * <code>json</code> and <code>html</code>)
+	 * @return The entity tag of the current version of the catalogue
+	 */
+	EntityTag current(String variant) {
+		return of(version(), variant);
+	}
+
+	/**
+	 * @return The current version of the catalogue, to read before the categories
+	 */
+	long version() {
+		return this.categoryCatalogVersion.current();
+	}
+
+	/**
+	 * @param version A {@link #version() version} of the catalogue
+	 * @param variant Distinguishes the representations of the same resource
+	 * @return The entity tag of this version of the catalogue
+	 */
+	EntityTag of(long version, String variant) {
+		return new EntityTag(version + "-" + variant);
+	}
+
+	/**
+	 * @param category A category
+	 * @return The entity tag of this version of {@code category}, as
+	 * <code>version-changeVersion</code>, or only <code>version</code> if it has no change
+	 * version, <code>null</code> if it has no version
+	 */
+	EntityTag of(Category category) {
+		if (category.getVersion() == null) {
+			return null;
+		}
+
+		return new EntityTag((category.getChangeVersion() != null)
+				? category.getVersion() + "-" + category.getChangeVersion() : category.getVersion().toString());
+	}
+
+	/**
+	 * Sets the {@link Category#getVersion() version} and the
+	 * {@link Category#getChangeVersion() change version} a category must still have to be
+	 * updated, both <code>null</code> if any version will do.
+	 * @param category The category to update
+	 * @param ifMatch The request's <code>If-Match</code>, may be <code>null</code>
+	 * @return <code>true</code> if there is an {@code ifMatch}, be it a tag or
+	 * <code>*</code>, which only match an existing category
+	 * @throws WebApplicationException With <code>412 Precondition Failed</code> if
+	 * {@code ifMatch} can't match the {@link #of(Category) entity tag} of any version,
+	 * such as a weak or malformed tag, or a list of tags
+	 */
+	boolean expectVersion(Category category, String ifMatch) {
+		category.setVersion(null);
+		category.setChangeVersion(null);
+
+		if ((ifMatch == null) || ifMatch.isBlank()) {
+			return false;
+		}
+
+		if (ifMatch.strip().equals("*")) {
+			return true;
+		}
+
+		var tag = ifMatch.strip();
+
+		if ((tag.length() > 2) && tag.startsWith("\"") && tag.endsWith("\"")) {
+			var versions = tag.substring(1, tag.length() - 1).split("-", -1);
+
+			try {
+				if (versions.length <= 2) {
+					category.setVersion(Long.parseLong(versions[0]));
+					category.setChangeVersion((versions.length == 2) ? Long.parseLong(versions[1]) : null);
+					return true;
+				}
+			}
+			catch (NumberFormatException exc) {
+				// Can't be the tag of a category
+			}
+		}
+
+		Log.debugf("If-Match %s can't match any version", ifMatch);
+		throw new WebApplicationException(Status.PRECONDITION_FAILED);
+	}
+
+	/**
+	 * @param request The request
+	 * @param eTag The {@link #current(String) current} entity tag
+	 * @return A <code>304 Not Modified</code> response if the request's
+	 * <code>If-None-Match</code> matches {@code eTag}, <code>null</code> otherwise
+	 */
+	Response notModified(Request request, EntityTag eTag) {
+		var notModified = request.evaluatePreconditions(eTag);
+
+		if (notModified == null) {
+			return null;
+		}
+
+		Log.debugf("Not modified since %s", eTag);
+		return tag(notModified, eTag).build();
+	}
+
+	/**
+	 * Adds the <code>ETag</code> and <code>Cache-Control</code> headers to a response.
+	 * @param response The response
+	 * @param eTag The entity tag read before reading the categories
+	 * @return {@code response}
+	 */
+	ResponseBuilder tag(ResponseBuilder response, EntityTag eTag) {
+		return response.tag(eTag).header(HttpHeaders.CACHE_CONTROL, this.cacheControl);
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.rest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.cache.CategoryCatalogVersion;
+import ia.magazenn.category.config.CategoryConfig;
+
+/**
+ * Serialized JSON of all the categories and of each category, so that unchanged
+ * categories are not serialized again on every response, nor compressed more than once
+ * per {@link ContentEncoding}.
+ * <p>
+ * Each rendering is kept along with the {@link CategoryCatalogVersion catalogue version}
+ * and the categories it was rendered from, and is reused only when both match: the
+ * version alone isn't enough, as it is incremented before or after the caches the
+ * categories come from are updated. The same categories are in practice the same
+ * instances, handed out by the {@link ia.magazenn.category.cache.CategorySnapshot} and
+ * the {@link ia.magazenn.category.cache.CategoryCache}, so the check is cheap.
+ * <p>
+ * The compressed variants are computed on a worker thread, on the first request for them,
+ * as compressing a large catalogue would block the event loop.
+ * <p>
+ * The returned renderings are shared between all the responses and must not be modified.
+ * Reuses and renderings are published as the <code>categories.json.renders</code>
+ * counter, tagged <code>result=hit</code> or <code>result=miss</code>.
+ */
+@ApplicationScoped
+public class CategoryJsonCache {
+
+	private final ObjectMapper objectMapper;
+
+	private final boolean enabled;
+
+	private final AtomicReference<Rendering> allCategories = new AtomicReference<>();
+
+	private final Cache<UUID, Rendering> categoriesById;
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	public CategoryJsonCache(ObjectMapper objectMapper, CategoryConfig categoryConfig, MeterRegistry meterRegistry) {
+		this.objectMapper = objectMapper;
+		this.enabled = categoryConfig.jsonCache().enabled();
+		this.categoriesById = Caffeine.newBuilder().maximumSize(categoryConfig.idCache().maximumSize()).build();
+		this.hits = Counter.builder("categories.json.renders")
+			.description("Responses whose JSON was rendered by an earlier response")
+			.tag("result", "hit")
+			.register(meterRegistry);
+		this.misses = Counter.builder("categories.json.renders")
+			.description("Responses whose JSON was rendered by an earlier response")
+			.tag("result", "miss")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * @param version The catalogue version read before reading {@code categories}
+	 * @param categories All the categories
+	 * @return The JSON array of {@code categories}
+	 */
+	Rendering allCategories(long version, List<Category> categories) {
+		if (!this.enabled) {
+			return render(version, categories);
+		}
+
+		var rendering = this.allCategories.get();
+
+		if ((rendering != null) && rendering.renders(version, categories)) {
+			this.hits.increment();
+			return rendering;
+		}
+
+		rendering = render(version, categories);
+		this.allCategories.set(rendering);
+		this.misses.increment();
+
+		return rendering;
+	}
+
+	/**
+	 * @param version The catalogue version read before reading {@code category}
+	 * @param category A category
+	 * @return The JSON object of {@code category}
+	 */
+	Rendering category(long version, Category category) {
+		if (!this.enabled || (category.getId() == null)) {
+			return render(version, category);
+		}
+
+		var rendering = this.categoriesById.getIfPresent(category.getId());
+
+		if ((rendering != null) && rendering.renders(version, category)) {
+			this.hits.increment();
+			return rendering;
+		}
+
+		rendering = render(version, category);
+		this.categoriesById.put(category.getId(), rendering);
+		this.misses.increment();
+
+		return rendering;
+	}
+
+	/**
+	 * Drops all the renderings.
+	 */
+	public void invalidate() {
+		this.allCategories.set(null);
+		this.categoriesById.invalidateAll();
+	}
+
+	private Rendering render(long version, Object source) {
+		try {
+			return new Rendering(version, source, this.objectMapper.writeValueAsBytes(source));
+		}
+		catch (JsonProcessingException exc) {
+			throw new UncheckedIOException(exc);
+		}
+	}
+
+	/**
+	 * The JSON of some categories, and its compressed variants.
+	 */
+	static final class Rendering {
+
+		private final long version;
+
+		private final Object source;
+
+		private final byte[] json;
+
+		private final Map<ContentEncoding, Uni<byte[]>> encoded = new EnumMap<>(ContentEncoding.class);
+
+		private Rendering(long version, Object source, byte[] json) {
+			this.version = version;
+			this.source = source;
+			this.json = json;
+
+			for (var encoding : ContentEncoding.values()) {
+				if (encoding.isAvailable()) {
+					this.encoded.put(encoding,
+							Uni.createFrom()
+								.item(() -> encoding.encodeFast(json))
+								.runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+								.memoize()
+								.indefinitely());
+				}
+			}
+		}
+
+		byte[] json() {
+			return this.json;
+		}
+
+		/**
+		 * @param encoding The coding to compress the JSON with, <code>null</code> for none
+		 * @return The JSON compressed with {@code encoding}, only compressed on first use
+		 * and off the event loop
+		 */
+		Uni<byte[]> encoded(ContentEncoding encoding) {
+			return (encoding != null) ? this.encoded.get(encoding) : Uni.createFrom().item(this.json);
+		}
+
+		private boolean renders(long version, Object source) {
+			return (this.version == version) && ((this.source == source) || this.source.equals(source));
+		}
+
+	}
+
+}
@@ -10,19 +10,30 @@ package ia.magazenn.category.rest;
 import io.quarkus.hibernate.validator.runtime.jaxrs.ResteasyReactiveViolationException;
 import io.quarkus.logging.Log;
 import io.smallrye.common.annotation.NonBlocking;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.mutiny.core.parsetools.RecordParser;
 
 import java.net.URI;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
@@ -30,11 +41,16 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
 
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
@@ -46,8 +62,16 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.RestMediaType;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 import ia.magazenn.category.Category;
+import ia.magazenn.category.service.CategoryBatch;
+import ia.magazenn.category.service.CategoryBatchResult;
+import ia.magazenn.category.service.CategoryCursor;
+import ia.magazenn.category.service.CategoryImportSummary;
+import ia.magazenn.category.service.CategoryLookup;
+import ia.magazenn.category.service.CategoryReplaceSummary;
 import ia.magazenn.category.service.CategoryService;
 
 import static jakarta.ws.rs.core.MediaType.*;
@@ -61,10 +85,29 @@ import static jakarta.ws.rs.core.MediaType.*;
 @Produces(APPLICATION_JSON)
 public class CategoryResource {
 
+	static final String JSON_VARIANT = "json";
+
+	static final int DEFAULT_PAGE_SIZE = 100;
+
+	static final int MAX_PAGE_SIZE = 1000;
+
+	static final int DEFAULT_SUGGEST_LIMIT = 10;
+
+	static final int MAX_SUGGEST_LIMIT = 100;
+
+	static final int MAX_IMPORT_LINE_LENGTH = 64 * 1024;
+
 	private final CategoryService categoryService;
 
-	public CategoryResource(CategoryService categoryService) {
+	private final CatalogETags catalogETags;
+
+	private final CategoryJsonCache categoryJsonCache;
+
+	public CategoryResource(CategoryService categoryService, CatalogETags catalogETags,
+			CategoryJsonCache categoryJsonCache) {
 		this.categoryService = categoryService;
+		this.catalogETags = catalogETags;
+		this.categoryJsonCache = categoryJsonCache;
 	}
 
 	@GET
@@ -76,9 +119,11 @@ public class CategoryResource {
 					examples = @ExampleObject(name = "category", value = Examples.VALID_EXAMPLE_CATEGORY)))
 	@APIResponse(responseCode = "404", description = "No category found")
 	public Uni<Response> getRandomCategory() {
+		var version = this.catalogETags.version();
+
 		return this.categoryService.findRandomCategory().onItem().ifNotNull().transform(h -> {
 			Log.debugf("Found random category: %s", h);
-			return Response.ok(h).build();
+			return Response.ok(this.categoryJsonCache.category(version, h).json(), APPLICATION_JSON).build();
 		}).replaceIfNullWith(() -> {
 			Log.debug("No random category found");
 			return Response.status(Status.NOT_FOUND).build();
@@ -87,34 +132,247 @@ public class CategoryResource {
 
 	@GET
 	@Operation(summary = "Returns all the categories from the database")
+	@APIResponse(responseCode = "200",
+			description = "Gets all categories, or with since a CategoryDelta of the categories changed and deleted since then",
+			headers = { @Header(name = "Link", description = "The URI of the next page, when paginating",
+					schema = @Schema(implementation = String.class)),
+					@Header(name = HttpHeaders.ETAG, description = "The version of the catalogue",
+							schema = @Schema(implementation = String.class)) },
+			content = @Content(mediaType = APPLICATION_JSON,
+					schema = @Schema(implementation = Category.class, type = SchemaType.ARRAY),
+					examples = @ExampleObject(name = "categories", value = Examples.VALID_EXAMPLE_CATEGORY_LIST)))
+	@APIResponse(responseCode = "304", description = "The catalogue didn't change since the ETag passed in If-None-Match")
+	@APIResponse(responseCode = "400",
+			description = "Invalid limit, cursor, fuzzy or since passed in, or since passed in with another parameter")
+	public Uni<Response> getAllCategories(@Parameter(name = "name_filter",
+			description = "An optional filter parameter to filter results by name") @QueryParam("name_filter") Optional<String> nameFilter,
+			@Parameter(name = "limit",
+					description = "An optional maximum number of categories to return, ordered by name. Ignored when filtering by name") @QueryParam("limit") @Min(1) @Max(MAX_PAGE_SIZE) Integer limit,
+			@Parameter(name = "cursor",
+					description = "The cursor of the page to return, taken from the Link header of the previous page") @QueryParam("cursor") String cursor,
+			@Parameter(name = "fuzzy",
+					description = "1 or true for name_filter to match names with typos, closest first, instead of names containing it") @QueryParam("fuzzy") @Pattern(regexp = "0|1|false|true") String fuzzy,
+			@Parameter(name = "since",
+					description = "Returns only the categories changed and deleted after this version, taken from the previous response, 0 for all of them") @QueryParam("since") @Min(0) Long since,
+			@Parameter(hidden = true) @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding,
+			@Context UriInfo uriInfo, @Context Request request) {
+		if (since != null) {
+			return getCategoriesChangedSince(since, nameFilter.isPresent() || (limit != null) || (cursor != null));
+		}
+
+		var all = nameFilter.isEmpty() && (limit == null) && (cursor == null);
+		// Only the list of all the categories is compressed, so only its entity tag varies
+		var encoding = all ? ContentEncoding.negotiate(acceptEncoding) : null;
+		var version = this.catalogETags.version();
+		var eTag = this.catalogETags.of(version,
+				(encoding != null) ? JSON_VARIANT + "-" + encoding.token() : JSON_VARIANT);
+		var notModified = this.catalogETags.notModified(request, eTag);
+
+		if (notModified != null) {
+			return Uni.createFrom().item(notModified);
+		}
+
+		if (all) {
+			return this.categoryService.findAllCategories()
+				.replaceIfNullWith(List::of)
+				.invoke(categories -> Log.debugf("Total number of categories: %d", categories.size()))
+				.map(categories -> this.categoryJsonCache.allCategories(version, categories))
+				.flatMap(rendering -> rendering.encoded(encoding).map(json -> {
+					var response = Response.ok(json, APPLICATION_JSON)
+						.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+					if (encoding != null) {
+						response.header(HttpHeaders.CONTENT_ENCODING, encoding.token());
+					}
+
+					return this.catalogETags.tag(response, eTag).build();
+				}));
+		}
+
+		if (nameFilter.isEmpty()) {
+			return getCategoriesPage(cursor, (limit != null) ? limit : DEFAULT_PAGE_SIZE, uriInfo, eTag);
+		}
+
+		var name = nameFilter.get();
+
+		return (("1".equals(fuzzy) || "true".equals(fuzzy))
+				? this.categoryService.findAllCategoriesHavingSimilarName(name)
+				: this.categoryService.findAllCategoriesHavingName(name))
+			.invoke(categories -> Log.debugf("Total number of categories: %d", categories.size()))
+			.map(categories -> this.catalogETags.tag(Response.ok(categories), eTag).build());
+	}
+
+	private Uni<Response> getCategoriesChangedSince(long since, boolean otherParameters) {
+		if (otherParameters) {
+			Log.debug("since can't be combined with other parameters");
+			return Uni.createFrom().item(Response.status(Status.BAD_REQUEST).build());
+		}
+
+		return this.categoryService.findCategoriesChangedSince(since).map(delta -> {
+			Log.debugf("Categories changed since version %d: %d changed, %d deleted", since, delta.changed().size(),
+					delta.deleted().size());
+			return Response.ok(delta).build();
+		});
+	}
+
+	private Uni<Response> getCategoriesPage(String cursor, int limit, UriInfo uriInfo, EntityTag eTag) {
+		CategoryCursor after;
+
+		try {
+			after = (cursor != null) ? CategoryCursor.decode(cursor) : null;
+		}
+		catch (IllegalArgumentException exc) {
+			Log.debugf("Invalid cursor %s", cursor);
+			return Uni.createFrom().item(Response.status(Status.BAD_REQUEST).build());
+		}
+
+		return this.categoryService.findCategoriesPage(after, limit).map(page -> {
+			Log.debugf("Number of categories in page: %d", page.categories().size());
+			var response = Response.ok(page.categories());
+
+			if (page.next() != null) {
+				response.link(uriInfo.getRequestUriBuilder()
+					.replaceQueryParam("limit", limit)
+					.replaceQueryParam("cursor", page.next().encode())
+					.build(), "next");
+			}
+
+			return this.catalogETags.tag(response, eTag).build();
+		});
+	}
+
+	@GET
+	@Path("/search")
+	@Operation(summary = "Full-text search of the categories by name and description, most relevant first")
+	@APIResponse(responseCode = "200", description = "Gets a page of the matching categories",
+			content = @Content(mediaType = APPLICATION_JSON,
+					schema = @Schema(implementation = Category.class, type = SchemaType.ARRAY),
+					examples = @ExampleObject(name = "categories", value = Examples.VALID_EXAMPLE_CATEGORY_LIST)))
+	@APIResponse(responseCode = "400", description = "Missing q or invalid limit or offset passed in")
+	public Uni<List<Category>> searchCategories(@Parameter(name = "q", required = true,
+			description = "The words to search for. Supports quoted phrases, or and -word") @QueryParam("q") @NotBlank @Size(max = 300) String text,
+			@Parameter(name = "limit",
+					description = "An optional maximum number of categories to return, 100 by default") @QueryParam("limit") @Min(1) @Max(MAX_PAGE_SIZE) Integer limit,
+			@Parameter(name = "offset",
+					description = "An optional number of categories to skip") @QueryParam("offset") @Min(0) Integer offset) {
+		return this.categoryService
+			.searchCategories(text, (limit != null) ? limit : DEFAULT_PAGE_SIZE, (offset != null) ? offset : 0)
+			.invoke(categories -> Log.debugf("Found %d categories matching %s", categories.size(), text));
+	}
+
+	@GET
+	@Path("/suggest")
+	@Operation(summary = "Suggests the categories whose name starts with a prefix, ignoring case and accents")
+	@APIResponse(responseCode = "200", description = "Gets the first matching categories, in alphabetical order",
+			content = @Content(mediaType = APPLICATION_JSON,
+					schema = @Schema(implementation = Category.class, type = SchemaType.ARRAY),
+					examples = @ExampleObject(name = "categories", value = Examples.VALID_EXAMPLE_CATEGORY_LIST)))
+	@APIResponse(responseCode = "400", description = "Missing prefix or invalid limit passed in")
+	public Uni<List<Category>> suggestCategories(
+			@Parameter(name = "prefix", required = true,
+					description = "The beginning of the category name") @QueryParam("prefix") @NotBlank @Size(max = 50) String prefix,
+			@Parameter(name = "limit",
+					description = "An optional maximum number of categories to return, 10 by default") @QueryParam("limit") @Min(1) @Max(MAX_SUGGEST_LIMIT) Integer limit) {
+		return this.categoryService.suggestCategories(prefix, (limit != null) ? limit : DEFAULT_SUGGEST_LIMIT)
+			.invoke(categories -> Log.debugf("Suggested %d categories for %s", categories.size(), prefix));
+	}
+
+	@GET
+	@Path("/export")
+	@Operation(summary = "Streams all the categories from the database as a JSON array")
 	@APIResponse(responseCode = "200", description = "Gets all categories",
 			content = @Content(mediaType = APPLICATION_JSON,
 					schema = @Schema(implementation = Category.class, type = SchemaType.ARRAY),
 					examples = @ExampleObject(name = "categories", value = Examples.VALID_EXAMPLE_CATEGORY_LIST)))
-	public Uni<List<Category>> getAllCategories(@Parameter(name = "name_filter",
-			description = "An optional filter parameter to filter results by name") @QueryParam("name_filter") Optional<String> nameFilter) {
-		return nameFilter.map(this.categoryService::findAllCategoriesHavingName)
-			.orElseGet(() -> this.categoryService.findAllCategories().replaceIfNullWith(List::of))
-			.invoke(categories -> Log.debugf("Total number of categories: %d", categories.size()));
+	public Multi<Category> exportCategories() {
+		return this.categoryService.streamAllCategories();
+	}
+
+	@GET
+	@Path("/export")
+	@Produces(RestMediaType.APPLICATION_NDJSON)
+	@RestStreamElementType(APPLICATION_JSON)
+	@Operation(summary = "Streams all the categories from the database as newline delimited JSON")
+	@APIResponse(responseCode = "200", description = "Gets all categories, one per line",
+			content = @Content(mediaType = RestMediaType.APPLICATION_NDJSON,
+					schema = @Schema(implementation = Category.class),
+					examples = @ExampleObject(name = "category", value = Examples.VALID_EXAMPLE_CATEGORY)))
+	public Multi<Category> exportCategoriesAsNdjson() {
+		return this.categoryService.streamAllCategories();
+	}
+
+	@GET
+	@Path("/changes")
+	@Produces(SERVER_SENT_EVENTS)
+	@Operation(summary = "Streams the changes to the categories as server-sent events")
+	@APIResponse(responseCode = "200",
+			description = "Gets a snapshot of all the categories, or the events missed since Last-Event-ID, then created, updated and deleted events as they happen",
+			content = @Content(mediaType = SERVER_SENT_EVENTS, schema = @Schema(implementation = String.class),
+					examples = @ExampleObject(name = "events", value = Examples.VALID_EXAMPLE_CHANGE_EVENTS)))
+	public Multi<OutboundSseEvent> streamChanges(@Parameter(name = HttpHeaders.LAST_EVENT_ID_HEADER,
+			description = "The id of the last event received, to resume the stream after it") @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+			@Context Sse sse) {
+		return this.categoryService.streamChanges(lastEventId)
+			.map(event -> sse.newEventBuilder()
+				.id(event.id())
+				.name(event.name())
+				.mediaType(APPLICATION_JSON_TYPE)
+				.data(event.data())
+				.build());
 	}
 
 	@GET
 	@Path("/{id}")
 	@Operation(summary = "Returns a category for a given identifier")
 	@APIResponse(responseCode = "200", description = "Gets a category for a given id",
+			headers = @Header(name = HttpHeaders.ETAG, description = "The version of the category",
+					schema = @Schema(implementation = String.class)),
 			content = @Content(mediaType = APPLICATION_JSON, schema = @Schema(implementation = Category.class),
 					examples = @ExampleObject(name = "category", value = Examples.VALID_EXAMPLE_CATEGORY)))
+	@APIResponse(responseCode = "304", description = "The category didn't change since the ETag passed in If-None-Match")
 	@APIResponse(responseCode = "404", description = "The category is not found for a given identifier")
-	public Uni<Response> getCategory(@Parameter(name = "id", required = true) @PathParam("id") UUID id) {
+	public Uni<Response> getCategory(@Parameter(name = "id", required = true) @PathParam("id") UUID id,
+			@Context Request request) {
+		var version = this.catalogETags.version();
+
 		return this.categoryService.findCategoryById(id).onItem().ifNotNull().transform(h -> {
 			Log.debugf("Found category: %s", h);
-			return Response.ok(h).build();
+			var eTag = this.catalogETags.of(h);
+			var notModified = (eTag != null) ? this.catalogETags.notModified(request, eTag) : null;
+
+			if (notModified != null) {
+				return notModified;
+			}
+
+			var json = this.categoryJsonCache.category(version, h).json();
+			return this.catalogETags.tag(Response.ok(json, APPLICATION_JSON), eTag).build();
 		}).replaceIfNullWith(() -> {
 			Log.debugf("No category found with id %d", id);
 			return Response.status(Status.NOT_FOUND).build();
 		});
 	}
 
+	@POST
+	@Path("/_mget")
+	@Consumes(APPLICATION_JSON)
+	@Operation(summary = "Returns the categories for the given identifiers, in one call")
+	@APIResponse(responseCode = "200",
+			description = "One entry per identifier, in the request order, with found set to false if there is no such category",
+			content = @Content(mediaType = APPLICATION_JSON,
+					schema = @Schema(implementation = CategoryLookup.class, type = SchemaType.ARRAY),
+					examples = @ExampleObject(name = "lookups", value = Examples.VALID_EXAMPLE_CATEGORY_LOOKUP_LIST)))
+	@APIResponse(responseCode = "400",
+			description = "Invalid identifiers passed in, more than " + MAX_PAGE_SIZE + " identifiers or no request body found")
+	public Uni<List<CategoryLookup>> getCategories(@RequestBody(name = "ids", required = true,
+			content = @Content(mediaType = APPLICATION_JSON,
+					schema = @Schema(implementation = UUID.class, type = SchemaType.ARRAY),
+					examples = @ExampleObject(name = "ids",
+							value = Examples.VALID_EXAMPLE_CATEGORY_IDS))) @NotNull @Size(max = MAX_PAGE_SIZE) List<@NotNull UUID> ids) {
+		return this.categoryService.findCategoriesByIds(ids)
+			.invoke(lookups -> Log.debugf("Found %d of %d categories",
+					lookups.stream().filter(CategoryLookup::found).count(), lookups.size()));
+	}
+
 	@POST
 	@Consumes(APPLICATION_JSON)
 	@Operation(summary = "Creates a valid category")
@@ -138,89 +396,218 @@ public class CategoryResource {
 	@Path("/{id}")
 	@Consumes(APPLICATION_JSON)
 	@Operation(summary = "Completely updates/replaces an exiting category by replacing it with the passed-in category")
-	@APIResponse(responseCode = "204", description = "Replaced the category")
-	@APIResponse(responseCode = "400", description = "Invalid category passed in (or no request body found)")
-	@APIResponse(responseCode = "404", description = "No category found")
+	@APIResponse(responseCode = "201", description = "Created the category, as it didn't exist and upsert was true",
+			headers = { @Header(name = HttpHeaders.LOCATION, schema = @Schema(implementation = URI.class)),
+					@Header(name = HttpHeaders.ETAG, description = "The version of the category",
+							schema = @Schema(implementation = String.class)) })
+	@APIResponse(responseCode = "204", description = "Replaced the category",
+			headers = @Header(name = HttpHeaders.ETAG, description = "The new version of the category",
+					schema = @Schema(implementation = String.class)))
+	@APIResponse(responseCode = "400",
+			description = "Invalid category passed in (or no request body found), or its id isn't the one of the path")
+	@APIResponse(responseCode = "404", description = "No category found, and upsert wasn't true")
+	@APIResponse(responseCode = "412",
+			description = "The category isn't at the version passed in If-Match anymore, its current version is in the ETag, or upsert was true with an If-Match and there is no category",
+			headers = @Header(name = HttpHeaders.ETAG, description = "The current version of the category",
+					schema = @Schema(implementation = String.class)))
 	public Uni<Response> fullyUpdateCategory(@Parameter(name = "id", required = true) @PathParam("id") String id,
+			@Parameter(name = "upsert",
+					description = "Creates the category if it doesn't exist, unless there is an If-Match, which only matches an existing category") @QueryParam("upsert") boolean upsert,
+			@Parameter(name = HttpHeaders.IF_MATCH,
+					description = "The ETag of the version of the category to replace, which is left unchanged if it isn't current anymore") @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
 			@RequestBody(name = "category", required = true,
 					content = @Content(mediaType = APPLICATION_JSON, schema = @Schema(implementation = Category.class),
 							examples = @ExampleObject(name = "valid_category",
-									value = Examples.VALID_EXAMPLE_CATEGORY))) @Valid @NotNull Category category) {
-		if (category.getId() == null) {
-			try {
-				category.setId(UUID.fromString(id));
-			}
-			catch (IllegalArgumentException exc) {
-				Log.debugf("Invalid id %s", id);
-				return Uni.createFrom().failure(new IllegalArgumentException("Invalid UUID string: " + id));
-			}
+									value = Examples.VALID_EXAMPLE_CATEGORY))) @Valid @NotNull Category category,
+			@Context UriInfo uriInfo) {
+		var mustExist = this.catalogETags.expectVersion(category, ifMatch);
+
+		UUID pathId;
+
+		try {
+			pathId = UUID.fromString(id);
+		}
+		catch (IllegalArgumentException exc) {
+			Log.debugf("Invalid id %s", id);
+			return Uni.createFrom().failure(new IllegalArgumentException("Invalid UUID string: " + id));
+		}
+
+		// Otherwise the body would be written under another id than the one of the URL
+		if ((category.getId() != null) && !category.getId().equals(pathId)) {
+			Log.debugf("Category id %s doesn't match the id %s of the path", category.getId(), id);
+			return Uni.createFrom().item(Response.status(Status.BAD_REQUEST).build());
+		}
+
+		category.setId(pathId);
+
+		if (upsert && !mustExist) {
+			return this.categoryService.upsertCategory(category).map(result -> {
+				Log.debugf("Category %s: %s", result.created() ? "created" : "replaced", result.category());
+				var response = result.created() ? Response.created(uriInfo.getAbsolutePath()) : Response.noContent();
+				return response.tag(this.catalogETags.of(result.category())).build();
+			});
 		}
 
 		return this.categoryService.replaceCategory(category).onItem().ifNotNull().transform(h -> {
 			Log.debugf("Category replaced with new values %s", h);
-			return Response.noContent().build();
+			return Response.noContent().tag(this.catalogETags.of(h)).build();
 		}).replaceIfNullWith(() -> {
-			Log.debugf("No category found with id %d", category.getId());
-			return Response.status(Status.NOT_FOUND).build();
-		});
+			Log.debugf("No category found with id %s", category.getId());
+			// Without If-Match, the upsert would have created it
+			return Response.status(upsert ? Status.PRECONDITION_FAILED : Status.NOT_FOUND).build();
+		}).onFailure(OptimisticLockException.class).recoverWithItem(this::preconditionFailed);
 	}
 
 	@PUT
 	@Consumes(APPLICATION_JSON)
 	@Operation(summary = "Completely replace all categories with the passed-in categories")
-	@APIResponse(responseCode = "201", description = "The URI to retrieve all the created categories",
-			headers = @Header(name = HttpHeaders.LOCATION, schema = @Schema(implementation = URI.class)))
-	@APIResponse(responseCode = "400", description = "Invalid categories passed in (or no request body found)")
+	@APIResponse(responseCode = "201",
+			description = "The URI to retrieve all the categories, and how many categories were inserted, updated, deleted and left unchanged",
+			headers = @Header(name = HttpHeaders.LOCATION, schema = @Schema(implementation = URI.class)),
+			content = @Content(mediaType = APPLICATION_JSON,
+					schema = @Schema(implementation = CategoryReplaceSummary.class),
+					examples = @ExampleObject(name = "summary", value = Examples.VALID_EXAMPLE_REPLACE_SUMMARY)))
+	@APIResponse(responseCode = "400",
+			description = "Invalid categories passed in (or no request body found), or several with the same id")
 	public Uni<Response> replaceAllCategories(
 			@RequestBody(name = "valid_categories", required = true,
 					content = @Content(mediaType = APPLICATION_JSON,
 							schema = @Schema(implementation = Category.class, type = SchemaType.ARRAY),
 							examples = @ExampleObject(name = "categories",
-									value = Examples.VALID_EXAMPLE_CATEGORY_LIST))) @NotNull List<Category> categories,
+									value = Examples.VALID_EXAMPLE_CATEGORY_LIST))) @NotNull List<@NotNull @Valid Category> categories,
 			@Context UriInfo uriInfo) {
-		return this.categoryService.replaceAllCategories(categories).map(h -> {
+		var ids = new HashSet<UUID>();
+
+		// Otherwise the same category would be inserted or updated twice
+		for (var category : categories) {
+			if ((category.getId() != null) && !ids.add(category.getId())) {
+				Log.debugf("Category id %s is passed more than once", category.getId());
+				return Uni.createFrom().item(Response.status(Status.BAD_REQUEST).build());
+			}
+		}
+
+		return this.categoryService.replaceAllCategories(categories).map(summary -> {
 			var uri = uriInfo.getAbsolutePathBuilder().build();
 			Log.debugf("New categories created with URI %s", uri.toString());
-			return Response.created(uri).build();
+			return Response.created(uri).entity(summary).build();
 		});
 	}
 
+	@POST
+	@Path("/import")
+	@Consumes(RestMediaType.APPLICATION_NDJSON)
+	@Operation(summary = "Imports categories from newline delimited JSON, one category per line")
+	@APIResponse(responseCode = "200",
+			description = "How many lines were read, imported and rejected, and why the first ones were rejected",
+			content = @Content(mediaType = APPLICATION_JSON,
+					schema = @Schema(implementation = CategoryImportSummary.class),
+					examples = @ExampleObject(name = "summary", value = Examples.VALID_EXAMPLE_IMPORT_SUMMARY)))
+	@APIResponse(responseCode = "413", description = "A line is longer than " + MAX_IMPORT_LINE_LENGTH + " bytes")
+	@RequestBody(name = "categories", required = true,
+			content = @Content(mediaType = RestMediaType.APPLICATION_NDJSON,
+					schema = @Schema(implementation = Category.class),
+					examples = @ExampleObject(name = "categories", value = Examples.VALID_EXAMPLE_CATEGORY_NDJSON)))
+	public Uni<CategoryImportSummary> importCategories(@Context HttpServerRequest request) {
+		// The body is read as it arrives, and only as fast as the categories are inserted
+		var lines = RecordParser.newDelimited("\n", io.vertx.mutiny.core.http.HttpServerRequest.newInstance(request))
+			.maxRecordSize(MAX_IMPORT_LINE_LENGTH)
+			.toMulti()
+			.map(line -> line.toString().stripTrailing())
+			.onFailure(IllegalStateException.class)
+			.transform(exc -> new WebApplicationException(exc.getMessage(), Status.REQUEST_ENTITY_TOO_LARGE));
+
+		return this.categoryService.importCategories(lines)
+			.invoke(summary -> Log.debugf("Categories imported: %s", summary));
+	}
+
+	@POST
+	@Path("/_batch")
+	@Consumes(APPLICATION_JSON)
+	@Operation(summary = "Creates, updates, patches and deletes categories in order, in a single transaction")
+	@APIResponse(responseCode = "200",
+			description = "The outcome of each operation, in the request order, and whether they were committed. When atomic is true, nothing is committed if an operation fails",
+			content = @Content(mediaType = APPLICATION_JSON, schema = @Schema(implementation = CategoryBatchResult.class),
+					examples = @ExampleObject(name = "result", value = Examples.VALID_EXAMPLE_BATCH_RESULT)))
+	@APIResponse(responseCode = "400",
+			description = "No operations, more than " + CategoryBatch.MAX_OPERATIONS + " operations or no request body found")
+	public Uni<CategoryBatchResult> applyBatch(@RequestBody(name = "batch", required = true,
+			content = @Content(mediaType = APPLICATION_JSON, schema = @Schema(implementation = CategoryBatch.class),
+					examples = @ExampleObject(name = "batch",
+							value = Examples.VALID_EXAMPLE_BATCH))) @Valid @NotNull CategoryBatch batch) {
+		return this.categoryService.applyBatch(batch)
+			.invoke(result -> Log.debugf("Batch applied, committed: %s", result.committed()));
+	}
+
 	@PATCH
 	@Path("/{id}")
 	@Consumes(APPLICATION_JSON)
 	@Operation(summary = "Partially updates an exiting category")
 	@APIResponse(responseCode = "200", description = "Updated the category",
+			headers = @Header(name = HttpHeaders.ETAG, description = "The new version of the category",
+					schema = @Schema(implementation = String.class)),
 			content = @Content(mediaType = APPLICATION_JSON, schema = @Schema(implementation = Category.class),
 					examples = @ExampleObject(name = "category", value = Examples.VALID_EXAMPLE_CATEGORY)))
-	@APIResponse(responseCode = "400", description = "Null category passed in (or no request body found)")
+	@APIResponse(responseCode = "400",
+			description = "Null category passed in (or no request body found), or its id isn't the one of the path")
 	@APIResponse(responseCode = "404", description = "No category found")
+	@APIResponse(responseCode = "412",
+			description = "The category isn't at the version passed in If-Match anymore, its current version is in the ETag",
+			headers = @Header(name = HttpHeaders.ETAG, description = "The current version of the category",
+					schema = @Schema(implementation = String.class)))
 	public Uni<Response> partiallyUpdateCategory(@Parameter(name = "id", required = true) @PathParam("id") String id,
+			@Parameter(name = HttpHeaders.IF_MATCH,
+					description = "The ETag of the version of the category to update, which is left unchanged if it isn't current anymore") @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
 			@RequestBody(name = "valid_category", required = true,
 					content = @Content(schema = @Schema(implementation = Category.class),
 							examples = @ExampleObject(name = "valid_category",
 									value = Examples.VALID_EXAMPLE_CATEGORY))) @NotNull Category category) {
-		if (category.getId() == null) {
-			try {
-				category.setId(UUID.fromString(id));
-			}
-			catch (IllegalArgumentException exc) {
-				Log.debugf("Invalid id %s", id);
-				return Uni.createFrom().failure(new IllegalArgumentException("Invalid UUID string: " + id));
-			}
+		this.catalogETags.expectVersion(category, ifMatch);
+
+		UUID pathId;
+
+		try {
+			pathId = UUID.fromString(id);
 		}
+		catch (IllegalArgumentException exc) {
+			Log.debugf("Invalid id %s", id);
+			return Uni.createFrom().failure(new IllegalArgumentException("Invalid UUID string: " + id));
+		}
+
+		// Otherwise the body would be written under another id than the one of the URL
+		if ((category.getId() != null) && !category.getId().equals(pathId)) {
+			Log.debugf("Category id %s doesn't match the id %s of the path", category.getId(), id);
+			return Uni.createFrom().item(Response.status(Status.BAD_REQUEST).build());
+		}
+
+		category.setId(pathId);
 
 		return this.categoryService.partialUpdateCategory(category).onItem().ifNotNull().transform(h -> {
 			Log.debugf("Category updated with new values %s", h);
-			return Response.ok(h).build();
+			return Response.ok(h).tag(this.catalogETags.of(h)).build();
 		}).replaceIfNullWith(() -> {
 			Log.debugf("No category found with id %d", category.getId());
 			return Response.status(Status.NOT_FOUND).build();
 		})
+			.onFailure(OptimisticLockException.class)
+			.recoverWithItem(this::preconditionFailed)
 			.onFailure(ConstraintViolationException.class)
 			.transform(cve -> new ResteasyReactiveViolationException(
 					((ConstraintViolationException) cve).getConstraintViolations()));
 	}
 
+	/**
+	 * @return A <code>412 Precondition Failed</code> response tagged with the current
+	 * version of the category that didn't have the expected one
+	 */
+	private Response preconditionFailed(Throwable exc) {
+		var current = ((OptimisticLockException) exc).getEntity();
+		Log.debugf("Category not updated: %s", exc.getMessage());
+
+		return Response.status(Status.PRECONDITION_FAILED)
+			.tag((current instanceof Category category) ? this.catalogETags.of(category) : null)
+			.build();
+	}
+
 	@DELETE
 	@Operation(summary = "Delete all categories")
 	@APIResponse(responseCode = "204", description = "Deletes all categories")
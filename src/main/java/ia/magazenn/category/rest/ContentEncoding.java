@@ -0,0 +1,170 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+/**
+ * The content codings responses are compressed with, in order of preference.
+ * <p>
+ * Each coding has a fast level, for content compressed while answering a request, and a
+ * best level, for content compressed once in the background.
+ */
+enum ContentEncoding {
+
+	BROTLI("br", 5, 11) {
+		@Override
+		boolean isAvailable() {
+			return Brotli4jLoader.isAvailable();
+		}
+
+		@Override
+		byte[] encode(byte[] content, int level) throws IOException {
+			return Encoder.compress(content, new Encoder.Parameters().setQuality(level));
+		}
+	},
+
+	GZIP("gzip", 6, 9) {
+		@Override
+		byte[] encode(byte[] content, int level) throws IOException {
+			var encoded = new ByteArrayOutputStream(content.length / 4);
+
+			try (var gzip = new GZIPOutputStream(encoded) {
+				{
+					this.def.setLevel(level);
+				}
+			}) {
+				gzip.write(content);
+			}
+
+			return encoded.toByteArray();
+		}
+	};
+
+	private final String token;
+
+	private final int fastLevel;
+
+	private final int bestLevel;
+
+	ContentEncoding(String token, int fastLevel, int bestLevel) {
+		this.token = token;
+		this.fastLevel = fastLevel;
+		this.bestLevel = bestLevel;
+	}
+
+	/**
+	 * @return The value of the <code>Content-Encoding</code> header
+	 */
+	String token() {
+		return this.token;
+	}
+
+	boolean isAvailable() {
+		return true;
+	}
+
+	/**
+	 * @param content The content to compress
+	 * @return {@code content} compressed quickly
+	 */
+	byte[] encodeFast(byte[] content) {
+		return encodeUnchecked(content, this.fastLevel);
+	}
+
+	/**
+	 * @param content The content to compress
+	 * @return {@code content} compressed as much as possible, which may be slow
+	 */
+	byte[] encodeBest(byte[] content) {
+		return encodeUnchecked(content, this.bestLevel);
+	}
+
+	abstract byte[] encode(byte[] content, int level) throws IOException;
+
+	private byte[] encodeUnchecked(byte[] content, int level) {
+		try {
+			return encode(content, level);
+		}
+		catch (IOException exc) {
+			throw new UncheckedIOException(exc);
+		}
+	}
+
+	/**
+	 * Picks the coding with the highest quality in an <code>Accept-Encoding</code> header,
+	 * preferring Brotli on ties.
+	 * @param acceptEncoding The <code>Accept-Encoding</code> header of the request
+	 * @return The coding to use, or <code>null</code> to send the content as is
+	 */
+	static ContentEncoding negotiate(String acceptEncoding) {
+		return negotiate(acceptEncoding, Set.of());
+	}
+
+	/**
+	 * Picks the coding with the highest quality in an <code>Accept-Encoding</code> header,
+	 * preferring Brotli on ties.
+	 * @param acceptEncoding The <code>Accept-Encoding</code> header of the request
+	 * @param excluded The codings not to use, such as the ones the content couldn't be
+	 * compressed with
+	 * @return The coding to use, or <code>null</code> to send the content as is
+	 */
+	static ContentEncoding negotiate(String acceptEncoding, Set<ContentEncoding> excluded) {
+		if ((acceptEncoding == null) || acceptEncoding.isBlank()) {
+			return null;
+		}
+
+		var qualities = new HashMap<String, Double>();
+
+		for (var coding : acceptEncoding.split(",")) {
+			var parameters = coding.split(";");
+			qualities.put(parameters[0].strip().toLowerCase(Locale.ROOT), quality(parameters));
+		}
+
+		ContentEncoding preferred = null;
+		var preferredQuality = 0.0;
+
+		for (var encoding : values()) {
+			var quality = qualities.getOrDefault(encoding.token, qualities.getOrDefault("*", 0.0));
+
+			if ((quality > preferredQuality) && !excluded.contains(encoding) && encoding.isAvailable()) {
+				preferred = encoding;
+				preferredQuality = quality;
+			}
+		}
+
+		return preferred;
+	}
+
+	private static double quality(String[] parameters) {
+		for (var i = 1; i < parameters.length; i++) {
+			var parameter = parameters[i].strip();
+
+			if (parameter.startsWith("q=")) {
+				try {
+					return Double.parseDouble(parameter.substring(2));
+				}
+				catch (NumberFormatException exc) {
+					return 0;
+				}
+			}
+		}
+
+		return 1;
+	}
+
+}
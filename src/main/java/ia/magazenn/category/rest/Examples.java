@@ -30,4 +30,125 @@ final class Examples {
 
 	static final String VALID_EXAMPLE_CATEGORY_LIST = "[" + VALID_EXAMPLE_CATEGORY + "]";
 
+	static final String VALID_EXAMPLE_REPLACE_SUMMARY = """
+			{
+				"inserted": 1,
+				"updated": 2,
+				"deleted": 0,
+				"unchanged": 13
+			}
+			""";
+
+	static final String VALID_EXAMPLE_CATEGORY_NDJSON = """
+			{"name": "Electronics", "description": "Electronics"}
+			{"name": "Vehicles", "description": "Vehicles"}
+			""";
+
+	static final String VALID_EXAMPLE_IMPORT_SUMMARY = """
+			{
+				"lines": 3,
+				"imported": 2,
+				"rejected": 1,
+				"errors": [
+					{
+						"line": 2,
+						"message": "name size must be between 3 and 50"
+					}
+				]
+			}
+			""";
+
+	static final String VALID_EXAMPLE_BATCH = """
+			{
+				"atomic": true,
+				"operations": [
+					{
+						"op": "create",
+						"category": {
+							"name": "Electronics",
+							"description": "Electronics"
+						}
+					},
+					{
+						"op": "patch",
+						"id": "560281a2-75ba-49cf-b2ee-3a7c4c6cd916",
+						"version": 2,
+						"category": {
+							"description": "Cars, bikes and boats"
+						}
+					},
+					{
+						"op": "delete",
+						"id": "0b4bc4c1-6a7f-4b2f-a4f8-a3b1c0b1e6d2"
+					}
+				]
+			}
+			""";
+
+	static final String VALID_EXAMPLE_BATCH_RESULT = """
+			{
+				"committed": true,
+				"results": [
+					{
+						"id": "7d3f2e2a-91c4-4f0e-8f5e-2b6b1f0f4c11",
+						"status": 201,
+						"category": {
+							"id": "7d3f2e2a-91c4-4f0e-8f5e-2b6b1f0f4c11",
+							"name": "Electronics",
+							"description": "Electronics"
+						}
+					},
+					{
+						"id": "560281a2-75ba-49cf-b2ee-3a7c4c6cd916",
+						"status": 200,
+						"category": {
+							"id": "560281a2-75ba-49cf-b2ee-3a7c4c6cd916",
+							"name": "Vehicles",
+							"description": "Cars, bikes and boats"
+						}
+					},
+					{
+						"id": "0b4bc4c1-6a7f-4b2f-a4f8-a3b1c0b1e6d2",
+						"status": 204
+					}
+				]
+			}
+			""";
+
+	static final String VALID_EXAMPLE_CATEGORY_IDS = """
+			["560281a2-75ba-49cf-b2ee-3a7c4c6cd916", "0f2b1fb6-1d0b-4a38-b1f5-5d3f5f9e6a7c"]
+			""";
+
+	static final String VALID_EXAMPLE_CATEGORY_LOOKUP_LIST = """
+			[
+				{
+					"id": "560281a2-75ba-49cf-b2ee-3a7c4c6cd916",
+					"found": true,
+					"category": {
+						"id": "560281a2-75ba-49cf-b2ee-3a7c4c6cd916",
+						"name": "Vehicles",
+						"description": "Vehicles"
+					}
+				},
+				{
+					"id": "0f2b1fb6-1d0b-4a38-b1f5-5d3f5f9e6a7c",
+					"found": false
+				}
+			]
+			""";
+
+	static final String VALID_EXAMPLE_CHANGE_EVENTS = """
+			id:1729160000000-1a2b3c4d
+			event:snapshot
+			data:[{"id":"560281a2-75ba-49cf-b2ee-3a7c4c6cd916","name":"Vehicles","description":"Vehicles"}]
+
+			id:1729160000001-1-1a2b3c4d
+			event:updated
+			data:{"id":"560281a2-75ba-49cf-b2ee-3a7c4c6cd916","name":"Vehicles","description":"Cars and trucks"}
+
+			id:1729160000002-1-1a2b3c4d
+			event:deleted
+			data:{"id":"560281a2-75ba-49cf-b2ee-3a7c4c6cd916"}
+			""";
+
 }
@@ -0,0 +1,236 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.rest;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.vertx.http.runtime.filters.Filters;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.RoutingContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Named;
+
+import ia.magazenn.category.config.CategoryConfig;
+
+/**
+ * Serves the static assets listed in <code>category.static-assets.paths</code> compressed
+ * according to the request's <code>Accept-Encoding</code>, in place of the default
+ * handler of <code>META-INF/resources</code>.
+ * <p>
+ * Each asset is compressed once per {@link ContentEncoding}, at the best level and off
+ * the event loop, when the application starts; an asset that couldn't be compressed with
+ * a coding is served with the next preferred one instead. Each asset is also served under
+ * a URL containing a hash of its content (see {@link #url(String)}), with a
+ * <code>Cache-Control</code> letting browsers keep it forever; its plain URL has to be
+ * revalidated on every use.
+ * <p>
+ * Available in templates as <code>{inject:staticAssets.url('css/patternfly.css')}</code>.
+ */
+@ApplicationScoped
+@Named("staticAssets")
+public class StaticAssets {
+
+	static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+	static final String REVALIDATE = "no-cache";
+
+	private static final String RESOURCES = "META-INF/resources/";
+
+	private static final int FILTER_PRIORITY = 10;
+
+	private static final int HASH_BYTES = 8;
+
+	private static final Map<String, String> CONTENT_TYPES = Map.of("css", "text/css; charset=UTF-8", "js",
+			"text/javascript; charset=UTF-8", "svg", "image/svg+xml", "json", "application/json");
+
+	private final Map<String, Asset> assetsByPath = new HashMap<>();
+
+	private final Map<String, String> urls = new HashMap<>();
+
+	public StaticAssets(CategoryConfig categoryConfig) {
+		categoryConfig.staticAssets().paths().forEach(this::load);
+	}
+
+	void registerFilter(@Observes Filters filters) {
+		filters.register(this::serve, FILTER_PRIORITY);
+	}
+
+	void onStart(@Observes StartupEvent event) {
+		// Compress everything now rather than on the first request
+		this.assetsByPath.values()
+			.stream()
+			.distinct()
+			.forEach(asset -> asset.encoded.forEach((encoding, encoded) -> encoded.subscribe()
+				.with(bytes -> Log.debugf("Compressed %s with %s: %d to %d bytes", asset.path, encoding.token(),
+						asset.content.length(), bytes.length()),
+						exc -> Log.warnf(exc, "Unable to compress %s with %s", asset.path, encoding.token()))));
+	}
+
+	/**
+	 * @param path The path of an asset, relative to <code>META-INF/resources</code>
+	 * @return The content-hashed path of the asset, or {@code path} if it isn't one of the
+	 * assets served by this class
+	 */
+	public String url(String path) {
+		return this.urls.getOrDefault(path, path);
+	}
+
+	private void load(String path) {
+		try (var stream = Thread.currentThread().getContextClassLoader().getResourceAsStream(RESOURCES + path)) {
+			if (stream == null) {
+				Log.warnf("Static asset %s not found", path);
+				return;
+			}
+
+			var content = stream.readAllBytes();
+			var hash = HexFormat.of()
+				.formatHex(Arrays.copyOf(MessageDigest.getInstance("SHA-256").digest(content), HASH_BYTES));
+			var extension = path.substring(path.lastIndexOf('.') + 1);
+			var hashedPath = path.substring(0, path.length() - extension.length()) + hash + "." + extension;
+			var asset = new Asset(path, "/" + hashedPath, hash,
+					CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"), content);
+
+			this.assetsByPath.put("/" + path, asset);
+			this.assetsByPath.put(asset.hashedPath, asset);
+			this.urls.put(path, hashedPath);
+		}
+		catch (IOException exc) {
+			throw new UncheckedIOException(exc);
+		}
+		catch (NoSuchAlgorithmException exc) {
+			throw new IllegalStateException(exc);
+		}
+	}
+
+	private void serve(RoutingContext context) {
+		var request = context.request();
+		var asset = ((request.method() == HttpMethod.GET) || (request.method() == HttpMethod.HEAD))
+				? this.assetsByPath.get(context.normalizedPath()) : null;
+
+		if (asset == null) {
+			context.next();
+			return;
+		}
+
+		body(asset, request.getHeader(HttpHeaders.ACCEPT_ENCODING), EnumSet.noneOf(ContentEncoding.class)).subscribe()
+			.with(body -> respond(context, asset, body), context::fail);
+	}
+
+	/**
+	 * @param excluded The codings the asset couldn't be compressed with
+	 * @return The asset compressed with the preferred coding of {@code acceptEncoding},
+	 * falling back to the next preferred one, and eventually to no coding, when the asset
+	 * couldn't be compressed with it
+	 */
+	private static Uni<Body> body(Asset asset, String acceptEncoding, Set<ContentEncoding> excluded) {
+		var encoding = ContentEncoding.negotiate(acceptEncoding, excluded);
+
+		if (encoding == null) {
+			return Uni.createFrom().item(new Body(null, asset.content));
+		}
+
+		return asset.encoded.get(encoding)
+			.map(bytes -> new Body(encoding, bytes))
+			.onFailure()
+			.recoverWithUni(() -> {
+				excluded.add(encoding);
+				return body(asset, acceptEncoding, excluded);
+			});
+	}
+
+	private static void respond(RoutingContext context, Asset asset, Body body) {
+		var request = context.request();
+		var eTag = "\"" + asset.hash + ((body.encoding() != null) ? "-" + body.encoding().token() : "") + "\"";
+		var immutable = asset.hashedPath.equals(context.normalizedPath());
+		var response = context.response()
+			.putHeader(HttpHeaders.ETAG, eTag)
+			.putHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+			.putHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE : REVALIDATE);
+
+		if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+			response.setStatusCode(304).end();
+			return;
+		}
+
+		response.putHeader(HttpHeaders.CONTENT_TYPE, asset.contentType);
+
+		if (body.encoding() != null) {
+			response.putHeader(HttpHeaders.CONTENT_ENCODING, body.encoding().token());
+		}
+
+		if (request.method() == HttpMethod.HEAD) {
+			response.putHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(body.content().length())).end();
+		}
+		else {
+			response.end(body.content());
+		}
+	}
+
+	private static boolean matches(String ifNoneMatch, String eTag) {
+		return (ifNoneMatch != null) && Arrays.stream(ifNoneMatch.split(","))
+			.map(String::strip)
+			.anyMatch(tag -> tag.equals(eTag) || tag.equals("W/" + eTag) || tag.equals("*"));
+	}
+
+	private record Body(ContentEncoding encoding, Buffer content) {
+	}
+
+	private static final class Asset {
+
+		private final String path;
+
+		private final String hashedPath;
+
+		private final String hash;
+
+		private final String contentType;
+
+		private final Buffer content;
+
+		private final Map<ContentEncoding, Uni<Buffer>> encoded = new EnumMap<>(ContentEncoding.class);
+
+		private Asset(String path, String hashedPath, String hash, String contentType, byte[] content) {
+			this.path = path;
+			this.hashedPath = hashedPath;
+			this.hash = hash;
+			this.contentType = contentType;
+			this.content = Buffer.buffer(content);
+
+			for (var encoding : ContentEncoding.values()) {
+				if (encoding.isAvailable()) {
+					this.encoded.put(encoding,
+							Uni.createFrom()
+								.item(() -> Buffer.buffer(encoding.encodeBest(content)))
+								.runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+								.memoize()
+								.indefinitely());
+				}
+			}
+		}
+
+	}
+
+}
@@ -18,7 +18,10 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
 
 import ia.magazenn.category.Category;
 import ia.magazenn.category.service.CategoryService;
@@ -26,10 +29,15 @@ import ia.magazenn.category.service.CategoryService;
 @Path("/")
 public class UIResource {
 
+	static final String HTML_VARIANT = "html";
+
 	private final CategoryService categoryService;
 
-	public UIResource(CategoryService categoryService) {
+	private final CatalogETags catalogETags;
+
+	public UIResource(CategoryService categoryService, CatalogETags catalogETags) {
 		this.categoryService = categoryService;
+		this.catalogETags = catalogETags;
 	}
 
 	@CheckedTemplate
@@ -41,11 +49,19 @@ public class UIResource {
 
 	@GET
 	@Produces(MediaType.TEXT_HTML)
-	public Uni<String> get(@QueryParam("name_filter") Optional<String> nameFilter) {
+	public Uni<Response> get(@QueryParam("name_filter") Optional<String> nameFilter, @Context Request request) {
+		var eTag = this.catalogETags.current(HTML_VARIANT);
+		var notModified = this.catalogETags.notModified(request, eTag);
+
+		if (notModified != null) {
+			return Uni.createFrom().item(notModified);
+		}
+
 		return nameFilter.map(this.categoryService::findAllCategoriesHavingName)
 			.orElseGet(this.categoryService::findAllCategories)
 			.map(Templates::index)
-			.flatMap(TemplateInstance::createUni);
+			.flatMap(TemplateInstance::createUni)
+			.map(html -> this.catalogETags.tag(Response.ok(html), eTag).build());
 	}
 
 }
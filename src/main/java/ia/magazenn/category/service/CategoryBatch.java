@@ -0,0 +1,27 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Writes to the categories applied in order, in a single transaction.
+ * @param atomic <code>true</code> to apply none of the operations if one of them fails,
+ * <code>false</code> to apply the ones that succeed
+ * @param operations The operations, in the order to apply them
+ */
+public record CategoryBatch(boolean atomic,
+		@NotNull @Size(min = 1, max = CategoryBatch.MAX_OPERATIONS) List<@NotNull @Valid CategoryOperation> operations) {
+
+	public static final int MAX_OPERATIONS = 1000;
+
+}
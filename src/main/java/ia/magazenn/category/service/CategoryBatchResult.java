@@ -0,0 +1,20 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a {@link CategoryBatch}.
+ * @param committed <code>true</code> if the operations that succeeded were committed,
+ * <code>false</code> if an atomic batch was rolled back
+ * @param results The outcome of each operation, in the order of the operations
+ */
+public record CategoryBatchResult(boolean committed, List<CategoryOperationResult> results) {
+
+}
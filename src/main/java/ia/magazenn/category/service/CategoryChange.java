@@ -0,0 +1,60 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import ia.magazenn.category.Category;
+
+/**
+ * CDI event describing a write to the categories. It is fired by
+ * {@link CategoryService} once the transaction performing the write has completed, so
+ * observers only ever see changes that made it to the database.
+ * <p>
+ * Changes made by concurrent transactions may be fired in another order than the one they
+ * were committed in. Observers that need to can tell which of two writes of the same
+ * category came last from their {@link Category#getChangeVersion() change versions}.
+ * @param created The categories that were created
+ * @param updated The categories that were updated
+ * @param deleted The identifiers of the categories that were deleted, with the change
+ * version of their deletion
+ * @param reset <code>true</code> if the write replaced all the categories, in which
+ * case {@code created} holds the complete new set of categories, and {@code deleted}
+ * the categories it deleted, when known
+ */
+public record CategoryChange(List<Category> created, List<Category> updated, Map<UUID, Long> deleted,
+		boolean reset) {
+
+	public static CategoryChange created(Category category) {
+		return new CategoryChange(List.of(category), List.of(), Map.of(), false);
+	}
+
+	public static CategoryChange updated(Category category) {
+		return new CategoryChange(List.of(), List.of(category), Map.of(), false);
+	}
+
+	public static CategoryChange deleted(Map<UUID, Long> deleted) {
+		return new CategoryChange(List.of(), List.of(), Map.copyOf(deleted), false);
+	}
+
+	public static CategoryChange replaced(List<Category> categories) {
+		return new CategoryChange(List.copyOf(categories), List.of(), Map.of(), true);
+	}
+
+	/**
+	 * @param deleted The identifiers of all the categories, with the change version of
+	 * their deletion
+	 * @return The deletion of all the categories
+	 */
+	public static CategoryChange cleared(Map<UUID, Long> deleted) {
+		return new CategoryChange(List.of(), List.of(), Map.copyOf(deleted), true);
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import ia.magazenn.category.Category;
+
+/**
+ * Position in the categories ordered by <code>(name, id)</code>, used for keyset
+ * pagination. A page starting at a cursor holds the categories strictly after it.
+ * <p>
+ * Clients only ever see the {@link #encode() encoded} form, which they must treat as
+ * opaque.
+ * @param name The name of the last category of the previous page
+ * @param id The identifier of the last category of the previous page
+ */
+public record CategoryCursor(String name, UUID id) {
+
+	private static final int UUID_LENGTH = 36;
+
+	public static CategoryCursor after(Category category) {
+		return new CategoryCursor(category.getName(), category.getId());
+	}
+
+	/**
+	 * Decodes a cursor previously returned by {@link #encode()}.
+	 * @param cursor The encoded cursor
+	 * @return The {@link CategoryCursor}
+	 * @throws IllegalArgumentException If {@code cursor} isn't a valid cursor
+	 */
+	public static CategoryCursor decode(String cursor) {
+		var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+		if (decoded.length() < UUID_LENGTH) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+		}
+
+		return new CategoryCursor(decoded.substring(UUID_LENGTH), UUID.fromString(decoded.substring(0, UUID_LENGTH)));
+	}
+
+	public String encode() {
+		return Base64.getUrlEncoder()
+			.withoutPadding()
+			.encodeToString((this.id + this.name).getBytes(StandardCharsets.UTF_8));
+	}
+
+}
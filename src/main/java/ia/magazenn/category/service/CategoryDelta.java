@@ -0,0 +1,35 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.util.List;
+import java.util.UUID;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.CategoryTombstone;
+
+/**
+ * The changes to the categories since a version.
+ * @param version The version to pass as <code>since</code> to get the next changes
+ * @param changed The categories created or updated since the version, in the order they
+ * were written
+ * @param deleted The identifiers of the categories deleted since the version
+ */
+public record CategoryDelta(long version, List<Category> changed, List<UUID> deleted) {
+
+	/**
+	 * @param since The version the changes were read after
+	 * @param until The version at or below which every write is done, which the changes
+	 * were read up to
+	 */
+	static CategoryDelta of(long since, long until, List<Category> changed, List<CategoryTombstone> deleted) {
+		return new CategoryDelta(Math.max(since, until), changed,
+				deleted.stream().map(CategoryTombstone::getId).toList());
+	}
+
+}
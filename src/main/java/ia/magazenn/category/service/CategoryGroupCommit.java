@@ -0,0 +1,180 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.smallrye.common.vertx.VertxContext;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+
+/**
+ * Inserts the categories created concurrently together, with a single multi-row
+ * <code>INSERT</code> in a single transaction, instead of paying for one transaction
+ * and one commit each. The first category of a group waits at most
+ * <code>category.group-commit.max-wait-micros</code> for other ones, and a group of
+ * <code>category.group-commit.max-batch-size</code> categories is inserted right away.
+ * <p>
+ * Each caller still gets its own result: when a group can't be inserted, its categories
+ * are inserted again one by one, so that only the ones at fault fail. The number of
+ * categories per group is published as the
+ * <code>categories.group-commit.batch-size</code> distribution summary.
+ */
+final class CategoryGroupCommit {
+
+	private final Function<List<Category>, Uni<Integer>> insertAll;
+
+	private final int maxBatchSize;
+
+	private final long maxWaitMicros;
+
+	private final DistributionSummary batchSizes;
+
+	private List<Pending> pending = new ArrayList<>();
+
+	private ScheduledFuture<?> timer;
+
+	/**
+	 * @param insertAll Inserts categories in a single transaction, giving them an
+	 * identifier
+	 */
+	CategoryGroupCommit(CategoryConfig.GroupCommit config, MeterRegistry meterRegistry,
+			Function<List<Category>, Uni<Integer>> insertAll) {
+		this.insertAll = insertAll;
+		this.maxBatchSize = config.maxBatchSize();
+		this.maxWaitMicros = config.maxWaitMicros();
+		this.batchSizes = DistributionSummary.builder("categories.group-commit.batch-size")
+			.description("Categories created concurrently and inserted in the same transaction")
+			.publishPercentileHistogram()
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Inserts a category along with the other ones created at the same time.
+	 * @param category A valid category, without identifier
+	 * @return The inserted category, completed on the caller's Vert.x context
+	 */
+	Uni<Category> persist(Category category) {
+		var context = Vertx.currentContext();
+
+		if (context == null) {
+			// Only a Vert.x context can run the transaction
+			return this.insertAll.apply(List.of(category)).replaceWith(category);
+		}
+
+		return Uni.createFrom().emitter(emitter -> add(new Pending(category, context, emitter)));
+	}
+
+	private void add(Pending entry) {
+		List<Pending> group = null;
+
+		synchronized (this) {
+			this.pending.add(entry);
+
+			if (this.pending.size() >= this.maxBatchSize) {
+				group = takeGroup();
+			}
+			else if (this.pending.size() == 1) {
+				this.timer = Infrastructure.getDefaultWorkerPool()
+					.schedule(this::flush, this.maxWaitMicros, TimeUnit.MICROSECONDS);
+			}
+		}
+
+		if (group != null) {
+			commit(group);
+		}
+	}
+
+	private void flush() {
+		List<Pending> group;
+
+		synchronized (this) {
+			// Already taken when it got full
+			if (this.pending.isEmpty()) {
+				return;
+			}
+
+			group = takeGroup();
+		}
+
+		commit(group);
+	}
+
+	/**
+	 * Called with the lock held.
+	 */
+	private List<Pending> takeGroup() {
+		var group = this.pending;
+		this.pending = new ArrayList<>();
+
+		if (this.timer != null) {
+			this.timer.cancel(false);
+			this.timer = null;
+		}
+
+		return group;
+	}
+
+	private void commit(List<Pending> group) {
+		this.batchSizes.record(group.size());
+		var categories = group.stream().map(Pending::category).toList();
+
+		onNewContext(group.get(0).context(), () -> this.insertAll.apply(categories).subscribe().with(inserted -> {
+			Log.debugf("Inserted %d categories together", inserted);
+			group.forEach(Pending::complete);
+		}, exc -> {
+			if (group.size() == 1) {
+				group.get(0).fail(exc);
+				return;
+			}
+
+			Log.debugf("Unable to insert %d categories together, inserting them one by one: %s", group.size(),
+					exc.getMessage());
+			group.forEach(entry -> onNewContext(entry.context(), () -> this.insertAll.apply(List.of(entry.category()))
+				.subscribe()
+				.with(inserted -> entry.complete(), entry::fail)));
+		}));
+	}
+
+	/**
+	 * Runs {@code work} on a new duplicated Vert.x context, as each transaction needs its
+	 * own.
+	 */
+	private static void onNewContext(Context context, Runnable work) {
+		VertxContext.createNewDuplicatedContext(context).runOnContext(ignored -> work.run());
+	}
+
+	/**
+	 * A category waiting to be inserted, and the caller to give the outcome to.
+	 */
+	private record Pending(Category category, Context context, UniEmitter<? super Category> emitter) {
+
+		void complete() {
+			this.context.runOnContext(ignored -> this.emitter.complete(this.category));
+		}
+
+		void fail(Throwable exc) {
+			this.context.runOnContext(ignored -> this.emitter.fail(exc));
+		}
+
+	}
+
+}
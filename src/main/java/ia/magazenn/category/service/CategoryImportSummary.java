@@ -0,0 +1,29 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.util.List;
+
+/**
+ * Outcome of importing categories from newline delimited JSON.
+ * @param lines The number of lines read, including blank lines
+ * @param imported The categories that were valid and inserted
+ * @param rejected The lines that weren't valid categories and were skipped
+ * @param errors Why lines were rejected, limited to the first ones
+ */
+public record CategoryImportSummary(long lines, int imported, int rejected, List<LineError> errors) {
+
+	/**
+	 * @param line The line number, starting at 1
+	 * @param message Why the line was rejected
+	 */
+	public record LineError(long line, String message) {
+
+	}
+
+}
@@ -0,0 +1,26 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.util.UUID;
+
+import ia.magazenn.category.Category;
+
+/**
+ * Result of looking up one identifier when getting several categories at once.
+ * @param id The identifier that was looked up
+ * @param found <code>true</code> if a category exists with this identifier
+ * @param category The category, or <code>null</code> if not found
+ */
+public record CategoryLookup(UUID id, boolean found, Category category) {
+
+	static CategoryLookup of(UUID id, Category category) {
+		return new CategoryLookup(id, category != null, category);
+	}
+
+}
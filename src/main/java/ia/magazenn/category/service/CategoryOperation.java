@@ -0,0 +1,46 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ia.magazenn.category.Category;
+
+/**
+ * A write to the categories, within a {@link CategoryBatch}.
+ * @param op What to do
+ * @param id The identifier of the category to update, patch or delete, ignored when
+ * creating one
+ * @param version The version the category must still have to be updated or patched, as
+ * with <code>If-Match</code>, <code>null</code> if any version will do
+ * @param category The category to create, its new values when updating it, or the
+ * values to change when patching it
+ */
+public record CategoryOperation(@NotNull Type op, UUID id, Long version, Category category) {
+
+	public enum Type {
+
+		@JsonProperty("create")
+		CREATE,
+
+		@JsonProperty("update")
+		UPDATE,
+
+		@JsonProperty("patch")
+		PATCH,
+
+		@JsonProperty("delete")
+		DELETE
+
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.util.UUID;
+
+import ia.magazenn.category.Category;
+
+/**
+ * Outcome of a {@link CategoryOperation}, with the HTTP status its own request would have
+ * been answered with.
+ * @param id The identifier of the category
+ * @param status <code>201</code> if created, <code>200</code> if updated or patched,
+ * <code>204</code> if deleted, <code>400</code> if invalid, <code>404</code> if not found,
+ * <code>412</code> if not at the expected version anymore, or <code>424</code> if not
+ * applied because another operation of an atomic batch failed
+ * @param category The category as written, or its current state on a <code>412</code>
+ * @param error Why the operation failed
+ */
+public record CategoryOperationResult(UUID id, int status, Category category, String error) {
+
+	static CategoryOperationResult created(Category category) {
+		return new CategoryOperationResult(category.getId(), 201, category, null);
+	}
+
+	static CategoryOperationResult updated(Category category) {
+		return new CategoryOperationResult(category.getId(), 200, category, null);
+	}
+
+	static CategoryOperationResult deleted(UUID id) {
+		return new CategoryOperationResult(id, 204, null, null);
+	}
+
+	static CategoryOperationResult invalid(UUID id, String error) {
+		return new CategoryOperationResult(id, 400, null, error);
+	}
+
+	static CategoryOperationResult notFound(UUID id) {
+		return new CategoryOperationResult(id, 404, null, "No category found");
+	}
+
+	static CategoryOperationResult conflict(UUID id, Category current) {
+		return new CategoryOperationResult(id, 412, current, "The category isn't at the expected version anymore");
+	}
+
+	static CategoryOperationResult notApplied(UUID id, int failed) {
+		return new CategoryOperationResult(id, 424, null, "Not applied, as operations[" + failed + "] failed");
+	}
+
+	boolean succeeded() {
+		return this.status < 300;
+	}
+
+}
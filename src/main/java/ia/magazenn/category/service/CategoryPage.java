@@ -0,0 +1,38 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import java.util.List;
+
+import ia.magazenn.category.Category;
+
+/**
+ * A page of categories ordered by <code>(name, id)</code>.
+ * @param categories The categories in the page
+ * @param next The cursor of the next page, or <code>null</code> if this is the last page
+ */
+public record CategoryPage(List<Category> categories, CategoryCursor next) {
+
+	/**
+	 * Creates a page from the result of a query asking for one more category than
+	 * {@code limit}, which tells whether there is a next page without another query.
+	 * @param categories Up to <code>limit + 1</code> categories
+	 * @param limit The maximum number of categories in the page
+	 * @return The {@link CategoryPage}
+	 */
+	static CategoryPage of(List<Category> categories, int limit) {
+		if (categories.size() <= limit) {
+			return new CategoryPage(categories, null);
+		}
+
+		var page = categories.subList(0, limit);
+
+		return new CategoryPage(page, CategoryCursor.after(page.get(limit - 1)));
+	}
+
+}
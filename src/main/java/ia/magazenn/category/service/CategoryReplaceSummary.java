@@ -0,0 +1,20 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+/**
+ * Outcome of replacing all the categories, in number of rows.
+ * @param inserted The categories that didn't exist and were inserted
+ * @param updated The existing categories that were changed and updated
+ * @param deleted The existing categories that weren't part of the replacement and were
+ * deleted
+ * @param unchanged The existing categories that were identical and left untouched
+ */
+public record CategoryReplaceSummary(int inserted, int updated, int deleted, int unchanged) {
+
+}
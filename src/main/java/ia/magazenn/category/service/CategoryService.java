@@ -7,54 +7,160 @@
  */
 package ia.magazenn.category.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.opentelemetry.instrumentation.annotations.SpanAttribute;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.logging.Log;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
 import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotNull;
 
+import org.hibernate.reactive.mutiny.Mutiny;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import ia.magazenn.category.Category;
+import ia.magazenn.category.cache.CategoryCache;
+import ia.magazenn.category.cache.CategoryChangeFeed;
+import ia.magazenn.category.cache.CategoryFeedEvent;
+import ia.magazenn.category.cache.CategorySnapshot;
+import ia.magazenn.category.cache.CategorySuggestions;
+import ia.magazenn.category.config.CategoryConfig;
 import ia.magazenn.category.mapping.CaregoryFullUpdateMapper;
-import ia.magazenn.category.mapping.CategoryPartialUpdateMapper;
+import ia.magazenn.category.notification.CategoryChangeNotifier;
+import ia.magazenn.category.repository.CategoryChangeWatermark;
 import ia.magazenn.category.repository.CategoryRepository;
+import ia.magazenn.category.repository.CategoryStreamRepository;
 
 /**
  * Service class containing business methods for the application.
+ * <p>
+ * Every write runs in its own transaction and, once that transaction has completed,
+ * fires a {@link CategoryChange} event so in-memory views of the categories can follow.
+ * The transaction also notifies the other instances of the service of the change, with
+ * the {@link CategoryChangeNotifier}.
  */
 @ApplicationScoped
 public class CategoryService {
 
 	private final CategoryRepository categoryRepository;
 
-	private final Validator validator;
+	private final CategoryStreamRepository categoryStreamRepository;
+
+	private final CategoryConfig categoryConfig;
 
-	private final CategoryPartialUpdateMapper categoryPartialUpdateMapper;
+	private final Validator validator;
 
 	private final CaregoryFullUpdateMapper caregoryFullUpdateMapper;
 
-	public CategoryService(CategoryRepository categoryRepository, Validator validator,
-			CategoryPartialUpdateMapper categoryPartialUpdateMapper,
-			CaregoryFullUpdateMapper caregoryFullUpdateMapper) {
+	private final CategorySnapshot categorySnapshot;
+
+	private final CategoryCache categoryCache;
+
+	private final CategorySuggestions categorySuggestions;
+
+	private final CategoryChangeFeed categoryChangeFeed;
+
+	private final Event<CategoryChange> categoryChangeEvent;
+
+	private final CategoryChangeNotifier categoryChangeNotifier;
+
+	private final CategoryChangeWatermark categoryChangeWatermark;
+
+	private final ObjectMapper objectMapper;
+
+	private final CategoryGroupCommit groupCommit;
+
+	public CategoryService(CategoryRepository categoryRepository, CategoryStreamRepository categoryStreamRepository,
+			CategoryConfig categoryConfig, Validator validator, CaregoryFullUpdateMapper caregoryFullUpdateMapper,
+			CategorySnapshot categorySnapshot, CategoryCache categoryCache, CategorySuggestions categorySuggestions,
+			CategoryChangeFeed categoryChangeFeed, Event<CategoryChange> categoryChangeEvent,
+			CategoryChangeNotifier categoryChangeNotifier, CategoryChangeWatermark categoryChangeWatermark,
+			ObjectMapper objectMapper, MeterRegistry meterRegistry) {
 		this.categoryRepository = categoryRepository;
+		this.categoryStreamRepository = categoryStreamRepository;
+		this.categoryConfig = categoryConfig;
 		this.validator = validator;
-		this.categoryPartialUpdateMapper = categoryPartialUpdateMapper;
 		this.caregoryFullUpdateMapper = caregoryFullUpdateMapper;
+		this.categorySnapshot = categorySnapshot;
+		this.categoryCache = categoryCache;
+		this.categorySuggestions = categorySuggestions;
+		this.categoryChangeFeed = categoryChangeFeed;
+		this.categoryChangeEvent = categoryChangeEvent;
+		this.categoryChangeNotifier = categoryChangeNotifier;
+		this.categoryChangeWatermark = categoryChangeWatermark;
+		this.objectMapper = objectMapper;
+		this.groupCommit = categoryConfig.groupCommit().enabled()
+				? new CategoryGroupCommit(categoryConfig.groupCommit(), meterRegistry, this::insertBatch) : null;
 	}
 
 	@WithSpan("CategoryService.findAllCategories")
 	public Uni<List<Category>> findAllCategories() {
 		Log.debug("Getting all categories");
-		return this.categoryRepository.listAll();
+		return this.categorySnapshot.categories();
+	}
+
+	@WithSpan("CategoryService.streamAllCategories")
+	public Multi<Category> streamAllCategories() {
+		Log.debug("Streaming all categories");
+		return this.categoryStreamRepository.streamAll(this.categoryConfig.export().fetchSize());
+	}
+
+	@WithSpan("CategoryService.streamChanges")
+	public Multi<CategoryFeedEvent> streamChanges(@SpanAttribute("arg.lastEventId") String lastEventId) {
+		Log.debugf("Streaming changes after %s", lastEventId);
+		return this.categoryChangeFeed.events(lastEventId);
+	}
+
+	@WithSpan("CategoryService.findCategoriesPage")
+	public Uni<CategoryPage> findCategoriesPage(@SpanAttribute("arg.after") CategoryCursor after,
+			@SpanAttribute("arg.limit") int limit) {
+		Log.debugf("Finding %d categories after %s", limit, after);
+		return this.categoryRepository
+			.listPage((after != null) ? after.name() : null, (after != null) ? after.id() : null, limit + 1)
+			.map(categories -> CategoryPage.of(categories, limit));
+	}
+
+	/**
+	 * Finds what changed since a version, read from the database so that it is the same
+	 * on every instance of the service and after a restart. The changes are read from a
+	 * single snapshot, up to the {@link CategoryChangeWatermark watermark} of the writes
+	 * still running, which the returned version never goes past.
+	 * @param since The version returned by the previous call, <code>0</code> for all the
+	 * categories
+	 * @return The categories created, updated or deleted after {@code since}
+	 */
+	@WithSpan("CategoryService.findCategoriesChangedSince")
+	public Uni<CategoryDelta> findCategoriesChangedSince(@SpanAttribute("arg.since") long since) {
+		Log.debugf("Finding categories changed since version %d", since);
+		return this.categoryChangeWatermark.current()
+			.chain(until -> Panache.withTransaction(() -> this.categoryRepository.readFromSnapshot()
+				.chain(() -> this.categoryRepository.listChangedSince(since, until))
+				.chain(changed -> this.categoryRepository.listDeletedSince(since, until)
+					.map(deleted -> CategoryDelta.of(since, until, changed, deleted)))));
 	}
 
 	@WithSpan("CategoryService.findAllCategoriesHavingName")
@@ -63,60 +169,307 @@ public class CategoryService {
 		return this.categoryRepository.listAllWhereNameLike(name);
 	}
 
+	/**
+	 * Suggests categories whose name starts with {@code prefix}, ignoring case and accents,
+	 * from memory.
+	 * @param prefix The beginning of the name
+	 * @param limit The maximum number of categories to return
+	 * @return At most {@code limit} categories, in alphabetical order
+	 */
+	@WithSpan("CategoryService.suggestCategories")
+	public Uni<List<Category>> suggestCategories(@SpanAttribute("arg.prefix") String prefix,
+			@SpanAttribute("arg.limit") int limit) {
+		Log.debugf("Suggesting %d categories starting with %s", limit, prefix);
+		return this.categorySuggestions.suggest(prefix, limit);
+	}
+
+	/**
+	 * Finds the categories whose name, or one of its words, is close to {@code name}
+	 * despite typos, from memory.
+	 * @param name The name, possibly misspelled
+	 * @return The matching categories, the closest first
+	 */
+	@WithSpan("CategoryService.findAllCategoriesHavingSimilarName")
+	public Uni<List<Category>> findAllCategoriesHavingSimilarName(@SpanAttribute("arg.name") String name) {
+		Log.debugf("Finding all categories having a name similar to %s", name);
+		return this.categorySuggestions.similarTo(name);
+	}
+
+	@WithSpan("CategoryService.searchCategories")
+	public Uni<List<Category>> searchCategories(@SpanAttribute("arg.text") String text,
+			@SpanAttribute("arg.limit") int limit, @SpanAttribute("arg.offset") int offset) {
+		Log.debugf("Searching %d categories matching %s from %d", limit, text, offset);
+		return this.categoryRepository.search(text, limit, offset);
+	}
+
 	@WithSpan("CategoryService.findCategoryById")
 	public Uni<Category> findCategoryById(@SpanAttribute("arg.id") UUID id) {
 		Log.debugf("Finding category by id = %s", id);
 		try {
-			return this.categoryRepository.findById(id);
+			return this.categoryCache.findById(id);
 		}
 		catch (IllegalArgumentException exc) {
 			return null;
 		}
 	}
 
+	/**
+	 * Finds several categories with a single query.
+	 * @param ids The identifiers, possibly repeated
+	 * @return One {@link CategoryLookup} per identifier, in the same order as {@code ids}
+	 */
+	@WithSpan("CategoryService.findCategoriesByIds")
+	public Uni<List<CategoryLookup>> findCategoriesByIds(@SpanAttribute("arg.ids") List<UUID> ids) {
+		Log.debugf("Finding %d categories by id", ids.size());
+		return this.categoryRepository.listByIds(Set.copyOf(ids)).map(categories -> {
+			var categoriesById = categories.stream().collect(Collectors.toMap(Category::getId, Function.identity()));
+			return ids.stream().map(id -> CategoryLookup.of(id, categoriesById.get(id))).toList();
+		});
+	}
+
 	@WithSpan("CategoryService.findRandomCategory")
 	public Uni<Category> findRandomCategory() {
 		Log.debug("Finding a random category");
 		return this.categoryRepository.findRandom();
 	}
 
+	/**
+	 * Creates a category, in its own transaction, or along with the other ones created at
+	 * the same time when <code>category.group-commit.enabled</code> is <code>true</code>.
+	 * @param category The category
+	 * @return The created category
+	 */
 	@WithSpan("CategoryService.persistCategory")
-	@WithTransaction
 	public Uni<Category> persistCategory(@SpanAttribute("arg.category") @NotNull @Valid Category category) {
 		Log.debugf("Persisting category: %s", category);
-		return this.categoryRepository.persist(category);
+
+		if ((this.groupCommit != null) && (category.getId() == null)) {
+			return this.groupCommit.persist(category);
+		}
+
+		return write(() -> this.categoryRepository.persist(category), CategoryChange::created);
 	}
 
+	/**
+	 * Replaces a category with a single <code>UPDATE</code> statement, which also tells
+	 * whether it exists.
+	 * @param category The category, with its identifier, and the version it must still
+	 * have, if any
+	 * @return The replaced category, or <code>null</code> if not found
+	 * @throws OptimisticLockException If the category doesn't have the expected version
+	 * anymore
+	 */
 	@WithSpan("CategoryService.replaceCategory")
-	@WithTransaction
 	public Uni<Category> replaceCategory(@SpanAttribute("arg.category") @NotNull @Valid Category category) {
 		Log.debugf("Replacing category: %s", category);
-		return this.categoryRepository.findById(category.getId()).onItem().ifNotNull().transform(h -> {
-			this.caregoryFullUpdateMapper.mapFullUpdate(category, h);
-			return h;
-		});
+		return write(() -> this.categoryRepository.replaceById(category), CategoryService::updated);
+	}
+
+	/**
+	 * Creates a category with the given identifier, or replaces it if it already exists,
+	 * with a single <code>INSERT … ON CONFLICT</code> statement.
+	 * @param category The category, with its identifier
+	 * @return The written category, and whether it was created or updated
+	 */
+	@WithSpan("CategoryService.upsertCategory")
+	public Uni<CategoryUpsert> upsertCategory(@SpanAttribute("arg.category") @NotNull @Valid Category category) {
+		Log.debugf("Upserting category: %s", category);
+		return write(() -> this.categoryRepository.upsertById(category).map(CategoryUpsert::of),
+				CategoryUpsert::change);
 	}
 
+	/**
+	 * Updates the non-null fields of a category with a single <code>UPDATE</code>
+	 * statement, which also tells whether it exists. The fields are validated before
+	 * anything is read or written.
+	 * @param category The category, with its identifier, and the version it must still
+	 * have, if any
+	 * @return The complete updated category, or <code>null</code> if not found
+	 * @throws ConstraintViolationException If a non-null field is invalid
+	 * @throws OptimisticLockException If the category doesn't have the expected version
+	 * anymore
+	 */
 	@WithSpan("CategoryService.partialUpdateCategory")
-	@WithTransaction
 	public Uni<Category> partialUpdateCategory(@SpanAttribute("arg.category") @NotNull Category category) {
 		Log.infof("Partially updating category: %s", category);
-		return this.categoryRepository.findById(category.getId()).onItem().ifNotNull().transform(h -> {
-			this.categoryPartialUpdateMapper.mapPartialUpdate(category, h);
-			return h;
-		}).onItem().ifNotNull().transform(this::validatePartialUpdate);
+		return Uni.createFrom().item(() -> validatePartialUpdate(category)).chain(valid -> {
+			// Without any field to update, the category is only looked up
+			Function<Category, CategoryChange> changeOf = ((valid.getName() != null)
+					|| (valid.getDescription() != null)) ? CategoryService::updated : unchanged -> null;
+
+			return write(() -> this.categoryRepository.patchById(valid), changeOf);
+		});
 	}
 
+	/**
+	 * Replaces all the categories with {@code categories}, only writing what changed.
+	 * Categories are matched by identifier: the ones that don't exist yet are inserted
+	 * with multi-row statements (keeping their identifier if they have one), the existing
+	 * ones are only updated if they differ, and the ones missing from {@code categories}
+	 * are deleted with a statement per 10000 identifiers.
+	 * @param categories The new categories
+	 * @return The number of inserted, updated, deleted and unchanged categories
+	 */
 	@WithSpan("CategoryService.replaceAllCategories")
-	@WithTransaction
-	public Uni<Void> replaceAllCategories(@SpanAttribute("arg.categories") List<Category> categories) {
+	public Uni<CategoryReplaceSummary> replaceAllCategories(
+			@SpanAttribute("arg.categories") List<Category> categories) {
 		Log.debug("Replacing all categories");
-		return deleteAllCategories().replaceWith(this.categoryRepository.persist(categories));
+		return write(() -> this.categoryRepository.listAll()
+			.chain(existingCategories -> replaceCategories(existingCategories, categories)), Replacement::change)
+			.map(Replacement::summary)
+			.invoke(summary -> Log.debugf("Replaced all categories: %s", summary));
+	}
+
+	private Uni<Replacement> replaceCategories(List<Category> existingCategories, List<Category> categories) {
+		var existingCategoriesById = existingCategories.stream()
+			.collect(Collectors.toMap(Category::getId, Function.identity()));
+		var ids = new HashSet<UUID>();
+		var created = new ArrayList<Category>();
+		var updated = new ArrayList<Category>();
+		var unchanged = 0;
+
+		for (var category : categories) {
+			var existingCategory = (category.getId() != null) ? existingCategoriesById.get(category.getId()) : null;
+
+			if (existingCategory == null) {
+				created.add(category);
+			}
+			else {
+				ids.add(existingCategory.getId());
+
+				if (isUnchanged(existingCategory, category)) {
+					unchanged++;
+				}
+				else {
+					// Managed entity, flushed as an UPDATE of this row only
+					this.caregoryFullUpdateMapper.mapFullUpdate(category, existingCategory);
+					updated.add(existingCategory);
+				}
+			}
+		}
+
+		var removed = existingCategoriesById.keySet()
+			.stream()
+			.filter(id -> !ids.contains(id))
+			.collect(Collectors.toUnmodifiableSet());
+		var unchangedCount = unchanged;
+
+		return this.categoryRepository.deleteByIds(removed)
+			.call(() -> this.categoryRepository.insertAll(created, this.categoryConfig.bulkInsert().batchSize()))
+			.map(deleted -> new Replacement(new CategoryChange(created, updated, deleted, false), unchangedCount));
 	}
 
 	/**
-	 * Validates a {@link Category} for partial update according to annotation validation
-	 * rules on the {@link Category} object.
+	 * Imports categories from newline delimited JSON, one category per line. Lines are
+	 * parsed and validated as they arrive: invalid ones are skipped and reported in the
+	 * summary, valid ones are inserted in batches of
+	 * <code>category.bulk-insert.batch-size</code>, each in its own transaction.
+	 * <p>
+	 * A batch the database rejects (i.e. because an identifier is repeated or already
+	 * taken) is inserted again one line at a time, so that only the lines that can't be
+	 * inserted are skipped and reported.
+	 * <p>
+	 * No more than one batch is held in memory: {@code lines} is only requested again
+	 * once the previous batch has been written, so a slow database slows down the
+	 * upload instead of buffering it.
+	 * @param lines The lines, without their line terminator
+	 * @return How many lines were imported and rejected, and why
+	 */
+	@WithSpan("CategoryService.importCategories")
+	public Uni<CategoryImportSummary> importCategories(Multi<String> lines) {
+		Log.debug("Importing categories");
+		var importedLines = new ImportedLines(this.categoryConfig.bulkImport().maxErrors());
+
+		return lines.map(line -> parseLine(importedLines.next(), line))
+			.filter(importedLines::accept)
+			.group()
+			.intoLists()
+			.of(this.categoryConfig.bulkInsert().batchSize())
+			.onItem()
+			.transformToUniAndConcatenate(batch -> importBatch(batch, importedLines))
+			.collect()
+			.with(Collectors.summingInt(Integer::intValue))
+			.map(importedLines::summary)
+			.invoke(summary -> Log.debugf("Imported categories: %d lines, %d imported, %d rejected",
+					summary.lines(), summary.imported(), summary.rejected()));
+	}
+
+	private ParsedLine parseLine(long number, String line) {
+		if (line.isBlank()) {
+			return new ParsedLine(number, null, null);
+		}
+
+		Category category;
+
+		try {
+			category = this.objectMapper.readValue(line, Category.class);
+		}
+		catch (JsonProcessingException exc) {
+			return new ParsedLine(number, null, "Invalid JSON: " + exc.getOriginalMessage());
+		}
+
+		if (category == null) {
+			return new ParsedLine(number, null, "Invalid JSON: null");
+		}
+
+		var error = describe(this.validator.validate(category));
+
+		if (error != null) {
+			return new ParsedLine(number, null, error);
+		}
+
+		return new ParsedLine(number, category, null);
+	}
+
+	/**
+	 * Inserts the categories of a batch of lines with a single statement or, if it fails,
+	 * one line at a time, rejecting the lines that still fail.
+	 */
+	private Uni<Integer> importBatch(List<ParsedLine> batch, ImportedLines importedLines) {
+		return insertBatch(batch.stream().map(ParsedLine::category).toList()).onFailure().recoverWithUni(exc -> {
+			Log.debugf("Unable to import %d categories at once, importing them one by one: %s", batch.size(),
+					exc.getMessage());
+			return Multi.createFrom()
+				.iterable(batch)
+				.onItem()
+				.transformToUniAndConcatenate(line -> insertBatch(List.of(line.category())).onFailure()
+					.recoverWithItem(lineExc -> {
+						importedLines.reject(line.number(), "Not inserted: " + rootCauseMessage(lineExc));
+						return 0;
+					}))
+				.collect()
+				.with(Collectors.summingInt(Integer::intValue));
+		});
+	}
+
+	private static String rootCauseMessage(Throwable exc) {
+		var cause = exc;
+
+		while ((cause.getCause() != null) && (cause.getCause() != cause)) {
+			cause = cause.getCause();
+		}
+
+		return cause.getMessage();
+	}
+
+	/**
+	 * Inserts categories with a single multi-row <code>INSERT</code>, in their own
+	 * transaction.
+	 */
+	private Uni<Integer> insertBatch(List<Category> categories) {
+		return write(() -> this.categoryRepository.insertAll(categories, categories.size()),
+				inserted -> new CategoryChange(categories, List.of(), Map.of(), false));
+	}
+
+	private static boolean isUnchanged(Category existingCategory, Category category) {
+		return Objects.equals(existingCategory.getName(), category.getName())
+				&& Objects.equals(existingCategory.getDescription(), category.getDescription());
+	}
+
+	/**
+	 * Validates the non-null fields of a {@link Category} for partial update according to
+	 * annotation validation rules on the {@link Category} object, the other ones being
+	 * left unchanged.
 	 * @param category The {@link Category}
 	 * @return The same {@link Category} that was passed in, assuming it passes
 	 * validation. The return is used as a convenience so the method can be called in a
@@ -124,35 +477,428 @@ public class CategoryService {
 	 * @throws ConstraintViolationException If validation fails
 	 */
 	private Category validatePartialUpdate(Category category) {
-		var violations = this.validator.validate(category);
+		var violations = partialUpdateViolations(category);
 
-		if ((violations != null) && !violations.isEmpty()) {
+		if (!violations.isEmpty()) {
 			throw new ConstraintViolationException(violations);
 		}
 
 		return category;
 	}
 
-	@WithSpan("CategoryService.deleteAllCategories")
-	@WithTransaction
-	public Uni<Void> deleteAllCategories() {
-		Log.debug("Deleting all categories");
-		return this.categoryRepository.listAll()
-			.onItem()
-			.transformToMulti(list -> Multi.createFrom().iterable(list))
-			.map(Category::getId)
+	private Set<ConstraintViolation<Category>> partialUpdateViolations(Category category) {
+		var violations = new HashSet<ConstraintViolation<Category>>();
+
+		if (category.getName() != null) {
+			violations.addAll(this.validator.validateProperty(category, "name"));
+		}
+
+		if (category.getDescription() != null) {
+			violations.addAll(this.validator.validateProperty(category, "description"));
+		}
+
+		return violations;
+	}
+
+	/**
+	 * @return The violations as <code>property message</code>, sorted and comma separated,
+	 * or <code>null</code> if there are none
+	 */
+	private static String describe(Set<ConstraintViolation<Category>> violations) {
+		return violations.isEmpty() ? null
+				: violations.stream()
+					.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+					.sorted()
+					.collect(Collectors.joining(", "));
+	}
+
+	/**
+	 * Applies writes in order, in a single transaction. Consecutive creations are inserted
+	 * with multi-row statements of up to <code>category.bulk-insert.batch-size</code> rows
+	 * and consecutive deletions with a single statement, while each update and patch is a
+	 * single <code>UPDATE … RETURNING</code> statement. All the operations are validated
+	 * before anything is written.
+	 * <p>
+	 * The first operation failing in an {@link CategoryBatch#atomic() atomic} batch stops
+	 * it and rolls the transaction back, so that nothing is written. Otherwise the
+	 * operations that fail are skipped and the other ones committed.
+	 * @param batch The operations
+	 * @return The outcome of each operation, and whether they were committed
+	 */
+	@WithSpan("CategoryService.applyBatch")
+	public Uni<CategoryBatchResult> applyBatch(@SpanAttribute("arg.batch") @NotNull @Valid CategoryBatch batch) {
+		Log.debugf("Applying a batch of %d operations", batch.operations().size());
+		var execution = new BatchExecution(batch);
+
+		for (var index = 0; index < batch.operations().size(); index++) {
+			var operation = batch.operations().get(index);
+			var error = validate(operation);
+
+			if (error != null) {
+				execution.failed(index, CategoryOperationResult.invalid(operation.id(), error));
+			}
+		}
+
+		if (execution.isStopped()) {
+			return Uni.createFrom().item(execution.result());
+		}
+
+		return write(() -> Multi.createFrom()
+			.iterable(execution.runs())
 			.onItem()
-			.transformToUniAndMerge(this::deleteCategory)
+			.transformToUniAndConcatenate(run -> execution.isStopped() ? Uni.createFrom().voidItem()
+					: applyRun(execution, run))
 			.collect()
 			.asList()
-			.replaceWithVoid();
+			.chain(() -> execution.isStopped()
+					? Panache.currentTransaction().invoke(Mutiny.Transaction::markForRollback).replaceWithVoid()
+					: Uni.createFrom().voidItem())
+			.map(ignored -> execution.result()), result -> execution.change())
+			.invoke(result -> Log.debugf("Applied a batch of %d operations, committed: %s", result.results().size(),
+					result.committed()));
+	}
+
+	/**
+	 * @return Why {@code operation} can't be applied, or <code>null</code> if it is valid
+	 */
+	private String validate(CategoryOperation operation) {
+		if ((operation.op() != CategoryOperation.Type.CREATE) && (operation.id() == null)) {
+			return "id must not be null";
+		}
+
+		if ((operation.op() != CategoryOperation.Type.DELETE) && (operation.category() == null)) {
+			return "category must not be null";
+		}
+
+		return switch (operation.op()) {
+			case CREATE, UPDATE -> describe(this.validator.validate(operation.category()));
+			case PATCH -> describe(partialUpdateViolations(operation.category()));
+			case DELETE -> null;
+		};
+	}
+
+	private Uni<Void> applyRun(BatchExecution execution, BatchRun run) {
+		var operations = run.indexes().stream().map(execution::operation).toList();
+
+		return switch (run.type()) {
+			case CREATE -> {
+				var categories = operations.stream().map(CategoryOperation::category).toList();
+				// Given a random identifier by the insert
+				categories.forEach(category -> category.setId(null));
+
+				yield this.categoryRepository.insertAll(categories, this.categoryConfig.bulkInsert().batchSize())
+					.invoke(() -> {
+						for (var i = 0; i < categories.size(); i++) {
+							execution.created(run.indexes().get(i), categories.get(i));
+						}
+					})
+					.replaceWithVoid();
+			}
+			case DELETE -> this.categoryRepository
+				.deleteByIds(operations.stream().map(CategoryOperation::id).toList())
+				.invoke(deleted -> {
+					for (var i = 0; i < operations.size(); i++) {
+						var id = operations.get(i).id();
+
+						if (deleted.containsKey(id)) {
+							execution.deleted(run.indexes().get(i), id, deleted.get(id));
+						}
+						else {
+							execution.failed(run.indexes().get(i), CategoryOperationResult.notFound(id));
+						}
+					}
+				})
+				.replaceWithVoid();
+			case UPDATE, PATCH -> {
+				var index = run.indexes().get(0);
+				var operation = operations.get(0);
+				var category = operation.category();
+				category.setId(operation.id());
+				category.setVersion(operation.version());
+				var changed = (run.type() == CategoryOperation.Type.UPDATE) || (category.getName() != null)
+						|| (category.getDescription() != null);
+				var update = (run.type() == CategoryOperation.Type.UPDATE)
+						? this.categoryRepository.replaceById(category) : this.categoryRepository.patchById(category);
+
+				yield update.invoke(updated -> {
+					if (updated != null) {
+						execution.updated(index, updated, changed);
+					}
+					else {
+						execution.failed(index, CategoryOperationResult.notFound(operation.id()));
+					}
+				})
+					.onFailure(OptimisticLockException.class)
+					.recoverWithItem(exc -> {
+						execution.failed(index, CategoryOperationResult.conflict(operation.id(),
+								(Category) ((OptimisticLockException) exc).getEntity()));
+						return null;
+					})
+					.replaceWithVoid();
+			}
+		};
+	}
+
+	@WithSpan("CategoryService.deleteAllCategories")
+	public Uni<Void> deleteAllCategories() {
+		Log.debug("Deleting all categories");
+		return write(this::removeAllCategories, CategoryChange::cleared).replaceWithVoid();
 	}
 
 	@WithSpan("CategoryService.deleteCategory")
-	@WithTransaction
 	public Uni<Void> deleteCategory(@SpanAttribute("arg.id") UUID id) {
 		Log.debugf("Deleting category by id = %s", id);
-		return this.categoryRepository.deleteById(id).replaceWithVoid();
+		return write(() -> this.categoryRepository.deleteByIds(List.of(id)),
+				deleted -> deleted.isEmpty() ? null : CategoryChange.deleted(deleted))
+			.replaceWithVoid();
+	}
+
+	/**
+	 * Deletes all the categories with a single <code>DELETE</code> statement, whatever
+	 * the number of rows. <code>TRUNCATE</code> isn't used as it takes an exclusive lock
+	 * that blocks concurrent readers and isn't MVCC-safe.
+	 */
+	private Uni<Map<UUID, Long>> removeAllCategories() {
+		return this.categoryRepository.deleteAllReturningVersions();
+	}
+
+	/**
+	 * The changes made when replacing all the categories.
+	 */
+	private record Replacement(CategoryChange change, int unchanged) {
+
+		CategoryReplaceSummary summary() {
+			return new CategoryReplaceSummary(this.change.created().size(), this.change.updated().size(),
+					this.change.deleted().size(), this.unchanged);
+		}
+
+	}
+
+	/**
+	 * A line of an import, either a valid {@link Category}, an error or blank.
+	 */
+	private record ParsedLine(long number, Category category, String error) {
+
+	}
+
+	/**
+	 * Counts the lines of an import and keeps the first errors. Only used from the
+	 * sequential import pipeline, so it doesn't need to be thread-safe.
+	 */
+	private static final class ImportedLines {
+
+		private final int maxErrors;
+
+		private final List<CategoryImportSummary.LineError> errors = new ArrayList<>();
+
+		private long lines;
+
+		private int rejected;
+
+		ImportedLines(int maxErrors) {
+			this.maxErrors = maxErrors;
+		}
+
+		long next() {
+			return ++this.lines;
+		}
+
+		boolean accept(ParsedLine line) {
+			if (line.error() != null) {
+				reject(line.number(), line.error());
+			}
+
+			return line.category() != null;
+		}
+
+		void reject(long number, String error) {
+			this.rejected++;
+
+			if (this.errors.size() < this.maxErrors) {
+				this.errors.add(new CategoryImportSummary.LineError(number, error));
+			}
+		}
+
+		CategoryImportSummary summary(int imported) {
+			// Lines rejected by the database are only known once their batch is inserted
+			var errors = this.errors.stream()
+				.sorted(Comparator.comparingLong(CategoryImportSummary.LineError::line))
+				.toList();
+
+			return new CategoryImportSummary(this.lines, imported, this.rejected, errors);
+		}
+
+	}
+
+	/**
+	 * Operations of a batch applied together: consecutive creations, consecutive deletions
+	 * of distinct categories, or a single update or patch.
+	 * @param indexes The positions of the operations in the batch
+	 */
+	private record BatchRun(CategoryOperation.Type type, List<Integer> indexes) {
+
+	}
+
+	/**
+	 * The results of the operations of a batch, and the change they made. Only used from
+	 * the sequential batch pipeline, so it doesn't need to be thread-safe.
+	 */
+	private static final class BatchExecution {
+
+		private final CategoryBatch batch;
+
+		private final CategoryOperationResult[] results;
+
+		private final Map<UUID, Category> created = new LinkedHashMap<>();
+
+		private final Map<UUID, Category> updated = new LinkedHashMap<>();
+
+		private final Map<UUID, Long> deleted = new LinkedHashMap<>();
+
+		/**
+		 * The first operation that failed in an atomic batch, -1 if none did.
+		 */
+		private int failure = -1;
+
+		BatchExecution(CategoryBatch batch) {
+			this.batch = batch;
+			this.results = new CategoryOperationResult[batch.operations().size()];
+		}
+
+		CategoryOperation operation(int index) {
+			return this.batch.operations().get(index);
+		}
+
+		/**
+		 * @return The runs of the valid operations, in order
+		 */
+		List<BatchRun> runs() {
+			var runs = new ArrayList<BatchRun>();
+			BatchRun current = null;
+			var ids = new HashSet<UUID>();
+
+			for (var index = 0; index < this.results.length; index++) {
+				if (this.results[index] != null) {
+					continue;
+				}
+
+				var operation = operation(index);
+				var joins = (current != null) && (current.type() == operation.op())
+						&& ((operation.op() == CategoryOperation.Type.CREATE)
+								|| ((operation.op() == CategoryOperation.Type.DELETE) && ids.add(operation.id())));
+
+				if (!joins) {
+					current = new BatchRun(operation.op(), new ArrayList<>());
+					runs.add(current);
+					ids.clear();
+					ids.add(operation.id());
+				}
+
+				current.indexes().add(index);
+			}
+
+			return runs;
+		}
+
+		boolean isStopped() {
+			return this.failure >= 0;
+		}
+
+		void created(int index, Category category) {
+			this.results[index] = CategoryOperationResult.created(category);
+			this.created.put(category.getId(), category);
+		}
+
+		void updated(int index, Category category, boolean changed) {
+			this.results[index] = CategoryOperationResult.updated(category);
+
+			if (!changed) {
+				return;
+			}
+
+			if (this.created.containsKey(category.getId())) {
+				this.created.put(category.getId(), category);
+			}
+			else {
+				this.updated.put(category.getId(), category);
+			}
+		}
+
+		void deleted(int index, UUID id, long changeVersion) {
+			this.results[index] = CategoryOperationResult.deleted(id);
+			this.created.remove(id);
+			this.updated.remove(id);
+			this.deleted.put(id, changeVersion);
+		}
+
+		void failed(int index, CategoryOperationResult result) {
+			this.results[index] = result;
+
+			if (this.batch.atomic() && !isStopped()) {
+				this.failure = index;
+			}
+		}
+
+		CategoryBatchResult result() {
+			if (!isStopped()) {
+				return new CategoryBatchResult(true, List.of(this.results));
+			}
+
+			var results = new ArrayList<CategoryOperationResult>(this.results.length);
+
+			for (var index = 0; index < this.results.length; index++) {
+				results.add((index == this.failure) ? this.results[index]
+						: CategoryOperationResult.notApplied(operation(index).id(), this.failure));
+			}
+
+			return new CategoryBatchResult(false, results);
+		}
+
+		/**
+		 * @return The change made by the batch, <code>null</code> if it was rolled back or
+		 * didn't change anything
+		 */
+		CategoryChange change() {
+			if (isStopped() || (this.created.isEmpty() && this.updated.isEmpty() && this.deleted.isEmpty())) {
+				return null;
+			}
+
+			return new CategoryChange(List.copyOf(this.created.values()), List.copyOf(this.updated.values()),
+					Map.copyOf(this.deleted), false);
+		}
+
+	}
+
+	/**
+	 * Runs a write in a transaction that also notifies the other instances of the change
+	 * it made, then fires that change to the synchronous observers of this instance once
+	 * the transaction has completed.
+	 * @param work The write
+	 * @param changeOf Describes the change made by the write from its result, returns
+	 * <code>null</code> if nothing changed
+	 * @return The result of the write
+	 */
+	private <T> Uni<T> write(Supplier<Uni<T>> work, Function<T, CategoryChange> changeOf) {
+		return Panache
+			.withTransaction(() -> this.categoryChangeWatermark.hold()
+				.chain(work)
+				.call(result -> this.categoryChangeNotifier.send(changeOf.apply(result))))
+			.invoke(result -> fireChange(changeOf.apply(result)));
+	}
+
+	private static CategoryChange updated(Category category) {
+		return (category != null) ? CategoryChange.updated(category) : null;
+	}
+
+	/**
+	 * Fires a {@link CategoryChange} to the synchronous observers. Only called once the
+	 * transaction performing the write has completed.
+	 * @param change The {@link CategoryChange}, <code>null</code> if nothing changed
+	 */
+	private void fireChange(CategoryChange change) {
+		if (change != null) {
+			this.categoryChangeEvent.fire(change);
+		}
 	}
 
 }
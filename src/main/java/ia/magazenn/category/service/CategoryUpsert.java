@@ -0,0 +1,29 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import ia.magazenn.category.Category;
+
+/**
+ * Result of creating or replacing a category with a given identifier.
+ * @param category The category as written
+ * @param created <code>true</code> if the category didn't exist and was created,
+ * <code>false</code> if it was updated
+ */
+public record CategoryUpsert(Category category, boolean created) {
+
+	static CategoryUpsert of(Category category) {
+		// Only an update increments the version
+		return new CategoryUpsert(category, category.getVersion() == 0);
+	}
+
+	CategoryChange change() {
+		return this.created ? CategoryChange.created(this.category) : CategoryChange.updated(this.category);
+	}
+
+}
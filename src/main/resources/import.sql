@@ -1,3 +1,16 @@
+-- Orders all the writes to the categories, for GET /api/categories?since=<version>. Also the defaults for the inserts that don't go through Hibernate
+CREATE SEQUENCE IF NOT EXISTS category_change_seq;
+ALTER TABLE Category ALTER COLUMN change_version SET DEFAULT nextval('category_change_seq');
+ALTER TABLE Category ALTER COLUMN version SET DEFAULT 0;
+
+-- Serves the LOWER(name) LIKE '%...%' name search, which a b-tree index can't
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS CATEGORY_NAME_TRGM_IDX ON Category USING GIN (LOWER(name) gin_trgm_ops);
+
+-- Full-text search over name (weight A) and description (weight B)
+ALTER TABLE Category ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (setweight(to_tsvector('english', coalesce(name, '')), 'A') || setweight(to_tsvector('english', coalesce(description, '')), 'B')) STORED;
+CREATE INDEX IF NOT EXISTS CATEGORY_SEARCH_VECTOR_IDX ON Category USING GIN (search_vector);
+
 INSERT INTO category(ID, NAME, DESCRIPTION) VALUES ('560281a2-75ba-49cf-b2ee-3a7c4c6cd916','Vehicles','Vehicles');
 INSERT INTO category(ID, NAME, DESCRIPTION) VALUES ('5d82d8d1-5979-408c-a12c-f8641b46241a','Property','Property');
 INSERT INTO category(ID, NAME, DESCRIPTION) VALUES ('8fae494b-fa08-402c-9629-8792176fff52','Mobile Phone & Tablets','Mobile Phone & Tablets');
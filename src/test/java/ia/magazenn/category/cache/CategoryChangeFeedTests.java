@@ -0,0 +1,86 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+import ia.magazenn.category.service.CategoryChange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CategoryChangeFeedTests {
+
+	private static final int CLIENT_BUFFER_SIZE = 2;
+
+	@Test
+	void slowClientDisconnected() {
+		var meterRegistry = new SimpleMeterRegistry();
+		var feed = createFeed(meterRegistry);
+		var subscriber = feed.events(null).subscribe().withSubscriber(AssertSubscriber.create(1));
+
+		assertThat(subscriber.getItems()).extracting(CategoryFeedEvent::name)
+			.containsExactly(CategoryFeedEvent.SNAPSHOT);
+
+		for (var version = 1; version <= CLIENT_BUFFER_SIZE; version++) {
+			feed.append(version, CategoryChange.updated(createCategory()));
+		}
+
+		subscriber.assertNotTerminated();
+
+		feed.append(CLIENT_BUFFER_SIZE + 1, CategoryChange.updated(createCategory()));
+
+		subscriber.assertFailedWith(BackPressureFailure.class);
+		assertThat(meterRegistry.get("categories.changes.subscribers").gauge().value()).isZero();
+	}
+
+	@Test
+	void clientKeepingUpNotDisconnected() {
+		var feed = createFeed(new SimpleMeterRegistry());
+		var subscriber = feed.events(null).subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+		for (var version = 1; version <= CLIENT_BUFFER_SIZE * 10; version++) {
+			feed.append(version, CategoryChange.updated(createCategory()));
+		}
+
+		subscriber.assertNotTerminated();
+		assertThat(subscriber.getItems()).hasSize(CLIENT_BUFFER_SIZE * 10 + 1);
+	}
+
+	private static CategoryChangeFeed createFeed(SimpleMeterRegistry meterRegistry) {
+		var categorySnapshot = mock(CategorySnapshot.class);
+		var categoryConfig = mock(CategoryConfig.class, RETURNS_DEEP_STUBS);
+
+		when(categorySnapshot.categories()).thenReturn(Uni.createFrom().item(List.of()));
+		when(categoryConfig.changes().bufferSize()).thenReturn(100);
+		when(categoryConfig.changes().clientBufferSize()).thenReturn(CLIENT_BUFFER_SIZE);
+
+		return new CategoryChangeFeed(categorySnapshot, categoryConfig, meterRegistry);
+	}
+
+	private static Category createCategory() {
+		var category = new Category();
+		category.setId(UUID.randomUUID());
+		category.setName("Super Chocolatine");
+
+		return category;
+	}
+
+}
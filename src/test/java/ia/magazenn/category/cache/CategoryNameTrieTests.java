@@ -0,0 +1,81 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import ia.magazenn.category.Category;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryNameTrieTests {
+
+	@Test
+	void putSplittingAnEdge() {
+		var abc = createCategory("abc");
+		var abd = createCategory("abd");
+		var trie = put(CategoryNameTrie.EMPTY, abc, abd);
+
+		assertThat(trie.startingWith("abc", 10)).containsExactly(abc);
+		assertThat(trie.startingWith("abd", 10)).containsExactly(abd);
+		assertThat(trie.startingWith("ab", 10)).containsExactly(abc, abd);
+	}
+
+	@Test
+	void putSplittingAnEdgeAmongSiblings() {
+		var xyz = createCategory("xyz");
+		var abc = createCategory("abc");
+		var mno = createCategory("mno");
+		var abd = createCategory("abd");
+		var trie = put(CategoryNameTrie.EMPTY, xyz, abc, mno, abd);
+
+		assertThat(trie.startingWith("abc", 10)).containsExactly(abc);
+		assertThat(trie.startingWith("abd", 10)).containsExactly(abd);
+		assertThat(trie.startingWith("", 10)).containsExactly(abc, abd, mno, xyz);
+
+		trie = trie.remove("abc", abc.getId());
+
+		assertThat(trie.startingWith("ab", 10)).containsExactly(abd);
+		assertThat(trie.startingWith("", 10)).containsExactly(abd, mno, xyz);
+	}
+
+	@Test
+	void previousTrieLeftUnchanged() {
+		var abc = createCategory("abc");
+		var abd = createCategory("abd");
+		var trie = put(CategoryNameTrie.EMPTY, abc);
+
+		var withAbd = trie.put("abd", abd);
+		var withoutAbc = withAbd.remove("abc", abc.getId());
+
+		assertThat(CategoryNameTrie.EMPTY.startingWith("", 10)).isEmpty();
+		assertThat(trie.startingWith("", 10)).containsExactly(abc);
+		assertThat(withAbd.startingWith("", 10)).containsExactly(abc, abd);
+		assertThat(withoutAbc.startingWith("", 10)).containsExactly(abd);
+		assertThat(withoutAbc.remove("abc", abc.getId())).isSameAs(withoutAbc);
+	}
+
+	private static CategoryNameTrie put(CategoryNameTrie trie, Category... categories) {
+		for (var category : categories) {
+			trie = trie.put(category.getName(), category);
+		}
+
+		return trie;
+	}
+
+	private static Category createCategory(String name) {
+		var category = new Category();
+		category.setId(UUID.randomUUID());
+		category.setName(name);
+
+		return category;
+	}
+
+}
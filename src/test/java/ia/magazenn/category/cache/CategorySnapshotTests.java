@@ -0,0 +1,93 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+import ia.magazenn.category.repository.CategoryRepository;
+import ia.magazenn.category.service.CategoryChange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategorySnapshotTests {
+
+	private static final int MAX_DELETIONS = 2;
+
+	private CategoryRepository categoryRepository;
+
+	private CategorySnapshot categorySnapshot;
+
+	private Category category;
+
+	@BeforeEach
+	void loadSnapshot() {
+		this.category = new Category();
+		this.category.setId(UUID.randomUUID());
+		this.category.setName("Super Chocolatine");
+		this.category.setChangeVersion(5L);
+		this.categoryRepository = mock(CategoryRepository.class);
+		var categoryConfig = mock(CategoryConfig.class, RETURNS_DEEP_STUBS);
+
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of(this.category)));
+		when(categoryConfig.snapshot().enabled()).thenReturn(true);
+		when(categoryConfig.snapshot().maxDeletions()).thenReturn(MAX_DELETIONS);
+
+		this.categorySnapshot = new CategorySnapshot(this.categoryRepository, categoryConfig,
+				new SimpleMeterRegistry());
+		assertThat(categoryIds()).containsExactly(this.category.getId());
+	}
+
+	@Test
+	void lateWriteDoesNotBringDeletedCategoryBack() {
+		this.categorySnapshot.onCategoryChange(CategoryChange.deleted(Map.of(this.category.getId(), 7L)));
+		this.categorySnapshot.onCategoryChange(CategoryChange.updated(this.category));
+
+		assertThat(categoryIds()).isEmpty();
+		verify(this.categoryRepository).listAll();
+	}
+
+	@Test
+	void reloadedAboveMaxDeletions() {
+		for (var deletion = 1; deletion <= MAX_DELETIONS; deletion++) {
+			this.categorySnapshot.onCategoryChange(CategoryChange.deleted(Map.of(UUID.randomUUID(), 10L)));
+		}
+
+		assertThat(categoryIds()).containsExactly(this.category.getId());
+		verify(this.categoryRepository).listAll();
+
+		this.categorySnapshot.onCategoryChange(CategoryChange.deleted(Map.of(UUID.randomUUID(), 10L)));
+
+		assertThat(categoryIds()).containsExactly(this.category.getId());
+		verify(this.categoryRepository, times(2)).listAll();
+	}
+
+	private List<UUID> categoryIds() {
+		return this.categorySnapshot.categories()
+			.await()
+			.indefinitely()
+			.stream()
+			.map(Category::getId)
+			.toList();
+	}
+
+}
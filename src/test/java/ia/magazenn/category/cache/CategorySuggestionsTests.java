@@ -0,0 +1,137 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.cache;
+
+import io.smallrye.mutiny.Uni;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+import ia.magazenn.category.service.CategoryChange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategorySuggestionsTests {
+
+	private static final String DEFAULT_NAME = "Super Chocolatine";
+
+	private static final String UPDATED_NAME = "Chocolatine (updated)";
+
+	private static final int MAX_DELETIONS = 2;
+
+	private CategorySnapshot categorySnapshot;
+
+	private CategorySuggestions categorySuggestions;
+
+	private Category category;
+
+	@BeforeEach
+	void loadSuggestions() {
+		this.category = createCategory(UUID.randomUUID(), DEFAULT_NAME, 5);
+		this.categorySnapshot = mock(CategorySnapshot.class);
+		var categoryConfig = mock(CategoryConfig.class, RETURNS_DEEP_STUBS);
+
+		when(this.categorySnapshot.categories()).thenReturn(Uni.createFrom().item(List.of(this.category)));
+		when(categoryConfig.snapshot().maxDeletions()).thenReturn(MAX_DELETIONS);
+
+		this.categorySuggestions = new CategorySuggestions(this.categorySnapshot, categoryConfig);
+		assertThat(suggest("super")).containsExactly(DEFAULT_NAME);
+	}
+
+	@Test
+	void updateApplied() {
+		this.categorySuggestions
+			.onCategoryChange(CategoryChange.updated(createCategory(this.category.getId(), UPDATED_NAME, 6)));
+
+		assertThat(suggest("super")).isEmpty();
+		assertThat(suggest("choco")).containsExactly(UPDATED_NAME);
+		assertThat(similarTo("chocolatime")).containsExactly(UPDATED_NAME);
+	}
+
+	@Test
+	void lateUpdateIgnored() {
+		this.categorySuggestions
+			.onCategoryChange(CategoryChange.updated(createCategory(this.category.getId(), UPDATED_NAME, 4)));
+
+		assertThat(suggest("super")).containsExactly(DEFAULT_NAME);
+		assertThat(suggest("choco")).isEmpty();
+	}
+
+	@Test
+	void lateWriteDoesNotBringDeletedCategoryBack() {
+		this.categorySuggestions.onCategoryChange(CategoryChange.deleted(Map.of(this.category.getId(), 7L)));
+		this.categorySuggestions
+			.onCategoryChange(CategoryChange.updated(createCategory(this.category.getId(), UPDATED_NAME, 6)));
+
+		assertThat(suggest("")).isEmpty();
+		assertThat(similarTo("chocolatime")).isEmpty();
+	}
+
+	@Test
+	void lateDeletionIgnored() {
+		this.categorySuggestions
+			.onCategoryChange(CategoryChange.updated(createCategory(this.category.getId(), UPDATED_NAME, 6)));
+		this.categorySuggestions.onCategoryChange(CategoryChange.deleted(Map.of(this.category.getId(), 5L)));
+
+		assertThat(suggest("choco")).containsExactly(UPDATED_NAME);
+	}
+
+	@Test
+	void reloadedAboveMaxDeletions() {
+		for (var deletion = 1; deletion <= MAX_DELETIONS; deletion++) {
+			this.categorySuggestions.onCategoryChange(CategoryChange.deleted(Map.of(UUID.randomUUID(), 10L)));
+		}
+
+		assertThat(suggest("super")).containsExactly(DEFAULT_NAME);
+		verify(this.categorySnapshot).categories();
+
+		this.categorySuggestions.onCategoryChange(CategoryChange.deleted(Map.of(UUID.randomUUID(), 10L)));
+
+		assertThat(suggest("super")).containsExactly(DEFAULT_NAME);
+		verify(this.categorySnapshot, times(2)).categories();
+	}
+
+	private List<String> suggest(String prefix) {
+		return this.categorySuggestions.suggest(prefix, 10)
+			.await()
+			.indefinitely()
+			.stream()
+			.map(Category::getName)
+			.toList();
+	}
+
+	private List<String> similarTo(String name) {
+		return this.categorySuggestions.similarTo(name)
+			.await()
+			.indefinitely()
+			.stream()
+			.map(Category::getName)
+			.toList();
+	}
+
+	private static Category createCategory(UUID id, String name, long changeVersion) {
+		var category = new Category();
+		category.setId(id);
+		category.setName(name);
+		category.setChangeVersion(changeVersion);
+
+		return category;
+	}
+
+}
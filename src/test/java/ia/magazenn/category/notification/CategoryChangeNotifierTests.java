@@ -0,0 +1,165 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.notification;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.vertx.VertxContextSupport;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ia.magazenn.category.cache.CategoryCatalogVersion;
+import ia.magazenn.category.config.CategoryConfig;
+import ia.magazenn.category.repository.CategoryRepository;
+import ia.magazenn.category.service.CategoryChange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends notifications as another instance of the service would, to the PostgreSQL
+ * database started by the dev services.
+ */
+@QuarkusTest
+class CategoryChangeNotifierTests {
+
+	private static final String OTHER_INSTANCE = "another-instance";
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Inject
+	CategoryChangeNotifier categoryChangeNotifier;
+
+	@Inject
+	CategoryCatalogVersion categoryCatalogVersion;
+
+	@Inject
+	CategoryRepository categoryRepository;
+
+	@Inject
+	CategoryConfig categoryConfig;
+
+	@Inject
+	ObjectMapper objectMapper;
+
+	@Inject
+	MeterRegistry meterRegistry;
+
+	@Test
+	void categoriesReloadedOnceListening() throws InterruptedException {
+		awaitUntil(() -> this.meterRegistry.get("categories.notifications.resyncs").counter().count() >= 1);
+	}
+
+	@Test
+	void notificationFromOtherInstanceApplied() throws Throwable {
+		var id = VertxContextSupport.subscribeAndAwait(() -> Panache.withSession(this.categoryRepository::listAll))
+			.get(0)
+			.getId();
+		var version = this.categoryCatalogVersion.current();
+		var received = receivedNotifications();
+
+		notify(new CategoryChangeNotification(OTHER_INSTANCE, System.currentTimeMillis(), List.of(), List.of(id),
+				Map.of(), false));
+
+		awaitUntil(() -> receivedNotifications() > received);
+		awaitUntil(() -> this.categoryCatalogVersion.current() > version);
+	}
+
+	@Test
+	void ownNotificationIgnored() throws Throwable {
+		var received = receivedNotifications();
+
+		VertxContextSupport.subscribeAndAwait(() -> Panache
+			.withTransaction(() -> this.categoryChangeNotifier.send(CategoryChange.deleted(Map.of(UUID.randomUUID(), 1L)))));
+		// Notifications are delivered in commit order, so the first one was handled before
+		notify(new CategoryChangeNotification(OTHER_INSTANCE, System.currentTimeMillis(), List.of(), List.of(),
+				Map.of(UUID.randomUUID(), 1L), false));
+
+		awaitUntil(() -> receivedNotifications() > received);
+		assertThat(receivedNotifications()).isEqualTo(received + 1);
+	}
+
+	@Test
+	void resetFromOtherInstanceReloadsAllCategories() throws Throwable {
+		var resyncs = this.meterRegistry.get("categories.notifications.resyncs").counter().count();
+		var version = this.categoryCatalogVersion.current();
+
+		notify(new CategoryChangeNotification(OTHER_INSTANCE, System.currentTimeMillis(), List.of(), List.of(),
+				Map.of(), true));
+
+		awaitUntil(() -> this.meterRegistry.get("categories.notifications.resyncs").counter().count() > resyncs);
+		awaitUntil(() -> this.categoryCatalogVersion.current() > version);
+	}
+
+	@Test
+	void tooManyIdsSentAsReset() {
+		var change = CategoryChange.deleted(Map.of(UUID.randomUUID(), 1L));
+		var maxIds = this.categoryConfig.notifications().maxIds();
+
+		assertThat(CategoryChangeNotification.of(OTHER_INSTANCE, change, maxIds))
+			.extracting(CategoryChangeNotification::deleted, CategoryChangeNotification::reset)
+			.containsExactly(change.deleted(), false);
+		assertThat(CategoryChangeNotification.of(OTHER_INSTANCE, change, 0))
+			.extracting(CategoryChangeNotification::deleted, CategoryChangeNotification::reset)
+			.containsExactly(Map.of(), true);
+	}
+
+	@Test
+	void payloadTooLongSentAsReset() throws Exception {
+		var deleted = new HashMap<UUID, Long>();
+		IntStream.range(0, 130).forEach(i -> deleted.put(UUID.randomUUID(), Long.MAX_VALUE));
+		var notification = CategoryChangeNotification.of(OTHER_INSTANCE, CategoryChange.deleted(deleted), 130);
+
+		assertThat(notification.reset()).isFalse();
+		assertThat(this.objectMapper.writeValueAsString(notification).getBytes(StandardCharsets.UTF_8))
+			.hasSizeLessThanOrEqualTo(CategoryChangeNotification.MAX_PAYLOAD_BYTES);
+
+		IntStream.range(0, 10).forEach(i -> deleted.put(UUID.randomUUID(), Long.MAX_VALUE));
+
+		assertThat(CategoryChangeNotification.of(OTHER_INSTANCE, CategoryChange.deleted(deleted), Integer.MAX_VALUE))
+			.extracting(CategoryChangeNotification::deleted, CategoryChangeNotification::reset)
+			.containsExactly(Map.of(), true);
+	}
+
+	private long receivedNotifications() {
+		return this.meterRegistry.get("categories.notifications.lag").timer().count();
+	}
+
+	private void notify(CategoryChangeNotification notification) throws Throwable {
+		var payload = this.objectMapper.writeValueAsString(notification);
+
+		VertxContextSupport.subscribeAndAwait(() -> Panache.withTransaction(() -> Panache.getSession()
+			.chain(session -> session.createNativeQuery("SELECT 1 FROM pg_notify(?1, ?2)")
+				.setParameter(1, this.categoryConfig.notifications().channel())
+				.setParameter(2, payload)
+				.getSingleResult())));
+	}
+
+	private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+		var deadline = System.nanoTime() + TIMEOUT.toNanos();
+
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("Timed out waiting for the notification").isLessThan(deadline);
+			Thread.sleep(50);
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.repository;
+
+import io.quarkus.test.TestReactiveTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.vertx.UniAsserter;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import ia.magazenn.category.Category;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each test runs in a transaction that is rolled back, and the locks it holds show in
+ * <code>pg_locks</code> like those of any other transaction.
+ */
+@QuarkusTest
+@TestReactiveTransaction
+class CategoryChangeWatermarkTests {
+
+	@Inject
+	CategoryChangeWatermark categoryChangeWatermark;
+
+	@Inject
+	CategoryRepository categoryRepository;
+
+	@Test
+	void watermarkBelowRunningWrite(UniAsserter asserter) {
+		var category = createCategory();
+
+		asserter.execute(this.categoryChangeWatermark::hold)
+			.execute(() -> this.categoryRepository.persist(category).call(this.categoryRepository::flush))
+			.assertThat(this.categoryChangeWatermark::current,
+					watermark -> assertThat(watermark).isLessThan(category.getChangeVersion()));
+	}
+
+	@Test
+	void watermarkAtLastChangeVersion(UniAsserter asserter) {
+		var category = createCategory();
+
+		asserter.execute(() -> this.categoryRepository.persist(category).call(this.categoryRepository::flush))
+			.assertThat(this.categoryChangeWatermark::current,
+					watermark -> assertThat(watermark).isGreaterThanOrEqualTo(category.getChangeVersion()));
+	}
+
+	private static Category createCategory() {
+		var category = new Category();
+		category.setName("Super Chocolatine");
+		category.setDescription("Super Chocolatine chocolate in");
+
+		return category;
+	}
+
+}
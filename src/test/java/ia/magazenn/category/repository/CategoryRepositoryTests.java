@@ -7,18 +7,30 @@
  */
 package ia.magazenn.category.repository;
 
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.logging.Log;
 import io.quarkus.test.TestReactiveTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.vertx.UniAsserter;
+import io.smallrye.mutiny.Uni;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 
 import ia.magazenn.category.Category;
+import ia.magazenn.category.CategoryTombstone;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -30,9 +42,313 @@ class CategoryRepositoryTests {
 
 	private static final String DEFAULT_DESCRIPTION = "Super Chocolatine chocolate in";
 
+	private static final int BENCHMARK_ROWS = 100_000;
+
 	@Inject
 	CategoryRepository categoryRepository;
 
+	@Inject
+	CategoryIdIndex categoryIdIndex;
+
+	@AfterEach
+	void invalidateIdIndex() {
+		// The index may have been loaded with rows that are rolled back
+		this.categoryIdIndex.invalidate();
+	}
+
+	@Test
+	void findRandomFound(UniAsserter asserter) {
+		Category category = new Category();
+		category.setName(DEFAULT_NAME);
+		category.setDescription(DEFAULT_DESCRIPTION);
+
+		asserter.execute(this.categoryRepository::deleteAll)
+			.execute(this.categoryIdIndex::invalidate)
+			.execute(() -> this.categoryRepository.persist(category))
+			.assertThat(this.categoryRepository::findRandom,
+					random -> assertThat(random).isNotNull().usingRecursiveComparison().isEqualTo(category))
+			.execute(() -> assertThat(this.categoryIdIndex.isLoaded()).isTrue());
+	}
+
+	@Test
+	void findRandomNotFound(UniAsserter asserter) {
+		asserter.execute(this.categoryRepository::deleteAll)
+			.execute(this.categoryIdIndex::invalidate)
+			.assertNull(this.categoryRepository::findRandom);
+	}
+
+	@Test
+	void findRandomSkipsStaleId(UniAsserter asserter) {
+		Category category = new Category();
+		category.setName(DEFAULT_NAME);
+		category.setDescription(DEFAULT_DESCRIPTION);
+
+		asserter.execute(this.categoryRepository::deleteAll)
+			.execute(() -> this.categoryIdIndex.load(this.categoryIdIndex.generation(), List.of(UUID.randomUUID())))
+			.execute(() -> this.categoryRepository.persist(category))
+			.assertThat(this.categoryRepository::findRandom,
+					random -> assertThat(random).isNotNull().usingRecursiveComparison().isEqualTo(category));
+	}
+
+	@Test
+	void idIndexIgnoresDuplicates() {
+		var id = UUID.randomUUID();
+		var otherId = UUID.randomUUID();
+		this.categoryIdIndex.load(this.categoryIdIndex.generation(), List.of(id, otherId, id));
+
+		this.categoryIdIndex.remove(id);
+
+		assertThat(IntStream.range(0, 100).mapToObj(i -> this.categoryIdIndex.random())).containsOnly(otherId);
+
+		this.categoryIdIndex.remove(otherId);
+
+		assertThat(this.categoryIdIndex.random()).isNull();
+	}
+
+	@Test
+	void listPage(UniAsserter asserter) {
+		var categories = Stream.of("Gamma", "Alpha", "Beta", "Alpha").map(name -> {
+			var category = new Category();
+			category.setName(name);
+			category.setDescription(DEFAULT_DESCRIPTION);
+			return category;
+		}).toList();
+
+		asserter.execute(this.categoryRepository::deleteAll)
+			.execute(() -> this.categoryRepository.persist(categories))
+			.assertThat(() -> this.categoryRepository.listPage(null, null, 3),
+					firstPage -> assertThat(firstPage).extracting(Category::getName)
+						.containsExactly("Alpha", "Alpha", "Beta"))
+			.assertThat(() -> this.categoryRepository.listPage(null, null, 2)
+				.chain(firstPage -> this.categoryRepository.listPage(firstPage.get(1).getName(),
+						firstPage.get(1).getId(), 2)),
+					secondPage -> assertThat(secondPage).extracting(Category::getName)
+						.containsExactly("Beta", "Gamma"));
+	}
+
+	@Test
+	void listByIds(UniAsserter asserter) {
+		var categories = createCategories(3);
+
+		asserter.execute(this.categoryRepository::deleteAll)
+			.execute(() -> this.categoryRepository.persist(categories))
+			.assertThat(
+					() -> this.categoryRepository
+						.listByIds(List.of(categories.get(0).getId(), categories.get(2).getId(), UUID.randomUUID())),
+					found -> assertThat(found).extracting(Category::getId)
+						.containsExactlyInAnyOrder(categories.get(0).getId(), categories.get(2).getId()))
+			.assertThat(() -> this.categoryRepository.listByIds(List.of()), found -> assertThat(found).isEmpty());
+	}
+
+	@Test
+	void insertAll(UniAsserter asserter) {
+		var categories = createCategories(5);
+		var providedId = UUID.randomUUID();
+		categories.get(0).setId(providedId);
+
+		asserter.execute(this.categoryRepository::deleteAll)
+			.assertEquals(() -> this.categoryRepository.insertAll(categories, 2), 5)
+			.assertThat(this.categoryRepository::listAll, inserted -> {
+				assertThat(categories).extracting(Category::getId).doesNotContainNull().doesNotHaveDuplicates();
+				// The change version is set by the database, and returned by the insert
+				assertThat(inserted).usingRecursiveFieldByFieldElementComparator()
+					.containsExactlyInAnyOrderElementsOf(categories);
+				assertThat(inserted).extracting(Category::getId).contains(providedId);
+				assertThat(inserted).extracting(Category::getChangeVersion).doesNotContainNull();
+			});
+	}
+
+	@Test
+	void replaceById(UniAsserter asserter) {
+		var category = createCategories(1).get(0);
+		var replacement = new Category();
+		replacement.setName(DEFAULT_NAME + " (updated)");
+
+		asserter.execute(() -> this.categoryRepository.persist(category).call(this.categoryRepository::flush))
+			.execute(() -> replacement.setId(category.getId()))
+			.assertThat(() -> this.categoryRepository.replaceById(replacement), replaced -> {
+				assertThat(replaced).extracting(Category::getId, Category::getName, Category::getDescription)
+					.containsExactly(category.getId(), DEFAULT_NAME + " (updated)", null);
+				assertThat(replaced.getChangeVersion()).isGreaterThan(category.getChangeVersion());
+				assertThat(replaced.getVersion()).isEqualTo(category.getVersion() + 1);
+			})
+			.execute(() -> replacement.setId(UUID.randomUUID()))
+			.assertNull(() -> this.categoryRepository.replaceById(replacement));
+	}
+
+	@Test
+	void patchById(UniAsserter asserter) {
+		var category = createCategories(1).get(0);
+		var patch = new Category();
+		patch.setName(DEFAULT_NAME + " (updated)");
+
+		asserter.execute(() -> this.categoryRepository.persist(category).call(this.categoryRepository::flush))
+			.execute(() -> patch.setId(category.getId()))
+			.assertThat(() -> this.categoryRepository.patchById(patch),
+					patched -> assertThat(patched)
+						.extracting(Category::getId, Category::getName, Category::getDescription)
+						.containsExactly(category.getId(), DEFAULT_NAME + " (updated)", DEFAULT_DESCRIPTION))
+			.execute(() -> patch.setName(null))
+			.assertThat(() -> this.categoryRepository.patchById(patch),
+					unchanged -> assertThat(unchanged).extracting(Category::getName)
+						.isEqualTo(DEFAULT_NAME + " (updated)"))
+			.execute(() -> patch.setId(UUID.randomUUID()))
+			.assertNull(() -> this.categoryRepository.patchById(patch));
+	}
+
+	@Test
+	void upsertById(UniAsserter asserter) {
+		var category = createCategories(1).get(0);
+		category.setId(UUID.randomUUID());
+
+		asserter.assertThat(() -> this.categoryRepository.upsertById(category), inserted -> {
+			assertThat(inserted).extracting(Category::getId, Category::getName, Category::getVersion)
+				.containsExactly(category.getId(), DEFAULT_NAME + " 0", 0L);
+			category.setChangeVersion(inserted.getChangeVersion());
+		})
+			.execute(() -> category.setName(DEFAULT_NAME + " (updated)"))
+			.assertThat(() -> this.categoryRepository.upsertById(category), updated -> {
+				assertThat(updated).extracting(Category::getId, Category::getName, Category::getVersion)
+					.containsExactly(category.getId(), DEFAULT_NAME + " (updated)", 1L);
+				assertThat(updated.getChangeVersion()).isGreaterThan(category.getChangeVersion());
+			})
+			.assertEquals(() -> this.categoryRepository.count("id", category.getId()), 1L);
+	}
+
+	@Test
+	void updateByIdAtVersion(UniAsserter asserter) {
+		var category = createCategories(1).get(0);
+		var patch = new Category();
+		patch.setName(DEFAULT_NAME + " (updated)");
+		patch.setVersion(0L);
+
+		asserter.execute(() -> this.categoryRepository.persist(category).call(this.categoryRepository::flush))
+			.execute(() -> patch.setId(category.getId()))
+			.assertThat(() -> this.categoryRepository.patchById(patch),
+					patched -> assertThat(patched).extracting(Category::getName, Category::getVersion)
+						.containsExactly(DEFAULT_NAME + " (updated)", 1L))
+			.assertFailedWith(() -> this.categoryRepository.replaceById(patch),
+					exc -> assertThat(exc).isInstanceOf(OptimisticLockException.class)
+						.extracting(conflict -> ((OptimisticLockException) conflict).getEntity())
+						.extracting("version")
+						.isEqualTo(1L))
+			.execute(() -> patch.setName(null))
+			.assertFailedWith(() -> this.categoryRepository.patchById(patch), OptimisticLockException.class)
+			.execute(() -> patch.setVersion(1L))
+			.assertThat(() -> this.categoryRepository.patchById(patch),
+					unchanged -> assertThat(unchanged.getVersion()).isEqualTo(1L))
+			.execute(() -> patch.setId(UUID.randomUUID()))
+			.assertNull(() -> this.categoryRepository.patchById(patch));
+	}
+
+	@Test
+	void updateByIdAtChangeVersion(UniAsserter asserter) {
+		var category = createCategories(1).get(0);
+		var patch = new Category();
+		patch.setName(DEFAULT_NAME + " (recreated)");
+		patch.setVersion(0L);
+
+		asserter.execute(() -> this.categoryRepository.persist(category).call(this.categoryRepository::flush))
+			.execute(() -> {
+				patch.setId(category.getId());
+				// The tag of a deleted category that had the same identifier and version
+				patch.setChangeVersion(category.getChangeVersion() - 1);
+			})
+			.assertFailedWith(() -> this.categoryRepository.patchById(patch), OptimisticLockException.class)
+			.execute(() -> patch.setChangeVersion(category.getChangeVersion()))
+			.assertThat(() -> this.categoryRepository.patchById(patch),
+					patched -> assertThat(patched).extracting(Category::getName, Category::getVersion)
+						.containsExactly(DEFAULT_NAME + " (recreated)", 1L));
+	}
+
+	@Test
+	void deleteByIds(UniAsserter asserter) {
+		var categories = createCategories(2);
+		var missingId = UUID.randomUUID();
+
+		asserter.execute(() -> this.categoryRepository.persist(categories.get(0), categories.get(1))
+			.call(this.categoryRepository::flush))
+			.assertThat(
+					() -> this.categoryRepository.deleteByIds(List.of(categories.get(0).getId(), missingId)),
+					deleted -> assertThat(deleted).containsOnlyKeys(categories.get(0).getId())
+						.extractingByKey(categories.get(0).getId())
+						.satisfies(changeVersion -> assertThat(changeVersion)
+							.isGreaterThan(categories.get(0).getChangeVersion())))
+			.assertEquals(() -> this.categoryRepository.count("id", categories.get(1).getId()), 1L);
+	}
+
+	@Test
+	void deleteByIdsOverParameterLimit(UniAsserter asserter) {
+		var categories = createCategories(2);
+		// More than the 65535 parameters PostgreSQL binds to a single statement
+		var ids = new ArrayList<UUID>();
+		IntStream.range(0, 70_000).forEach(i -> ids.add(UUID.randomUUID()));
+
+		asserter.execute(() -> this.categoryRepository.persist(categories.get(0), categories.get(1))
+			.call(this.categoryRepository::flush))
+			.execute(() -> ids.add(categories.get(1).getId()))
+			.assertThat(() -> this.categoryRepository.deleteByIds(ids),
+					deleted -> assertThat(deleted).containsOnlyKeys(categories.get(1).getId()))
+			.assertEquals(() -> this.categoryRepository.count("id", categories.get(0).getId()), 1L);
+	}
+
+	@Test
+	void listChangedAndDeletedSince(UniAsserter asserter) {
+		var categories = createCategories(3);
+		var since = new AtomicLong();
+
+		asserter.execute(this.categoryRepository::deleteAll)
+			.execute(() -> this.categoryRepository.persist(categories.get(0)).call(this.categoryRepository::flush))
+			.execute(() -> since.set(categories.get(0).getChangeVersion()))
+			.execute(() -> this.categoryRepository.persist(categories.get(1), categories.get(2))
+				.call(this.categoryRepository::flush))
+			.execute(() -> {
+				categories.get(1).setName(DEFAULT_NAME + " (updated)");
+				return this.categoryRepository.flush();
+			})
+			.assertEquals(() -> this.categoryRepository.deleteById(categories.get(2).getId()), true)
+			.assertEquals(() -> this.categoryRepository.deleteById(categories.get(2).getId()), false)
+			.assertThat(() -> this.categoryRepository.listChangedSince(since.get(), Long.MAX_VALUE),
+					changed -> assertThat(changed).extracting(Category::getId)
+						.containsExactly(categories.get(1).getId()))
+			.assertThat(() -> this.categoryRepository.listDeletedSince(since.get(), Long.MAX_VALUE),
+					deleted -> assertThat(deleted).extracting(CategoryTombstone::getId)
+						.containsExactly(categories.get(2).getId()))
+			.assertThat(() -> this.categoryRepository.listChangedSince(since.get(), since.get()),
+					changed -> assertThat(changed).isEmpty())
+			.assertThat(() -> this.categoryRepository.listDeletedSince(since.get(), since.get()),
+					deleted -> assertThat(deleted).isEmpty())
+			.assertThat(() -> this.categoryRepository.listDeletedSince(Long.MAX_VALUE, Long.MAX_VALUE),
+					deleted -> assertThat(deleted).isEmpty());
+	}
+
+	@Test
+	void insertAllEmpty(UniAsserter asserter) {
+		asserter.assertEquals(() -> this.categoryRepository.insertAll(List.of(), 2), 0);
+	}
+
+	/**
+	 * Compares {@link CategoryRepository#persist(Iterable)} with
+	 * {@link CategoryRepository#insertAll(List, int)} for {@value #BENCHMARK_ROWS} rows.
+	 * Run it with <code>./mvnw test -Dtest=CategoryRepositoryTests -Dbenchmarks=true</code>.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void insertAllBenchmark(UniAsserter asserter) {
+		var start = new AtomicLong();
+
+		asserter.execute(this.categoryRepository::deleteAll)
+			.execute(() -> start.set(System.nanoTime()))
+			.execute(() -> this.categoryRepository.persist(createCategories(BENCHMARK_ROWS))
+				.call(this.categoryRepository::flush))
+			.execute(() -> Log.infof("persist: %d rows in %d ms", BENCHMARK_ROWS, elapsedMillis(start)))
+			.execute(this.categoryRepository::deleteAll)
+			.execute(() -> start.set(System.nanoTime()))
+			.assertEquals(() -> this.categoryRepository.insertAll(createCategories(BENCHMARK_ROWS), 1000),
+					BENCHMARK_ROWS)
+			.execute(() -> Log.infof("insertAll: %d rows in %d ms", BENCHMARK_ROWS, elapsedMillis(start)));
+	}
+
 	@Test
 	void findAllWhereNameLikeFound(UniAsserter asserter) {
 		// Doing it this way because UniAsserter doesn't work well with ParameterizedTest
@@ -56,6 +372,61 @@ class CategoryRepositoryTests {
 						.isEqualTo(category)));
 	}
 
+	@Test
+	void deleteAllStatementCountDoesNotGrowWithTable(UniAsserter asserter) {
+		// pg_stat_statements is preloaded by the test database, see application.yml
+		asserter.execute(() -> Panache.getSession()
+			.chain(session -> session.createNativeQuery("CREATE EXTENSION IF NOT EXISTS pg_stat_statements")
+				.executeUpdate()));
+
+		// Doing it this way because UniAsserter doesn't work well with ParameterizedTest
+		for (var tableSize : List.of(10, 1_000)) {
+			asserter.execute(this.categoryRepository::deleteAll)
+				.execute(() -> this.categoryRepository.insertAll(createCategories(tableSize), 1000))
+				.execute(() -> Panache.getSession()
+					.chain(session -> session.createNativeQuery("SELECT 1 FROM pg_stat_statements_reset()")
+						.getSingleResult()))
+				.assertThat(this.categoryRepository::deleteAllReturningVersions,
+						deleted -> assertThat(deleted).hasSize(tableSize))
+				.assertEquals(CategoryRepositoryTests::countCategoryStatements, 1L);
+		}
+	}
+
+	@Test
+	void findAllWhereNameLikeUsesTrigramIndex(UniAsserter asserter) {
+		asserter.assertThat(() -> Panache.getSession()
+			.chain(session -> session.createNativeQuery("SET LOCAL enable_seqscan = off")
+				.executeUpdate()
+				.chain(() -> session
+					.createNativeQuery("EXPLAIN SELECT * FROM category WHERE LOWER(name) LIKE '%chocolatine%'",
+							String.class)
+					.getResultList())),
+				plan -> assertThat(String.join("\n", plan)).containsIgnoringCase("category_name_trgm_idx"));
+	}
+
+	@Test
+	void search(UniAsserter asserter) {
+		var inName = new Category();
+		inName.setName("Garden tools");
+		inName.setDescription("Shovels and rakes");
+		var inDescription = new Category();
+		inDescription.setName("Outdoors");
+		inDescription.setDescription("Everything for the garden");
+		var unrelated = new Category();
+		unrelated.setName(DEFAULT_NAME);
+		unrelated.setDescription(DEFAULT_DESCRIPTION);
+
+		asserter.execute(this.categoryRepository::deleteAll)
+			.execute(() -> this.categoryRepository.persist(inDescription, unrelated, inName)
+				.call(this.categoryRepository::flush))
+			.assertThat(() -> this.categoryRepository.search("gardens", 10, 0),
+					found -> assertThat(found).extracting(Category::getName).containsExactly("Garden tools", "Outdoors"))
+			.assertThat(() -> this.categoryRepository.search("gardens", 10, 1),
+					found -> assertThat(found).extracting(Category::getName).containsExactly("Outdoors"))
+			.assertThat(() -> this.categoryRepository.search("garden -rakes", 10, 0),
+					found -> assertThat(found).extracting(Category::getName).containsExactly("Outdoors"));
+	}
+
 	@Test
 	void findAllWhereNameLikeNotFound(UniAsserter asserter) {
 		// Doing it this way because UniAsserter doesn't work well with ParameterizedTest
@@ -75,4 +446,29 @@ class CategoryRepositoryTests {
 					categories -> assertThat(categories).isNotNull().isEmpty()));
 	}
 
+	/**
+	 * @return The number of statements that ran against the categories since
+	 * <code>pg_stat_statements</code> was last reset
+	 */
+	private static Uni<Long> countCategoryStatements() {
+		return Panache.getSession()
+			.chain(session -> session.createNativeQuery("""
+					SELECT CAST(COALESCE(SUM(calls), 0) AS bigint) FROM pg_stat_statements
+					WHERE query ILIKE '%category%' AND query NOT ILIKE '%pg_stat_statements%'
+					""", Long.class).getSingleResult());
+	}
+
+	private static List<Category> createCategories(int count) {
+		return IntStream.range(0, count).mapToObj(i -> {
+			var category = new Category();
+			category.setName(DEFAULT_NAME + " " + i);
+			category.setDescription(DEFAULT_DESCRIPTION);
+			return category;
+		}).toList();
+	}
+
+	private static long elapsedMillis(AtomicLong start) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start.get());
+	}
+
 }
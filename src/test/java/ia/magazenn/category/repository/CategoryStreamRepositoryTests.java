@@ -0,0 +1,45 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.repository;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+import java.time.Duration;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import ia.magazenn.category.Category;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+class CategoryStreamRepositoryTests {
+
+	private static final int NB_CATEGORIES = 16;
+
+	@Inject
+	CategoryStreamRepository categoryStreamRepository;
+
+	@Test
+	void streamAllInSeveralFetches() {
+		var categories = this.categoryStreamRepository.streamAll(5)
+			.collect()
+			.asList()
+			.await()
+			.atMost(Duration.ofSeconds(10));
+
+		assertThat(categories).hasSize(NB_CATEGORIES)
+			.allSatisfy(category -> assertThat(category.getId()).isNotNull())
+			.extracting(Category::getName)
+			.contains("Vehicles", "General")
+			.doesNotHaveDuplicates();
+	}
+
+}
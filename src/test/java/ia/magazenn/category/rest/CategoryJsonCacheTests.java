@@ -0,0 +1,175 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.rest;
+
+import io.quarkus.logging.Log;
+import io.quarkus.test.junit.QuarkusTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ia.magazenn.category.Category;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+class CategoryJsonCacheTests {
+
+	private static final String DEFAULT_NAME = "Super Chocolatine";
+
+	private static final String DEFAULT_DESCRIPTION = "Super Chocolatine chocolate in";
+
+	private static final int BENCHMARK_CATEGORIES = 1000;
+
+	private static final int BENCHMARK_REQUESTS = 10_000;
+
+	@Inject
+	CategoryJsonCache categoryJsonCache;
+
+	@Inject
+	ObjectMapper objectMapper;
+
+	@BeforeEach
+	void invalidateCache() {
+		this.categoryJsonCache.invalidate();
+	}
+
+	@Test
+	void allCategoriesRenderedOncePerVersion() throws Exception {
+		var categories = List.of(createCategory(DEFAULT_NAME), createCategory("Chocolatine"));
+
+		var json = this.categoryJsonCache.allCategories(1, categories).json();
+
+		assertThat(json).isEqualTo(this.objectMapper.writeValueAsBytes(categories));
+		assertThat(this.categoryJsonCache.allCategories(1, categories).json()).isSameAs(json);
+		assertThat(this.categoryJsonCache.allCategories(2, categories).json()).isNotSameAs(json).isEqualTo(json);
+	}
+
+	@Test
+	void allCategoriesRenderedAgainWhenChanged() throws Exception {
+		var categories = List.of(createCategory(DEFAULT_NAME));
+		var changed = List.of(createCategory(DEFAULT_NAME), createCategory("Chocolatine"));
+
+		this.categoryJsonCache.allCategories(1, categories);
+
+		assertThat(this.categoryJsonCache.allCategories(1, changed).json())
+			.isEqualTo(this.objectMapper.writeValueAsBytes(changed));
+	}
+
+	@Test
+	void categoryRenderedOncePerVersion() throws Exception {
+		var category = createCategory(DEFAULT_NAME);
+
+		var json = this.categoryJsonCache.category(1, category).json();
+
+		assertThat(json).isEqualTo(this.objectMapper.writeValueAsBytes(category));
+		assertThat(this.categoryJsonCache.category(1, copy(category)).json()).isSameAs(json);
+		assertThat(this.categoryJsonCache.category(2, category).json()).isNotSameAs(json).isEqualTo(json);
+	}
+
+	@Test
+	void categoryRenderedAgainWhenChanged() throws Exception {
+		var category = createCategory(DEFAULT_NAME);
+		var changed = copy(category);
+		changed.setName(DEFAULT_NAME + " (updated)");
+
+		this.categoryJsonCache.category(1, category);
+
+		assertThat(this.categoryJsonCache.category(1, changed).json())
+			.isEqualTo(this.objectMapper.writeValueAsBytes(changed));
+	}
+
+	@Test
+	void allCategoriesEncodedOnce() throws Exception {
+		var categories = List.of(createCategory(DEFAULT_NAME), createCategory("Chocolatine"));
+		var rendering = this.categoryJsonCache.allCategories(1, categories);
+
+		var gzip = rendering.encoded(ContentEncoding.GZIP).await().indefinitely();
+
+		assertThat(rendering.encoded(null).await().indefinitely()).isSameAs(rendering.json());
+		assertThat(rendering.encoded(ContentEncoding.GZIP).await().indefinitely()).isSameAs(gzip);
+		assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip)).readAllBytes()).isEqualTo(rendering.json());
+	}
+
+	/**
+	 * Compares the bytes allocated to serialize {@value #BENCHMARK_CATEGORIES} categories,
+	 * and a single one as read by id or at random, with Jackson and to take them from the
+	 * {@link CategoryJsonCache}. Run it with
+	 * <code>./mvnw test -Dtest=CategoryJsonCacheTests -Dbenchmarks=true</code>.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void allocationBenchmark() {
+		var categories = IntStream.range(0, BENCHMARK_CATEGORIES).mapToObj(i -> createCategory("Category " + i)).toList();
+		var category = categories.get(0);
+
+		Log.infof("Jackson: %d bytes allocated per request for all the categories",
+				allocatedBytesPerCall(() -> serialize(categories)));
+		Log.infof("CategoryJsonCache: %d bytes allocated per request for all the categories",
+				allocatedBytesPerCall(() -> this.categoryJsonCache.allCategories(1, categories).json()));
+		Log.infof("Jackson: %d bytes allocated per request for a category",
+				allocatedBytesPerCall(() -> serialize(category)));
+		Log.infof("CategoryJsonCache: %d bytes allocated per request for a category",
+				allocatedBytesPerCall(() -> this.categoryJsonCache.category(1, category).json()));
+	}
+
+	private byte[] serialize(Object value) {
+		try {
+			return this.objectMapper.writeValueAsBytes(value);
+		}
+		catch (JsonProcessingException exc) {
+			throw new UncheckedIOException(exc);
+		}
+	}
+
+	private static long allocatedBytesPerCall(Supplier<?> call) {
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		// Warm up, which also fills the cache
+		IntStream.range(0, BENCHMARK_REQUESTS).forEach(i -> call.get());
+
+		var before = threads.getCurrentThreadAllocatedBytes();
+		IntStream.range(0, BENCHMARK_REQUESTS).forEach(i -> call.get());
+
+		return (threads.getCurrentThreadAllocatedBytes() - before) / BENCHMARK_REQUESTS;
+	}
+
+	private static Category createCategory(String name) {
+		var category = new Category();
+		category.setId(UUID.randomUUID());
+		category.setName(name);
+		category.setDescription(DEFAULT_DESCRIPTION);
+
+		return category;
+	}
+
+	private static Category copy(Category category) {
+		var copy = new Category();
+		copy.setId(category.getId());
+		copy.setName(category.getName());
+		copy.setDescription(category.getDescription());
+
+		return copy;
+	}
+
+}
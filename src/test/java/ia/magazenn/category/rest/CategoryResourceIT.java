@@ -161,7 +161,7 @@ class CategoryResourceIT {
 			.contentType(JSON)
 			.accept(JSON)
 			.body(category)
-			.put("/api/categories/{id}", UUID.randomUUID())
+			.put("/api/categories/{id}", category.getId())
 			.then()
 			.statusCode(NOT_FOUND.getStatusCode());
 	}
@@ -347,6 +347,40 @@ class CategoryResourceIT {
 			.body("size()", is(NB_CATEGORIES + 1));
 	}
 
+	@Test
+	@Order(DEFAULT_ORDER + 4)
+	void shouldNotUpdateModifiedItem() {
+		var eTag = get("/api/categories/{id}", categoryId).then()
+			.statusCode(OK.getStatusCode())
+			.extract()
+			.header(HttpHeaders.ETAG);
+
+		var category = new Category();
+		category.setName(UPDATED_NAME);
+
+		var newETag = given().when()
+			.header(HttpHeaders.IF_MATCH, eTag)
+			.body(category)
+			.contentType(JSON)
+			.accept(JSON)
+			.patch("/api/categories/{id}", categoryId)
+			.then()
+			.statusCode(OK.getStatusCode())
+			.header(HttpHeaders.ETAG, not(is(eTag)))
+			.extract()
+			.header(HttpHeaders.ETAG);
+
+		given().when()
+			.header(HttpHeaders.IF_MATCH, eTag)
+			.body(category)
+			.contentType(JSON)
+			.accept(JSON)
+			.put("/api/categories/{id}", categoryId)
+			.then()
+			.statusCode(PRECONDITION_FAILED.getStatusCode())
+			.header(HttpHeaders.ETAG, is(newETag));
+	}
+
 	@Test
 	@Order(DEFAULT_ORDER + 5)
 	void shouldDeleteCategory() {
@@ -403,7 +437,9 @@ class CategoryResourceIT {
 			.put("/api/categories")
 			.then()
 			.statusCode(CREATED.getStatusCode())
-			.header(HttpHeaders.LOCATION, endsWith("/api/categories"));
+			.header(HttpHeaders.LOCATION, endsWith("/api/categories"))
+			.body("inserted", is(2))
+			.body("deleted", is(1));
 
 		var categories = get("/api/categories").then()
 			.statusCode(OK.getStatusCode())
@@ -10,6 +10,7 @@ package ia.magazenn.category.rest;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.RestAssured;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 
 import java.util.List;
@@ -17,21 +18,42 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.ws.rs.core.HttpHeaders;
 
 import org.hamcrest.Matchers;
+import org.jboss.resteasy.reactive.RestMediaType;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentMatcher;
 
 import ia.magazenn.category.Category;
+import ia.magazenn.category.cache.CategoryFeedEvent;
+import ia.magazenn.category.service.CategoryBatchResult;
+import ia.magazenn.category.service.CategoryChange;
+import ia.magazenn.category.service.CategoryCursor;
+import ia.magazenn.category.service.CategoryDelta;
+import ia.magazenn.category.service.CategoryImportSummary;
+import ia.magazenn.category.service.CategoryLookup;
+import ia.magazenn.category.service.CategoryOperation;
+import ia.magazenn.category.service.CategoryOperationResult;
+import ia.magazenn.category.service.CategoryPage;
+import ia.magazenn.category.service.CategoryReplaceSummary;
 import ia.magazenn.category.service.CategoryService;
+import ia.magazenn.category.service.CategoryUpsert;
 
 import static io.restassured.RestAssured.*;
 import static io.restassured.http.ContentType.JSON;
+import static jakarta.ws.rs.core.MediaType.SERVER_SENT_EVENTS;
 import static jakarta.ws.rs.core.Response.Status.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.atIndex;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
@@ -50,9 +72,16 @@ public class CategoryResourceTests {
 
 	private static final UUID DEFAULT_ID = UUID.randomUUID();
 
+	private static final long DEFAULT_VERSION = 3;
+
+	private static final long DEFAULT_CHANGE_VERSION = 17;
+
 	@InjectMock
 	CategoryService categoryService;
 
+	@Inject
+	Event<CategoryChange> categoryChangeEvent;
+
 	@BeforeAll
 	static void beforeAll() {
 		RestAssured.enableLoggingOfRequestAndResponseIfValidationFails();
@@ -220,6 +249,127 @@ public class CategoryResourceTests {
 		verifyNoMoreInteractions(this.categoryService);
 	}
 
+	@Test
+	void shouldNotGetUnmodifiedItems() {
+		when(this.categoryService.findAllCategories()).thenReturn(Uni.createFrom().item(List.of(createDefaultCategory())));
+
+		var eTag = get("/api/categories").then()
+			.statusCode(OK.getStatusCode())
+			.header(HttpHeaders.CACHE_CONTROL, is("no-cache"))
+			.header(HttpHeaders.ETAG, notNullValue())
+			.extract()
+			.header(HttpHeaders.ETAG);
+
+		given().header(HttpHeaders.IF_NONE_MATCH, eTag)
+			.get("/api/categories")
+			.then()
+			.statusCode(NOT_MODIFIED.getStatusCode())
+			.header(HttpHeaders.ETAG, is(eTag))
+			.body(blankOrNullString());
+
+		verify(this.categoryService).findAllCategories();
+		verifyNoMoreInteractions(this.categoryService);
+
+		// Deleting an unknown category bumps the version without changing the other caches
+		this.categoryChangeEvent.fire(CategoryChange.deleted(Map.of(UUID.randomUUID(), 1L)));
+
+		given().header(HttpHeaders.IF_NONE_MATCH, eTag)
+			.get("/api/categories")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.header(HttpHeaders.ETAG, not(is(eTag)));
+	}
+
+	@Test
+	void shouldTagItemWithChangeVersion() {
+		var category = createDefaultCategory();
+		category.setChangeVersion(DEFAULT_CHANGE_VERSION);
+
+		when(this.categoryService.findCategoryById(DEFAULT_ID)).thenReturn(Uni.createFrom().item(category));
+
+		get("/api/categories/{id}", DEFAULT_ID).then()
+			.statusCode(OK.getStatusCode())
+			.header(HttpHeaders.ETAG, is("\"" + DEFAULT_VERSION + "-" + DEFAULT_CHANGE_VERSION + "\""));
+
+		// Deleted and created again, so back to version 0
+		category.setVersion(0L);
+		category.setChangeVersion(DEFAULT_CHANGE_VERSION + 2);
+
+		given().header(HttpHeaders.IF_NONE_MATCH, "\"0-" + DEFAULT_CHANGE_VERSION + "\"")
+			.get("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(OK.getStatusCode())
+			.header(HttpHeaders.ETAG, is("\"0-" + (DEFAULT_CHANGE_VERSION + 2) + "\""));
+
+		verify(this.categoryService, times(2)).findCategoryById(DEFAULT_ID);
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotGetUnmodifiedItem() {
+		when(this.categoryService.findCategoryById(DEFAULT_ID))
+			.thenReturn(Uni.createFrom().item(createDefaultCategory()));
+
+		var eTag = get("/api/categories/{id}", DEFAULT_ID).then()
+			.statusCode(OK.getStatusCode())
+			.header(HttpHeaders.ETAG, is("\"" + DEFAULT_VERSION + "\""))
+			.extract()
+			.header(HttpHeaders.ETAG);
+
+		given().header(HttpHeaders.IF_NONE_MATCH, eTag)
+			.get("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(NOT_MODIFIED.getStatusCode())
+			.header(HttpHeaders.ETAG, is(eTag));
+
+		verify(this.categoryService, times(2)).findCategoryById(DEFAULT_ID);
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldGetCompressedItems() {
+		when(this.categoryService.findAllCategories())
+			.thenReturn(Uni.createFrom().item(List.of(createDefaultCategory())));
+
+		var categories = given().header(HttpHeaders.ACCEPT_ENCODING, "br;q=0, gzip")
+			.get("/api/categories")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.header(HttpHeaders.CONTENT_ENCODING, is("gzip"))
+			.header(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING))
+			.header(HttpHeaders.ETAG, endsWith("-json-gzip\""))
+			.extract()
+			.body()
+			.jsonPath()
+			.getList(".", Category.class);
+
+		assertThat(categories).singleElement()
+			.extracting(Category::getId, Category::getName, Category::getDescription)
+			.containsExactly(DEFAULT_ID, DEFAULT_NAME, DEFAULT_DESCRIPTION);
+
+		verify(this.categoryService).findAllCategories();
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldGetUncompressedItems() {
+		when(this.categoryService.findAllCategories())
+			.thenReturn(Uni.createFrom().item(List.of(createDefaultCategory())));
+
+		given().header(HttpHeaders.ACCEPT_ENCODING, "identity")
+			.get("/api/categories")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.header(HttpHeaders.CONTENT_ENCODING, nullValue())
+			.header(HttpHeaders.ETAG, endsWith("-json\""))
+			.body("$.size()", is(1));
+
+		verify(this.categoryService).findAllCategories();
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
 	@Test
 	void shouldGetEmptyItems() {
 		when(this.categoryService.findAllCategories()).thenReturn(Uni.createFrom().item(List.of()));
@@ -230,6 +380,278 @@ public class CategoryResourceTests {
 		verifyNoMoreInteractions(this.categoryService);
 	}
 
+	@Test
+	void shouldGetFirstPageOfItems() {
+		var next = CategoryCursor.after(createDefaultCategory());
+
+		when(this.categoryService.findCategoriesPage(isNull(), eq(1)))
+			.thenReturn(Uni.createFrom().item(new CategoryPage(List.of(createDefaultCategory()), next)));
+
+		var categories = given().when()
+			.queryParam("limit", 1)
+			.get("/api/categories")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.header("Link", allOf(containsString("cursor=" + next.encode()), containsString("limit=1"),
+					containsString("rel=\"next\"")))
+			.extract()
+			.body()
+			.jsonPath()
+			.getList(".", Category.class);
+
+		assertThat(categories).singleElement()
+			.extracting(Category::getId, Category::getName, Category::getDescription)
+			.containsExactly(DEFAULT_ID, DEFAULT_NAME, DEFAULT_DESCRIPTION);
+
+		verify(this.categoryService).findCategoriesPage(isNull(), eq(1));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldGetLastPageOfItems() {
+		var cursor = CategoryCursor.after(createDefaultCategory());
+
+		when(this.categoryService.findCategoriesPage(eq(cursor), eq(CategoryResource.DEFAULT_PAGE_SIZE)))
+			.thenReturn(Uni.createFrom().item(new CategoryPage(List.of(), null)));
+
+		given().when()
+			.queryParam("cursor", cursor.encode())
+			.get("/api/categories")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.header("Link", nullValue())
+			.body("$.size()", is(0));
+
+		verify(this.categoryService).findCategoriesPage(eq(cursor), eq(CategoryResource.DEFAULT_PAGE_SIZE));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldGetItemsChangedSince() {
+		var deletedId = UUID.randomUUID();
+
+		when(this.categoryService.findCategoriesChangedSince(42))
+			.thenReturn(Uni.createFrom().item(new CategoryDelta(45, List.of(createDefaultCategory()), List.of(deletedId))));
+
+		given().when()
+			.queryParam("since", 42)
+			.get("/api/categories")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.header(HttpHeaders.ETAG, nullValue())
+			.body("version", is(45))
+			.body("changed.id", contains(DEFAULT_ID.toString()))
+			.body("changed.name", contains(DEFAULT_NAME))
+			.body("deleted", contains(deletedId.toString()));
+
+		verify(this.categoryService).findCategoriesChangedSince(42);
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotGetItemsChangedSinceWithOtherParameters() {
+		given().when()
+			.queryParam("since", 42)
+			.queryParam("limit", 10)
+			.get("/api/categories")
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		given().when()
+			.queryParam("since", -1)
+			.get("/api/categories")
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotGetPageWithInvalidCursor() {
+		given().when()
+			.queryParam("cursor", "not a cursor")
+			.get("/api/categories")
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotGetPageWithInvalidLimit() {
+		given().when()
+			.queryParam("limit", CategoryResource.MAX_PAGE_SIZE + 1)
+			.get("/api/categories")
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldSearchItems() {
+		when(this.categoryService.searchCategories("chocolate", 10, 20))
+			.thenReturn(Uni.createFrom().item(List.of(createDefaultCategory())));
+
+		get("/api/categories/search?q=chocolate&limit=10&offset=20").then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.body("$.size()", is(1))
+			.body("[0].name", is(DEFAULT_NAME));
+
+		verify(this.categoryService).searchCategories("chocolate", 10, 20);
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotSearchItemsWithoutText() {
+		get("/api/categories/search").then().statusCode(BAD_REQUEST.getStatusCode());
+		get("/api/categories/search?q=chocolate&offset=-1").then().statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldSuggestItems() {
+		var categories = List.of(createDefaultCategory());
+		when(this.categoryService.suggestCategories("sup", CategoryResource.DEFAULT_SUGGEST_LIMIT))
+			.thenReturn(Uni.createFrom().item(categories));
+
+		get("/api/categories/suggest?prefix=sup").then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.body("$.size()", is(1))
+			.body("[0].name", is(DEFAULT_NAME));
+
+		verify(this.categoryService).suggestCategories("sup", CategoryResource.DEFAULT_SUGGEST_LIMIT);
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotSuggestItemsWithoutPrefix() {
+		get("/api/categories/suggest?limit=5").then().statusCode(BAD_REQUEST.getStatusCode());
+		get("/api/categories/suggest?prefix=sup&limit=0").then().statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldExportItems() {
+		when(this.categoryService.streamAllCategories())
+			.thenReturn(Multi.createFrom().items(createDefaultCategory(), createFullyUpdatedCategory()));
+
+		var categories = given().when()
+			.accept(JSON)
+			.get("/api/categories/export")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.extract()
+			.body()
+			.jsonPath()
+			.getList(".", Category.class);
+
+		assertThat(categories).extracting(Category::getId, Category::getName, Category::getDescription)
+			.containsExactly(tuple(DEFAULT_ID, DEFAULT_NAME, DEFAULT_DESCRIPTION),
+					tuple(DEFAULT_ID, UPDATED_NAME, UPDATED_DESCRIPTION));
+
+		verify(this.categoryService).streamAllCategories();
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldExportItemsAsNdjson() {
+		when(this.categoryService.streamAllCategories())
+			.thenReturn(Multi.createFrom().items(createDefaultCategory(), createFullyUpdatedCategory()));
+
+		var lines = given().when()
+			.accept(RestMediaType.APPLICATION_NDJSON)
+			.get("/api/categories/export")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(RestMediaType.APPLICATION_NDJSON)
+			.extract()
+			.asString()
+			.lines()
+			.filter(line -> !line.isBlank())
+			.toList();
+
+		assertThat(lines).hasSize(2)
+			.satisfies(line -> assertThat(line).contains(DEFAULT_NAME).doesNotContain(UPDATED_NAME), atIndex(0))
+			.satisfies(line -> assertThat(line).contains(UPDATED_NAME), atIndex(1));
+
+		verify(this.categoryService).streamAllCategories();
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldStreamChanges() {
+		when(this.categoryService.streamChanges("42-1-cafe0123")).thenReturn(Multi.createFrom()
+			.items(new CategoryFeedEvent("43-1-cafe0123", CategoryFeedEvent.UPDATED, createFullyUpdatedCategory()),
+					new CategoryFeedEvent("43-2-cafe0123", CategoryFeedEvent.DELETED, Map.of("id", DEFAULT_ID))));
+
+		var lines = given().when()
+			.accept(SERVER_SENT_EVENTS)
+			.header(HttpHeaders.LAST_EVENT_ID_HEADER, "42-1-cafe0123")
+			.get("/api/categories/changes")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(containsString(SERVER_SENT_EVENTS))
+			.extract()
+			.asString()
+			.lines()
+			.filter(line -> !line.isBlank())
+			.toList();
+
+		assertThat(lines).containsSubsequence("id:43-1-cafe0123", "event:updated")
+			.containsSubsequence("id:43-2-cafe0123", "event:deleted", "data:{\"id\":\"" + DEFAULT_ID + "\"}")
+			.anySatisfy(line -> assertThat(line).startsWith("data:").contains(UPDATED_NAME));
+
+		verify(this.categoryService).streamChanges("42-1-cafe0123");
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldGetItemsByIds() {
+		var category = createDefaultCategory();
+		var missingId = UUID.randomUUID();
+		var ids = List.of(missingId, DEFAULT_ID);
+
+		when(this.categoryService.findCategoriesByIds(ids)).thenReturn(Uni.createFrom()
+			.item(List.of(new CategoryLookup(missingId, false, null), new CategoryLookup(DEFAULT_ID, true, category))));
+
+		given().when()
+			.body(ids)
+			.contentType(JSON)
+			.accept(JSON)
+			.post("/api/categories/_mget")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.body("id", contains(missingId.toString(), DEFAULT_ID.toString()))
+			.body("found", contains(false, true))
+			.body("[0].category", nullValue())
+			.body("[1].category.name", is(DEFAULT_NAME));
+
+		verify(this.categoryService).findCategoriesByIds(ids);
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotGetItemsByInvalidIds() {
+		given().when()
+			.body("[\"not-a-uuid\"]")
+			.contentType(JSON)
+			.accept(JSON)
+			.post("/api/categories/_mget")
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
 	@Test
 	void shouldGetItemsWithNameFilter() {
 		when(this.categoryService.findAllCategoriesHavingName("name"))
@@ -254,6 +676,21 @@ public class CategoryResourceTests {
 		verifyNoMoreInteractions(this.categoryService);
 	}
 
+	@Test
+	void shouldGetItemsWithFuzzyNameFilter() {
+		when(this.categoryService.findAllCategoriesHavingSimilarName("Chocolatnie"))
+			.thenReturn(Uni.createFrom().item(List.of(createDefaultCategory())));
+
+		get("/api/categories?name_filter=Chocolatnie&fuzzy=1").then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.body("$.size()", is(1))
+			.body("[0].name", is(DEFAULT_NAME));
+
+		verify(this.categoryService).findAllCategoriesHavingSimilarName("Chocolatnie");
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
 	@Test
 	void shouldGetEmptyItemsWithNameFilter() {
 		when(this.categoryService.findAllCategoriesHavingName("name")).thenReturn(Uni.createFrom().item(List.of()));
@@ -341,12 +778,234 @@ public class CategoryResourceTests {
 			.put("/api/categories/{id}", category.getId())
 			.then()
 			.statusCode(NO_CONTENT.getStatusCode())
+			.header(HttpHeaders.ETAG, is("\"" + DEFAULT_VERSION + "\""))
 			.body(blankOrNullString());
 
 		verify(this.categoryService).replaceCategory(argThat(categoryMatcher));
 		verifyNoMoreInteractions(this.categoryService);
 	}
 
+	@Test
+	void shouldFullyUpdateAnItemAtVersion() {
+		var category = createFullyUpdatedCategory();
+		category.setVersion(DEFAULT_VERSION + 1);
+		ArgumentMatcher<Category> categoryMatcher = h -> (h.getId().equals(DEFAULT_ID)
+				&& h.getName().equals(UPDATED_NAME) && Long.valueOf(DEFAULT_VERSION).equals(h.getVersion()));
+
+		when(this.categoryService.replaceCategory(argThat(categoryMatcher)))
+			.thenReturn(Uni.createFrom().item(category));
+
+		given().when()
+			.header(HttpHeaders.IF_MATCH, "\"" + DEFAULT_VERSION + "\"")
+			.body(category)
+			.contentType(JSON)
+			.accept(JSON)
+			.put("/api/categories/{id}", category.getId())
+			.then()
+			.statusCode(NO_CONTENT.getStatusCode())
+			.header(HttpHeaders.ETAG, is("\"" + (DEFAULT_VERSION + 1) + "\""));
+
+		verify(this.categoryService).replaceCategory(argThat(categoryMatcher));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldFullyUpdateAnItemAtChangeVersion() {
+		var category = createFullyUpdatedCategory();
+		category.setVersion(DEFAULT_VERSION + 1);
+		category.setChangeVersion(DEFAULT_CHANGE_VERSION + 1);
+		ArgumentMatcher<Category> categoryMatcher = h -> (h.getId().equals(DEFAULT_ID)
+				&& Long.valueOf(DEFAULT_VERSION).equals(h.getVersion())
+				&& Long.valueOf(DEFAULT_CHANGE_VERSION).equals(h.getChangeVersion()));
+
+		when(this.categoryService.replaceCategory(argThat(categoryMatcher)))
+			.thenReturn(Uni.createFrom().item(category));
+
+		given().when()
+			.header(HttpHeaders.IF_MATCH, "\"" + DEFAULT_VERSION + "-" + DEFAULT_CHANGE_VERSION + "\"")
+			.body(category)
+			.contentType(JSON)
+			.accept(JSON)
+			.put("/api/categories/{id}", category.getId())
+			.then()
+			.statusCode(NO_CONTENT.getStatusCode())
+			.header(HttpHeaders.ETAG, is("\"" + (DEFAULT_VERSION + 1) + "-" + (DEFAULT_CHANGE_VERSION + 1) + "\""));
+
+		verify(this.categoryService).replaceCategory(argThat(categoryMatcher));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotFullyUpdateWithMalformedIfMatch() {
+		given().when()
+			.header(HttpHeaders.IF_MATCH, "\"" + DEFAULT_VERSION + "-" + DEFAULT_CHANGE_VERSION + "-1\"")
+			.body(createFullyUpdatedCategory())
+			.contentType(JSON)
+			.accept(JSON)
+			.put("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(PRECONDITION_FAILED.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotFullyUpdateModifiedItem() {
+		var current = createDefaultCategory();
+		current.setVersion(DEFAULT_VERSION + 1);
+		ArgumentMatcher<Category> categoryMatcher = h -> (h.getId().equals(DEFAULT_ID)
+				&& Long.valueOf(DEFAULT_VERSION).equals(h.getVersion()));
+
+		when(this.categoryService.replaceCategory(argThat(categoryMatcher)))
+			.thenReturn(Uni.createFrom().failure(new OptimisticLockException("Modified", null, current)));
+
+		given().when()
+			.header(HttpHeaders.IF_MATCH, "\"" + DEFAULT_VERSION + "\"")
+			.body(createFullyUpdatedCategory())
+			.contentType(JSON)
+			.accept(JSON)
+			.put("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(PRECONDITION_FAILED.getStatusCode())
+			.header(HttpHeaders.ETAG, is("\"" + (DEFAULT_VERSION + 1) + "\""));
+
+		verify(this.categoryService).replaceCategory(argThat(categoryMatcher));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldUpsertNewItem() {
+		var created = createFullyUpdatedCategory();
+		created.setVersion(0L);
+		ArgumentMatcher<Category> categoryMatcher = h -> (h.getId().equals(DEFAULT_ID)
+				&& h.getName().equals(UPDATED_NAME) && (h.getVersion() == null));
+
+		when(this.categoryService.upsertCategory(argThat(categoryMatcher)))
+			.thenReturn(Uni.createFrom().item(new CategoryUpsert(created, true)));
+
+		given().when()
+			.body(createFullyUpdatedCategory())
+			.contentType(JSON)
+			.accept(JSON)
+			.queryParam("upsert", true)
+			.put("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(CREATED.getStatusCode())
+			.header(HttpHeaders.LOCATION, endsWith("/api/categories/" + DEFAULT_ID))
+			.header(HttpHeaders.ETAG, is("\"0\""));
+
+		verify(this.categoryService).upsertCategory(argThat(categoryMatcher));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldUpsertExistingItem() {
+		var updated = createFullyUpdatedCategory();
+		updated.setVersion(DEFAULT_VERSION + 1);
+
+		when(this.categoryService.upsertCategory(any(Category.class)))
+			.thenReturn(Uni.createFrom().item(new CategoryUpsert(updated, false)));
+
+		given().when()
+			.body(createFullyUpdatedCategory())
+			.contentType(JSON)
+			.accept(JSON)
+			.queryParam("upsert", true)
+			.put("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(NO_CONTENT.getStatusCode())
+			.header(HttpHeaders.LOCATION, nullValue())
+			.header(HttpHeaders.ETAG, is("\"" + (DEFAULT_VERSION + 1) + "\""));
+
+		verify(this.categoryService).upsertCategory(any(Category.class));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "\"" + DEFAULT_VERSION + "\"", "*" })
+	void shouldNotUpsertWithIfMatch(String ifMatch) {
+		when(this.categoryService.replaceCategory(any(Category.class))).thenReturn(Uni.createFrom().nullItem());
+
+		given().when()
+			.header(HttpHeaders.IF_MATCH, ifMatch)
+			.body(createFullyUpdatedCategory())
+			.contentType(JSON)
+			.accept(JSON)
+			.queryParam("upsert", true)
+			.put("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(PRECONDITION_FAILED.getStatusCode());
+
+		verify(this.categoryService).replaceCategory(any(Category.class));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldUpsertExistingItemWithIfMatchAny() {
+		var updated = createFullyUpdatedCategory();
+		updated.setVersion(DEFAULT_VERSION + 1);
+		ArgumentMatcher<Category> categoryMatcher = h -> (h.getId().equals(DEFAULT_ID) && (h.getVersion() == null));
+
+		when(this.categoryService.replaceCategory(argThat(categoryMatcher)))
+			.thenReturn(Uni.createFrom().item(updated));
+
+		given().when()
+			.header(HttpHeaders.IF_MATCH, "*")
+			.body(createFullyUpdatedCategory())
+			.contentType(JSON)
+			.accept(JSON)
+			.queryParam("upsert", true)
+			.put("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(NO_CONTENT.getStatusCode())
+			.header(HttpHeaders.ETAG, is("\"" + (DEFAULT_VERSION + 1) + "\""));
+
+		verify(this.categoryService).replaceCategory(argThat(categoryMatcher));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void shouldNotFullyUpdateItemWithOtherId(boolean upsert) {
+		given().when()
+			.body(createFullyUpdatedCategory())
+			.contentType(JSON)
+			.accept(JSON)
+			.queryParam("upsert", upsert)
+			.put("/api/categories/{id}", UUID.randomUUID())
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotPartiallyUpdateItemWithOtherId() {
+		given().when()
+			.body(createPartiallyUpdatedCategory())
+			.contentType(JSON)
+			.accept(JSON)
+			.patch("/api/categories/{id}", UUID.randomUUID())
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotFullyUpdateWithWeakIfMatch() {
+		given().when()
+			.header(HttpHeaders.IF_MATCH, "W/\"" + DEFAULT_VERSION + "\"")
+			.body(createFullyUpdatedCategory())
+			.contentType(JSON)
+			.accept(JSON)
+			.put("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(PRECONDITION_FAILED.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
 	@Test
 	void shouldNotPartiallyUpdateNotFoundItem() {
 		ArgumentMatcher<Category> categoryMatcher = h -> (h.getId().equals(DEFAULT_ID) && (h.getName() == null)
@@ -388,6 +1047,7 @@ public class CategoryResourceTests {
 			.then()
 			.statusCode(OK.getStatusCode())
 			.contentType(JSON)
+			.header(HttpHeaders.ETAG, is("\"" + DEFAULT_VERSION + "\""))
 			.extract()
 			.as(Category.class);
 
@@ -399,6 +1059,83 @@ public class CategoryResourceTests {
 		verifyNoMoreInteractions(this.categoryService);
 	}
 
+	@Test
+	void shouldNotPartiallyUpdateModifiedItem() {
+		var current = createDefaultCategory();
+		current.setVersion(DEFAULT_VERSION + 1);
+		ArgumentMatcher<Category> categoryMatcher = h -> (h.getId().equals(DEFAULT_ID)
+				&& UPDATED_NAME.equals(h.getName()) && Long.valueOf(DEFAULT_VERSION).equals(h.getVersion()));
+
+		var partialCategory = new Category();
+		partialCategory.setName(UPDATED_NAME);
+
+		when(this.categoryService.partialUpdateCategory(argThat(categoryMatcher)))
+			.thenReturn(Uni.createFrom().failure(new OptimisticLockException("Modified", null, current)));
+
+		given().when()
+			.header(HttpHeaders.IF_MATCH, "\"" + DEFAULT_VERSION + "\"")
+			.body(partialCategory)
+			.contentType(JSON)
+			.accept(JSON)
+			.patch("/api/categories/{id}", DEFAULT_ID)
+			.then()
+			.statusCode(PRECONDITION_FAILED.getStatusCode())
+			.header(HttpHeaders.ETAG, is("\"" + (DEFAULT_VERSION + 1) + "\""))
+			.body(blankOrNullString());
+
+		verify(this.categoryService).partialUpdateCategory(argThat(categoryMatcher));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldApplyBatch() {
+		var deletedId = UUID.randomUUID();
+		var result = new CategoryBatchResult(true,
+				List.of(new CategoryOperationResult(DEFAULT_ID, 201, createDefaultCategory(), null),
+						new CategoryOperationResult(deletedId, 404, null, "No category found")));
+
+		when(this.categoryService.applyBatch(argThat(batch -> batch.atomic() && (batch.operations().size() == 2))))
+			.thenReturn(Uni.createFrom().item(result));
+
+		given().when()
+			.body("""
+					{
+						"atomic": true,
+						"operations": [
+							{"op": "create", "category": {"name": "%s"}},
+							{"op": "delete", "id": "%s"}
+						]
+					}
+					""".formatted(DEFAULT_NAME, deletedId))
+			.contentType(JSON)
+			.accept(JSON)
+			.post("/api/categories/_batch")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.body("committed", is(true))
+			.body("results.status", contains(201, 404))
+			.body("results[0].category.name", is(DEFAULT_NAME))
+			.body("results[1].id", is(deletedId.toString()));
+
+		verify(this.categoryService).applyBatch(argThat(batch -> (batch.operations().get(0)
+			.op() == CategoryOperation.Type.CREATE) && deletedId.equals(batch.operations().get(1).id())));
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotApplyEmptyBatch() {
+		given().when()
+			.body("{\"atomic\": true, \"operations\": []}")
+			.contentType(JSON)
+			.accept(JSON)
+			.post("/api/categories/_batch")
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
 	@Test
 	void shouldDeleteCategory() {
 		when(this.categoryService.deleteCategory(DEFAULT_ID)).thenReturn(Uni.createFrom().voidItem());
@@ -422,7 +1159,7 @@ public class CategoryResourceTests {
 				&& h.get(1).getDescription().equals(UPDATED_DESCRIPTION);
 
 		when(this.categoryService.replaceAllCategories(argThat(categoriesMatcher)))
-			.thenReturn(Uni.createFrom().voidItem());
+			.thenReturn(Uni.createFrom().item(new CategoryReplaceSummary(2, 0, 1, 0)));
 
 		given().when()
 			.body(categories)
@@ -431,12 +1168,96 @@ public class CategoryResourceTests {
 			.put("/api/categories")
 			.then()
 			.statusCode(CREATED.getStatusCode())
-			.header(HttpHeaders.LOCATION, Matchers.endsWith("/api/categories"));
+			.header(HttpHeaders.LOCATION, Matchers.endsWith("/api/categories"))
+			.contentType(JSON)
+			.body("inserted", is(2))
+			.body("updated", is(0))
+			.body("deleted", is(1))
+			.body("unchanged", is(0));
 
 		verify(this.categoryService).replaceAllCategories(argThat(categoriesMatcher));
 		verifyNoMoreInteractions(this.categoryService);
 	}
 
+	@Test
+	void shouldNotReplaceAllCategoriesWithInvalidItem() {
+		var category = createDefaultCategory();
+		category.setId(UUID.randomUUID());
+		category.setName("");
+
+		given().when()
+			.body(List.of(createFullyUpdatedCategory(), category))
+			.contentType(JSON)
+			.accept(JSON)
+			.put("/api/categories")
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotReplaceAllCategoriesWithDuplicateIds() {
+		// Both have the default id
+		var category = createDefaultCategory();
+		var duplicate = createFullyUpdatedCategory();
+
+		given().when()
+			.body(List.of(category, duplicate))
+			.contentType(JSON)
+			.accept(JSON)
+			.put("/api/categories")
+			.then()
+			.statusCode(BAD_REQUEST.getStatusCode());
+
+		verifyNoInteractions(this.categoryService);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldImportCategories() {
+		var summary = new CategoryImportSummary(3, 1, 1,
+				List.of(new CategoryImportSummary.LineError(2, "name size must be between 3 and 50")));
+
+		when(this.categoryService.importCategories(any())).thenAnswer(invocation -> invocation
+			.getArgument(0, Multi.class)
+			.collect()
+			.asList()
+			.invoke(lines -> assertThat(lines).containsExactly("{\"name\": \"Vehicles\"}", "{\"name\": \"V\"}", ""))
+			.replaceWith(summary));
+
+		given().when()
+			.body("{\"name\": \"Vehicles\"}\r\n{\"name\": \"V\"}\n\n")
+			.contentType(RestMediaType.APPLICATION_NDJSON)
+			.accept(JSON)
+			.post("/api/categories/import")
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(JSON)
+			.body("lines", is(3))
+			.body("imported", is(1))
+			.body("rejected", is(1))
+			.body("errors.line", contains(2))
+			.body("errors.message", contains("name size must be between 3 and 50"));
+
+		verify(this.categoryService).importCategories(any());
+		verifyNoMoreInteractions(this.categoryService);
+	}
+
+	@Test
+	void shouldNotImportTooLongLine() {
+		when(this.categoryService.importCategories(any()))
+			.thenAnswer(invocation -> invocation.getArgument(0, Multi.class).collect().asList().replaceWith(
+					new CategoryImportSummary(0, 0, 0, List.of())));
+
+		given().when()
+			.body("x".repeat(CategoryResource.MAX_IMPORT_LINE_LENGTH + 1))
+			.contentType(RestMediaType.APPLICATION_NDJSON)
+			.post("/api/categories/import")
+			.then()
+			.statusCode(REQUEST_ENTITY_TOO_LARGE.getStatusCode());
+	}
+
 	@Test
 	void shouldDeleteAllCategories() {
 		when(this.categoryService.deleteAllCategories()).thenReturn(Uni.createFrom().voidItem());
@@ -479,6 +1300,7 @@ public class CategoryResourceTests {
 		category.setId(DEFAULT_ID);
 		category.setName(DEFAULT_NAME);
 		category.setDescription(DEFAULT_DESCRIPTION);
+		category.setVersion(DEFAULT_VERSION);
 
 		return category;
 	}
@@ -0,0 +1,72 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.rest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.aayushatharva.brotli4j.decoder.Decoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ContentEncodingTests {
+
+	@Test
+	void negotiate() {
+		var brotliOrGzip = ContentEncoding.BROTLI.isAvailable() ? ContentEncoding.BROTLI : ContentEncoding.GZIP;
+
+		assertThat(ContentEncoding.negotiate(null)).isNull();
+		assertThat(ContentEncoding.negotiate("")).isNull();
+		assertThat(ContentEncoding.negotiate("identity")).isNull();
+		assertThat(ContentEncoding.negotiate("deflate")).isNull();
+		assertThat(ContentEncoding.negotiate("gzip, deflate")).isEqualTo(ContentEncoding.GZIP);
+		assertThat(ContentEncoding.negotiate("gzip, deflate, br")).isEqualTo(brotliOrGzip);
+		assertThat(ContentEncoding.negotiate("GZIP;q=0.5, br;q=0.4")).isEqualTo(ContentEncoding.GZIP);
+		assertThat(ContentEncoding.negotiate("br;q=0, gzip")).isEqualTo(ContentEncoding.GZIP);
+		assertThat(ContentEncoding.negotiate("*")).isEqualTo(brotliOrGzip);
+		assertThat(ContentEncoding.negotiate("*, gzip;q=0"))
+			.isEqualTo(ContentEncoding.BROTLI.isAvailable() ? ContentEncoding.BROTLI : null);
+		assertThat(ContentEncoding.negotiate("gzip;q=invalid")).isNull();
+	}
+
+	@Test
+	void negotiateExcluding() {
+		assertThat(ContentEncoding.negotiate("gzip, deflate, br", Set.of(ContentEncoding.BROTLI)))
+			.isEqualTo(ContentEncoding.GZIP);
+		assertThat(ContentEncoding.negotiate("gzip, deflate, br", Set.of(ContentEncoding.BROTLI, ContentEncoding.GZIP)))
+			.isNull();
+		assertThat(ContentEncoding.negotiate("br", Set.of(ContentEncoding.BROTLI))).isNull();
+	}
+
+	@Test
+	void gzip() throws Exception {
+		var content = "Super Chocolatine ".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+		var encoded = ContentEncoding.GZIP.encodeBest(content);
+
+		assertThat(encoded).hasSizeLessThan(content.length);
+		assertThat(new GZIPInputStream(new ByteArrayInputStream(encoded)).readAllBytes()).isEqualTo(content);
+	}
+
+	@Test
+	void brotli() throws Exception {
+		assumeTrue(ContentEncoding.BROTLI.isAvailable(), "Brotli native library not available");
+		var content = "Super Chocolatine ".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+		var encoded = ContentEncoding.BROTLI.encodeFast(content);
+
+		assertThat(encoded).hasSizeLessThan(content.length);
+		assertThat(Decoder.decompress(encoded).getDecompressedData()).isEqualTo(content);
+	}
+
+}
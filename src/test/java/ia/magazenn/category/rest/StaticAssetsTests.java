@@ -0,0 +1,84 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.*;
+import static jakarta.ws.rs.core.Response.Status.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+class StaticAssetsTests {
+
+	private static final String PATTERNFLY = "css/patternfly.css";
+
+	@Inject
+	StaticAssets staticAssets;
+
+	@Test
+	void urlContainsContentHash() {
+		assertThat(this.staticAssets.url(PATTERNFLY)).matches("css/patternfly\\.[0-9a-f]{16}\\.css");
+		assertThat(this.staticAssets.url("css/unknown.css")).isEqualTo("css/unknown.css");
+	}
+
+	@Test
+	void hashedUrlIsImmutable() {
+		given().header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+			.get(this.staticAssets.url(PATTERNFLY))
+			.then()
+			.statusCode(OK.getStatusCode())
+			.contentType(startsWith("text/css"))
+			.header(HttpHeaders.CONTENT_ENCODING, is("gzip"))
+			.header(HttpHeaders.CACHE_CONTROL, is(StaticAssets.IMMUTABLE))
+			.header(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING))
+			.body(containsString(".pf-c-"));
+	}
+
+	@Test
+	void plainUrlIsRevalidated() {
+		var eTag = given().header(HttpHeaders.ACCEPT_ENCODING, "identity")
+			.get(PATTERNFLY)
+			.then()
+			.statusCode(OK.getStatusCode())
+			.header(HttpHeaders.CONTENT_ENCODING, nullValue())
+			.header(HttpHeaders.CACHE_CONTROL, is(StaticAssets.REVALIDATE))
+			.extract()
+			.header(HttpHeaders.ETAG);
+
+		given().header(HttpHeaders.ACCEPT_ENCODING, "identity")
+			.header(HttpHeaders.IF_NONE_MATCH, eTag)
+			.get(PATTERNFLY)
+			.then()
+			.statusCode(NOT_MODIFIED.getStatusCode());
+
+		// Another content coding is another representation
+		given().header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+			.header(HttpHeaders.IF_NONE_MATCH, eTag)
+			.get(PATTERNFLY)
+			.then()
+			.statusCode(OK.getStatusCode())
+			.header(HttpHeaders.ETAG, not(is(eTag)));
+	}
+
+	@Test
+	void brotliPreferred() {
+		given().header(HttpHeaders.ACCEPT_ENCODING, "gzip, br")
+			.get(this.staticAssets.url(PATTERNFLY))
+			.then()
+			.statusCode(OK.getStatusCode())
+			.header(HttpHeaders.CONTENT_ENCODING, is(ContentEncoding.BROTLI.isAvailable() ? "br" : "gzip"));
+	}
+
+}
@@ -15,6 +15,7 @@ import io.quarkus.test.junit.QuarkusTest;
 import java.net.URL;
 import java.util.List;
 
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response.Status;
 
 import org.junit.jupiter.api.Test;
@@ -27,7 +28,10 @@ import com.microsoft.playwright.options.AriaRole;
 
 import ia.magazenn.category.Category;
 
+import static io.restassured.RestAssured.*;
 import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 
 @QuarkusTest
 @WithPlaywright(recordVideoDir = "target/playwright", slowMo = 500)
@@ -93,11 +97,29 @@ class UIResourceTests {
 			.satisfies(description -> assertThat(description).isEqualTo(VEHICLES.getDescription()), atIndex(1));
 	}
 
+	@Test
+	void indexNotModified() {
+		var eTag = get(this.index).then()
+			.statusCode(Status.OK.getStatusCode())
+			.header(HttpHeaders.ETAG, notNullValue())
+			.extract()
+			.header(HttpHeaders.ETAG);
+
+		given().header(HttpHeaders.IF_NONE_MATCH, eTag)
+			.get(this.index)
+			.then()
+			.statusCode(Status.NOT_MODIFIED.getStatusCode())
+			.header(HttpHeaders.ETAG, is(eTag));
+	}
+
 	private Page loadPage() {
 		var page = this.browserContext.newPage();
 		var response = page.navigate(this.index.toString());
 
-		assertThat(response).isNotNull().extracting(Response::status).isEqualTo(Status.OK.getStatusCode());
+		// The browser may revalidate a page it loaded in a previous test with its ETag
+		assertThat(response).isNotNull()
+			.extracting(Response::status)
+			.isIn(Status.OK.getStatusCode(), Status.NOT_MODIFIED.getStatusCode());
 
 		return page;
 	}
@@ -0,0 +1,136 @@
+/*
+ * Quarkus Magazenn Categories Microservice - The Magazenn Categories RESTful microservice
+ * Copyright (c) 2024-2025 Magazenn. All Rights Reserved.
+ *
+ * This software including all the files whether in source code form or binary form is confidential and proprietary information of Magazenn.
+ * The software shall be used only in accordance with the terms of the license agreement between you and Magazenn.
+ */
+package ia.magazenn.category.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.vertx.RunOnVertxContext;
+import io.quarkus.test.vertx.UniAsserter;
+import io.smallrye.mutiny.Uni;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import ia.magazenn.category.Category;
+import ia.magazenn.category.config.CategoryConfig;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@QuarkusTest
+class CategoryGroupCommitTests {
+
+	private static final String DEFAULT_NAME = "Super Chocolatine";
+
+	private static final String INVALID_NAME = "Rejected by the database";
+
+	private final List<List<Category>> inserts = new CopyOnWriteArrayList<>();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	@RunOnVertxContext
+	void insertsFullGroupTogether(UniAsserter asserter) {
+		var groupCommit = groupCommit(3, TimeUnit.SECONDS.toMicros(10));
+		var categories = createCategories(DEFAULT_NAME, DEFAULT_NAME, DEFAULT_NAME);
+
+		asserter.assertThat(() -> persistAll(groupCommit, categories), persisted -> {
+			assertThat(persisted).containsExactlyElementsOf(categories);
+			assertThat(categories).extracting(Category::getId).doesNotContainNull();
+			assertThat(this.inserts).singleElement().isEqualTo(categories);
+			assertThat(this.meterRegistry.get("categories.group-commit.batch-size").summary())
+				.extracting(DistributionSummary::count, DistributionSummary::totalAmount)
+				.containsExactly(1L, 3.0);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void insertsGroupAfterWaiting(UniAsserter asserter) {
+		var groupCommit = groupCommit(100, 1000);
+		var categories = createCategories(DEFAULT_NAME, DEFAULT_NAME);
+
+		asserter.assertThat(() -> persistAll(groupCommit, categories), persisted -> {
+			assertThat(persisted).containsExactlyElementsOf(categories);
+			assertThat(this.inserts).singleElement().isEqualTo(categories);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void failsOnlyTheCallerAtFault(UniAsserter asserter) {
+		var groupCommit = groupCommit(3, TimeUnit.SECONDS.toMicros(10));
+		var categories = createCategories(DEFAULT_NAME, INVALID_NAME, DEFAULT_NAME);
+
+		asserter.assertThat(() -> persistAll(groupCommit, categories), persisted -> {
+			assertThat(persisted).containsExactly(categories.get(0), null, categories.get(2));
+			// The group, then each category on its own
+			assertThat(this.inserts).hasSize(4).first().isEqualTo(categories);
+		});
+	}
+
+	/**
+	 * Persists the categories concurrently, with <code>null</code> for the ones that
+	 * failed.
+	 */
+	private static Uni<List<Category>> persistAll(CategoryGroupCommit groupCommit, List<Category> categories) {
+		var persisted = categories.stream()
+			.map(category -> groupCommit.persist(category).onFailure().recoverWithNull())
+			.toList();
+
+		return Uni.combine().all().unis(persisted).with(Category.class, results -> results);
+	}
+
+	private CategoryGroupCommit groupCommit(int maxBatchSize, long maxWaitMicros) {
+		var config = new CategoryConfig.GroupCommit() {
+
+			@Override
+			public boolean enabled() {
+				return true;
+			}
+
+			@Override
+			public int maxBatchSize() {
+				return maxBatchSize;
+			}
+
+			@Override
+			public long maxWaitMicros() {
+				return maxWaitMicros;
+			}
+
+		};
+
+		return new CategoryGroupCommit(config, this.meterRegistry, this::insertAll);
+	}
+
+	private Uni<Integer> insertAll(List<Category> categories) {
+		this.inserts.add(List.copyOf(categories));
+
+		if (categories.stream().anyMatch(category -> INVALID_NAME.equals(category.getName()))) {
+			return Uni.createFrom().failure(new IllegalStateException("Invalid category"));
+		}
+
+		categories.forEach(category -> category.setId(UUID.randomUUID()));
+		return Uni.createFrom().item(categories.size());
+	}
+
+	private static List<Category> createCategories(String... names) {
+		return IntStream.range(0, names.length).mapToObj(i -> {
+			var category = new Category();
+			category.setName(names[i]);
+			return category;
+		}).toList();
+	}
+
+}
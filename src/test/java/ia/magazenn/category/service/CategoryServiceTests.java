@@ -12,26 +12,45 @@ import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.mockito.InjectSpy;
 import io.quarkus.test.vertx.RunOnVertxContext;
 import io.quarkus.test.vertx.UniAsserter;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
 import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import ia.magazenn.category.Category;
+import ia.magazenn.category.CategoryTombstone;
+import ia.magazenn.category.cache.CategoryCache;
+import ia.magazenn.category.cache.CategoryFeedEvent;
+import ia.magazenn.category.cache.CategorySnapshot;
+import ia.magazenn.category.cache.CategorySuggestions;
 import ia.magazenn.category.mapping.CaregoryFullUpdateMapper;
-import ia.magazenn.category.mapping.CategoryPartialUpdateMapper;
+import ia.magazenn.category.repository.CategoryChangeWatermark;
+import ia.magazenn.category.repository.CategoryIdIndex;
 import ia.magazenn.category.repository.CategoryRepository;
+import ia.magazenn.category.repository.CategoryStreamRepository;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.params.ParameterizedInvocationConstants.*;
@@ -58,12 +77,45 @@ class CategoryServiceTests {
 	@InjectMock
 	CategoryRepository categoryRepository;
 
-	@InjectSpy
-	CategoryPartialUpdateMapper categoryPartialUpdateMapper;
+	@InjectMock
+	CategoryStreamRepository categoryStreamRepository;
+
+	@InjectMock
+	CategoryChangeWatermark categoryChangeWatermark;
 
 	@InjectSpy
 	CaregoryFullUpdateMapper caregoryFullUpdateMapper;
 
+	@Inject
+	CategorySnapshot categorySnapshot;
+
+	@Inject
+	CategoryCache categoryCache;
+
+	@Inject
+	CategorySuggestions categorySuggestions;
+
+	@Inject
+	CategoryIdIndex categoryIdIndex;
+
+	@Inject
+	Event<CategoryChange> categoryChangeEvent;
+
+	@BeforeEach
+	void holdChangeWatermark() {
+		when(this.categoryChangeWatermark.hold()).thenReturn(Uni.createFrom().voidItem());
+	}
+
+	@BeforeEach
+	@AfterEach
+	void invalidateCaches() {
+		// The caches outlive the mocked repository, so don't leak state between tests
+		this.categorySnapshot.invalidate();
+		this.categoryCache.invalidate();
+		this.categorySuggestions.invalidate();
+		this.categoryIdIndex.invalidate();
+	}
+
 	@Test
 	void findAllCategoriesNoneFound() {
 		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of()));
@@ -102,6 +154,55 @@ class CategoryServiceTests {
 		verifyNoMoreInteractions(this.categoryRepository);
 	}
 
+	@Test
+	void findAllCategoriesFromSnapshot() {
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of(createDefaultCategory())));
+
+		var firstRead = this.categoryService.findAllCategories().await().atMost(Duration.ofSeconds(5));
+		var secondRead = this.categoryService.findAllCategories().await().atMost(Duration.ofSeconds(5));
+
+		assertThat(secondRead).isSameAs(firstRead)
+			.singleElement()
+			.extracting(Category::getId, Category::getName, Category::getDescription)
+			.containsExactly(DEFAULT_ID, DEFAULT_NAME, DEFAULT_DESCRIPTION);
+
+		verify(this.categoryRepository).listAll();
+		verifyNoMoreInteractions(this.categoryRepository);
+	}
+
+	@Test
+	void findAllCategoriesIgnoresStaleChanges() {
+		var loaded = createDefaultCategory();
+		loaded.setChangeVersion(5L);
+		var stale = createUpdatedCategory();
+		stale.setChangeVersion(4L);
+		var recreated = createUpdatedCategory();
+		recreated.setChangeVersion(8L);
+
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of(loaded)));
+		this.categoryService.findAllCategories().await().atMost(Duration.ofSeconds(5));
+
+		// Fired after a later write of the same category
+		this.categoryChangeEvent.fire(CategoryChange.updated(stale));
+		assertThat(this.categoryService.findAllCategories().await().atMost(Duration.ofSeconds(5))).singleElement()
+			.extracting(Category::getName)
+			.isEqualTo(DEFAULT_NAME);
+
+		this.categoryChangeEvent.fire(CategoryChange.deleted(Map.of(DEFAULT_ID, 7L)));
+		// Fired after the deletion it preceded
+		stale.setChangeVersion(6L);
+		this.categoryChangeEvent.fire(CategoryChange.updated(stale));
+		assertThat(this.categoryService.findAllCategories().await().atMost(Duration.ofSeconds(5))).isEmpty();
+
+		this.categoryChangeEvent.fire(CategoryChange.created(recreated));
+		assertThat(this.categoryService.findAllCategories().await().atMost(Duration.ofSeconds(5))).singleElement()
+			.extracting(Category::getName, Category::getChangeVersion)
+			.containsExactly(UPDATED_NAME, 8L);
+
+		verify(this.categoryRepository).listAll();
+		verifyNoMoreInteractions(this.categoryRepository);
+	}
+
 	@ParameterizedTest(
 			name = DISPLAY_NAME_PLACEHOLDER + "[" + INDEX_PLACEHOLDER + "] (" + ARGUMENTS_WITH_NAMES_PLACEHOLDER + ")")
 	@ValueSource(strings = { "name" })
@@ -144,6 +245,114 @@ class CategoryServiceTests {
 		verifyNoMoreInteractions(this.categoryRepository);
 	}
 
+	@Test
+	void streamAllCategories() {
+		when(this.categoryStreamRepository.streamAll(eq(500)))
+			.thenReturn(Multi.createFrom().items(createDefaultCategory()));
+
+		var categories = this.categoryService.streamAllCategories()
+			.collect()
+			.asList()
+			.await()
+			.atMost(Duration.ofSeconds(5));
+
+		assertThat(categories).singleElement()
+			.extracting(Category::getId, Category::getName, Category::getDescription)
+			.containsExactly(DEFAULT_ID, DEFAULT_NAME, DEFAULT_DESCRIPTION);
+
+		verify(this.categoryStreamRepository).streamAll(eq(500));
+		verifyNoMoreInteractions(this.categoryStreamRepository);
+		verifyNoInteractions(this.categoryRepository);
+	}
+
+	@Test
+	@RunOnVertxContext
+	void findCategoriesChangedSince(UniAsserter asserter) {
+		var changed = createDefaultCategory();
+		changed.setChangeVersion(44L);
+		var tombstone = new CategoryTombstone();
+		tombstone.setId(UPDATED_ID);
+		tombstone.setChangeVersion(45);
+
+		when(this.categoryChangeWatermark.current()).thenReturn(Uni.createFrom().item(46L));
+		when(this.categoryRepository.readFromSnapshot()).thenReturn(Uni.createFrom().voidItem());
+		when(this.categoryRepository.listChangedSince(42, 46)).thenReturn(Uni.createFrom().item(List.of(changed)));
+		when(this.categoryRepository.listDeletedSince(42, 46)).thenReturn(Uni.createFrom().item(List.of(tombstone)));
+
+		asserter.assertThat(() -> this.categoryService.findCategoriesChangedSince(42), delta -> {
+			assertThat(delta.version()).isEqualTo(46);
+			assertThat(delta.changed()).singleElement().extracting(Category::getId).isEqualTo(DEFAULT_ID);
+			assertThat(delta.deleted()).containsExactly(UPDATED_ID);
+
+			var inOrder = inOrder(this.categoryChangeWatermark, this.categoryRepository);
+			inOrder.verify(this.categoryChangeWatermark).current();
+			inOrder.verify(this.categoryRepository).readFromSnapshot();
+			inOrder.verify(this.categoryRepository).listChangedSince(42, 46);
+			inOrder.verify(this.categoryRepository).listDeletedSince(42, 46);
+			verifyNoMoreInteractions(this.categoryRepository);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void findCategoriesChangedSinceNothingChanged(UniAsserter asserter) {
+		when(this.categoryChangeWatermark.current()).thenReturn(Uni.createFrom().item(42L));
+		when(this.categoryRepository.readFromSnapshot()).thenReturn(Uni.createFrom().voidItem());
+		when(this.categoryRepository.listChangedSince(42, 42)).thenReturn(Uni.createFrom().item(List.of()));
+		when(this.categoryRepository.listDeletedSince(42, 42)).thenReturn(Uni.createFrom().item(List.of()));
+
+		asserter.assertEquals(() -> this.categoryService.findCategoriesChangedSince(42),
+				new CategoryDelta(42, List.of(), List.of()));
+	}
+
+	@Test
+	@RunOnVertxContext
+	void findCategoriesChangedSinceNeverPastRunningWrites(UniAsserter asserter) {
+		when(this.categoryChangeWatermark.current()).thenReturn(Uni.createFrom().item(40L));
+		when(this.categoryRepository.readFromSnapshot()).thenReturn(Uni.createFrom().voidItem());
+		when(this.categoryRepository.listChangedSince(42, 40)).thenReturn(Uni.createFrom().item(List.of()));
+		when(this.categoryRepository.listDeletedSince(42, 40)).thenReturn(Uni.createFrom().item(List.of()));
+
+		asserter.assertThat(() -> this.categoryService.findCategoriesChangedSince(42),
+				delta -> assertThat(delta.version()).isEqualTo(42));
+	}
+
+	@Test
+	void findCategoriesPageWithNext() {
+		var first = createDefaultCategory();
+		var second = createUpdatedCategory();
+		second.setId(UPDATED_ID);
+
+		when(this.categoryRepository.listPage(isNull(), isNull(), eq(2)))
+			.thenReturn(Uni.createFrom().item(List.of(first, second)));
+
+		var page = this.categoryService.findCategoriesPage(null, 1).await().atMost(Duration.ofSeconds(5));
+
+		assertThat(page.categories()).singleElement().isSameAs(first);
+		assertThat(page.next()).isEqualTo(new CategoryCursor(DEFAULT_NAME, DEFAULT_ID));
+
+		verify(this.categoryRepository).listPage(isNull(), isNull(), eq(2));
+		verifyNoMoreInteractions(this.categoryRepository);
+	}
+
+	@Test
+	void findCategoriesPageLast() {
+		var cursor = new CategoryCursor(DEFAULT_NAME, DEFAULT_ID);
+		var last = createUpdatedCategory();
+		last.setId(UPDATED_ID);
+
+		when(this.categoryRepository.listPage(eq(DEFAULT_NAME), eq(DEFAULT_ID), eq(3)))
+			.thenReturn(Uni.createFrom().item(List.of(last)));
+
+		var page = this.categoryService.findCategoriesPage(cursor, 2).await().atMost(Duration.ofSeconds(5));
+
+		assertThat(page.categories()).singleElement().isSameAs(last);
+		assertThat(page.next()).isNull();
+
+		verify(this.categoryRepository).listPage(eq(DEFAULT_NAME), eq(DEFAULT_ID), eq(3));
+		verifyNoMoreInteractions(this.categoryRepository);
+	}
+
 	@Test
 	void findCategoryByIdFound() {
 		when(this.categoryRepository.findById(eq(DEFAULT_ID)))
@@ -181,6 +390,114 @@ class CategoryServiceTests {
 		verifyNoMoreInteractions(this.categoryRepository);
 	}
 
+	@Test
+	@RunOnVertxContext
+	void findCategoryByIdCachesNotFound(UniAsserter asserter) {
+		when(this.categoryRepository.findById(eq(DEFAULT_ID))).thenReturn(Uni.createFrom().nullItem());
+
+		asserter.assertNull(() -> this.categoryService.findCategoryById(DEFAULT_ID))
+			.assertNull(() -> this.categoryService.findCategoryById(DEFAULT_ID))
+			.execute(() -> {
+				verify(this.categoryRepository).findById(eq(DEFAULT_ID));
+				verifyNoMoreInteractions(this.categoryRepository);
+			});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void persistCategoryInvalidatesCachedNotFound(UniAsserter asserter) {
+		var categoryToPersist = createDefaultCategory();
+		when(this.categoryRepository.findById(eq(DEFAULT_ID))).thenReturn(Uni.createFrom().nullItem())
+			.thenReturn(Uni.createFrom().item(createDefaultCategory()));
+		when(this.categoryRepository.persist(any(Category.class)))
+			.thenReturn(Uni.createFrom().item(categoryToPersist));
+
+		asserter.assertNull(() -> this.categoryService.findCategoryById(DEFAULT_ID))
+			.execute(() -> this.categoryService.persistCategory(categoryToPersist))
+			.assertThat(() -> this.categoryService.findCategoryById(DEFAULT_ID),
+					category -> assertThat(category).isNotNull().extracting(Category::getName).isEqualTo(DEFAULT_NAME))
+			.execute(() -> verify(this.categoryRepository, times(2)).findById(eq(DEFAULT_ID)));
+	}
+
+	@Test
+	@RunOnVertxContext
+	void suggestCategories(UniAsserter asserter) {
+		var categories = Stream.of("Électronique", "Electronics", "Elevators", "Vehicles", "Électroménager")
+			.map(name -> {
+				var category = createDefaultCategory();
+				category.setId(UUID.randomUUID());
+				category.setName(name);
+				return category;
+			})
+			.toList();
+
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(categories));
+
+		asserter
+			.assertThat(() -> this.categoryService.suggestCategories("elec", 10),
+					suggestions -> assertThat(suggestions).extracting(Category::getName)
+						.containsExactly("Électroménager", "Electronics", "Électronique"))
+			.assertThat(() -> this.categoryService.suggestCategories("ÉLE", 2),
+					suggestions -> assertThat(suggestions).extracting(Category::getName)
+						.containsExactly("Électroménager", "Electronics"))
+			.assertThat(() -> this.categoryService.suggestCategories("elex", 10),
+					suggestions -> assertThat(suggestions).isEmpty())
+			.execute(() -> {
+				verify(this.categoryRepository).listAll();
+				verifyNoMoreInteractions(this.categoryRepository);
+			});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void findAllCategoriesHavingSimilarName(UniAsserter asserter) {
+		var categories = Stream.of("Vehicles", "Electronics", "Mobile Phone & Tablets", "Jobs", "Electricity")
+			.map(name -> {
+				var category = createDefaultCategory();
+				category.setId(UUID.randomUUID());
+				category.setName(name);
+				return category;
+			})
+			.toList();
+
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(categories));
+
+		asserter
+			.assertThat(() -> this.categoryService.findAllCategoriesHavingSimilarName("Electroncs"),
+					found -> assertThat(found).extracting(Category::getName).containsExactly("Electronics"))
+			.assertThat(() -> this.categoryService.findAllCategoriesHavingSimilarName("vehciles"),
+					found -> assertThat(found).extracting(Category::getName).containsExactly("Vehicles"))
+			.assertThat(() -> this.categoryService.findAllCategoriesHavingSimilarName("tablet"),
+					found -> assertThat(found).extracting(Category::getName).containsExactly("Mobile Phone & Tablets"))
+			.assertThat(() -> this.categoryService.findAllCategoriesHavingSimilarName("Jbos"),
+					found -> assertThat(found).isEmpty())
+			.execute(() -> {
+				verify(this.categoryRepository).listAll();
+				verifyNoMoreInteractions(this.categoryRepository);
+			});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void suggestCategoriesFollowsWrites(UniAsserter asserter) {
+		var category = createDefaultCategory();
+		var renamed = createDefaultCategory();
+		renamed.setName("Chocolate bars");
+
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of(category)));
+		when(this.categoryRepository.findById(eq(DEFAULT_ID))).thenReturn(Uni.createFrom().item(category));
+
+		asserter
+			.assertThat(() -> this.categoryService.suggestCategories("super", 10),
+					suggestions -> assertThat(suggestions).extracting(Category::getId).containsExactly(DEFAULT_ID))
+			.execute(() -> this.categoryService.replaceCategory(renamed))
+			.assertThat(() -> this.categoryService.suggestCategories("super", 10),
+					suggestions -> assertThat(suggestions).isEmpty())
+			.assertThat(() -> this.categoryService.suggestCategories("choco", 10),
+					suggestions -> assertThat(suggestions).extracting(Category::getName)
+						.containsExactly("Chocolate bars"));
+	}
+
 	@Test
 	void findRandomCategoryNotFound() {
 		when(this.categoryRepository.findRandom()).thenReturn(Uni.createFrom().nullItem());
@@ -275,6 +592,81 @@ class CategoryServiceTests {
 		});
 	}
 
+	@Test
+	@RunOnVertxContext
+	void persistCategoryUpdatesSnapshot(UniAsserter asserter) {
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of()));
+		when(this.categoryRepository.persist(any(Category.class)))
+			.thenReturn(Uni.createFrom().item(createDefaultCategory()));
+
+		var categoryToPersist = createDefaultCategory();
+		categoryToPersist.setId(null);
+
+		asserter.assertThat(() -> this.categoryService.findAllCategories(), categories -> assertThat(categories).isEmpty())
+			.execute(() -> this.categoryService.persistCategory(categoryToPersist))
+			.assertThat(() -> this.categoryService.findAllCategories(), categories -> {
+				assertThat(categories).singleElement()
+					.extracting(Category::getId, Category::getName, Category::getDescription)
+					.containsExactly(DEFAULT_ID, DEFAULT_NAME, DEFAULT_DESCRIPTION);
+
+				verify(this.categoryRepository).listAll();
+				verify(this.categoryRepository).persist(any(Category.class));
+				verifyNoMoreInteractions(this.categoryRepository);
+			});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void streamChanges(UniAsserter asserter) {
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of()));
+		when(this.categoryRepository.persist(any(Category.class)))
+			.thenReturn(Uni.createFrom().item(createDefaultCategory()));
+		when(this.categoryRepository.deleteByIds(eq(List.of(DEFAULT_ID))))
+			.thenReturn(Uni.createFrom().item(Map.of(DEFAULT_ID, 1L)));
+
+		var categoryToPersist = createDefaultCategory();
+		categoryToPersist.setId(null);
+
+		var events = this.categoryService.streamChanges(null)
+			.subscribe()
+			.withSubscriber(AssertSubscriber.<CategoryFeedEvent>create(Long.MAX_VALUE));
+
+		asserter.execute(() -> this.categoryService.persistCategory(categoryToPersist))
+			.execute(() -> this.categoryService.deleteCategory(DEFAULT_ID))
+			.execute(() -> {
+				var received = events.awaitItems(3, Duration.ofSeconds(5)).getItems();
+
+				assertThat(received).extracting(CategoryFeedEvent::name)
+					.containsExactly(CategoryFeedEvent.SNAPSHOT, CategoryFeedEvent.CREATED, CategoryFeedEvent.DELETED);
+				assertThat((List<?>) received.get(0).data()).isEmpty();
+				assertThat(received.get(1).data()).isInstanceOf(Category.class)
+					.extracting("id", "name")
+					.containsExactly(DEFAULT_ID, DEFAULT_NAME);
+				assertThat(received.get(2).data()).isEqualTo(Map.of("id", DEFAULT_ID));
+
+				// Resuming after the creation only sends the deletion
+				var resumed = this.categoryService.streamChanges(received.get(1).id())
+					.subscribe()
+					.withSubscriber(AssertSubscriber.<CategoryFeedEvent>create(Long.MAX_VALUE));
+
+				assertThat(resumed.awaitItems(1, Duration.ofSeconds(5)).getItems()).singleElement()
+					.isEqualTo(received.get(2));
+
+				// An unknown event identifier falls back to a snapshot
+				var unknown = this.categoryService.streamChanges("1-1-unknown")
+					.subscribe()
+					.withSubscriber(AssertSubscriber.<CategoryFeedEvent>create(Long.MAX_VALUE));
+
+				assertThat(unknown.awaitItems(1, Duration.ofSeconds(5)).getItems()).singleElement()
+					.extracting(CategoryFeedEvent::name)
+					.isEqualTo(CategoryFeedEvent.SNAPSHOT);
+
+				events.cancel();
+				resumed.cancel();
+				unknown.cancel();
+			});
+	}
+
 	@Test
 	@RunOnVertxContext
 	void fullyUpdateNullCategory(UniAsserter asserter) {
@@ -291,8 +683,7 @@ class CategoryServiceTests {
 				.extracting(ConstraintViolation::getInvalidValue, ConstraintViolation::getMessage)
 				.containsExactly(null, "ne doit pas être nul");
 
-			verifyNoInteractions(this.categoryRepository, this.caregoryFullUpdateMapper,
-					this.categoryPartialUpdateMapper);
+			verifyNoInteractions(this.categoryRepository, this.caregoryFullUpdateMapper);
 		});
 	}
 
@@ -313,40 +704,85 @@ class CategoryServiceTests {
 				.extracting(ConstraintViolation::getInvalidValue, ConstraintViolation::getMessage)
 				.containsExactly(null, "ne doit pas être nul");
 
-			verifyNoInteractions(this.categoryRepository, this.caregoryFullUpdateMapper,
-					this.categoryPartialUpdateMapper);
+			verifyNoInteractions(this.categoryRepository, this.caregoryFullUpdateMapper);
 		});
 	}
 
 	@Test
 	@RunOnVertxContext
 	void fullyUpdateNotFoundCategory(UniAsserter asserter) {
-		when(this.categoryRepository.findById(eq(DEFAULT_ID))).thenReturn(Uni.createFrom().nullItem());
+		when(this.categoryRepository.replaceById(any(Category.class))).thenReturn(Uni.createFrom().nullItem());
 
 		asserter.assertThat(() -> this.categoryService.replaceCategory(createUpdatedCategory()), category -> {
 			assertThat(category).isNull();
 
-			verify(this.categoryRepository).findById(eq(DEFAULT_ID));
+			verify(this.categoryRepository).replaceById(argThat(updated -> DEFAULT_ID.equals(updated.getId())));
 			verifyNoMoreInteractions(this.categoryRepository);
-			verifyNoInteractions(this.categoryPartialUpdateMapper, this.caregoryFullUpdateMapper);
+			verifyNoInteractions(this.caregoryFullUpdateMapper);
 		});
 	}
 
 	@Test
 	@RunOnVertxContext
 	void fullyUpdateCategory(UniAsserter asserter) {
-		when(this.categoryRepository.findById(eq(DEFAULT_ID)))
-			.thenReturn(Uni.createFrom().item(createDefaultCategory()));
+		when(this.categoryRepository.replaceById(any(Category.class)))
+			.thenReturn(Uni.createFrom().item(createUpdatedCategory()));
 
 		asserter.assertThat(() -> this.categoryService.replaceCategory(createUpdatedCategory()), replacedCategory -> {
 			assertThat(replacedCategory).isNotNull()
 				.extracting(Category::getId, Category::getName, Category::getDescription)
 				.containsExactly(DEFAULT_ID, UPDATED_NAME, UPDATED_DESCRIPTION);
 
-			verify(this.categoryRepository).findById(eq(DEFAULT_ID));
+			verify(this.categoryRepository).replaceById(argThat(updated -> DEFAULT_ID.equals(updated.getId())
+					&& UPDATED_NAME.equals(updated.getName()) && UPDATED_DESCRIPTION.equals(updated.getDescription())));
+			verifyNoMoreInteractions(this.categoryRepository);
+			verifyNoInteractions(this.caregoryFullUpdateMapper);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void upsertNewCategory(UniAsserter asserter) {
+		var created = createDefaultCategory();
+		created.setVersion(0L);
+
+		when(this.categoryRepository.upsertById(any(Category.class))).thenReturn(Uni.createFrom().item(created));
+
+		asserter.assertThat(() -> this.categoryService.upsertCategory(createDefaultCategory()), upsert -> {
+			assertThat(upsert).extracting(CategoryUpsert::category, CategoryUpsert::created)
+				.containsExactly(created, true);
+
+			verify(this.categoryRepository).upsertById(argThat(category -> DEFAULT_ID.equals(category.getId())));
 			verifyNoMoreInteractions(this.categoryRepository);
-			verify(this.caregoryFullUpdateMapper).mapFullUpdate(any(Category.class), any(Category.class));
-			verifyNoInteractions(this.categoryPartialUpdateMapper);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void upsertExistingCategory(UniAsserter asserter) {
+		var updated = createUpdatedCategory();
+		updated.setVersion(1L);
+
+		when(this.categoryRepository.upsertById(any(Category.class))).thenReturn(Uni.createFrom().item(updated));
+
+		asserter.assertThat(() -> this.categoryService.upsertCategory(createUpdatedCategory()), upsert -> {
+			assertThat(upsert).extracting(CategoryUpsert::category, CategoryUpsert::created)
+				.containsExactly(updated, false);
+
+			verify(this.categoryRepository).upsertById(argThat(category -> UPDATED_NAME.equals(category.getName())));
+			verifyNoMoreInteractions(this.categoryRepository);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void upsertInvalidCategory(UniAsserter asserter) {
+		var category = createDefaultCategory();
+		category.setName(null);
+
+		asserter.assertFailedWith(() -> this.categoryService.upsertCategory(category), cve -> {
+			assertThat(cve).isNotNull().isInstanceOf(ConstraintViolationException.class);
+			verifyNoInteractions(this.categoryRepository);
 		});
 	}
 
@@ -364,17 +800,13 @@ class CategoryServiceTests {
 				.extracting(ConstraintViolation::getInvalidValue, ConstraintViolation::getMessage)
 				.containsExactly(null, "ne doit pas être nul");
 
-			verifyNoInteractions(this.categoryRepository, this.caregoryFullUpdateMapper,
-					this.categoryPartialUpdateMapper);
+			verifyNoInteractions(this.categoryRepository, this.caregoryFullUpdateMapper);
 		});
 	}
 
 	@Test
 	@RunOnVertxContext
 	void partiallyUpdateInvalidCategory(UniAsserter asserter) {
-		when(this.categoryRepository.findById(eq(DEFAULT_ID)))
-			.thenReturn(Uni.createFrom().item(createDefaultCategory()));
-
 		var category = createDefaultCategory();
 		category.setName("a");
 
@@ -389,32 +821,30 @@ class CategoryServiceTests {
 				.extracting(ConstraintViolation::getInvalidValue, ConstraintViolation::getMessage)
 				.containsExactly("a", "la taille doit être comprise entre 3 et 50");
 
-			verify(this.categoryRepository).findById(eq(DEFAULT_ID));
-			verifyNoMoreInteractions(this.categoryRepository);
-			verify(this.categoryPartialUpdateMapper).mapPartialUpdate(any(Category.class), any(Category.class));
-			verifyNoInteractions(this.caregoryFullUpdateMapper);
+			// Validated before reaching the database
+			verifyNoInteractions(this.categoryRepository, this.caregoryFullUpdateMapper);
 		});
 	}
 
 	@Test
 	@RunOnVertxContext
 	void partiallyUpdateNotFoundCategory(UniAsserter asserter) {
-		when(this.categoryRepository.findById(eq(DEFAULT_ID))).thenReturn(Uni.createFrom().nullItem());
+		when(this.categoryRepository.patchById(any(Category.class))).thenReturn(Uni.createFrom().nullItem());
 
 		asserter.assertThat(() -> this.categoryService.partialUpdateCategory(createPartialUpdatedCategory()),
 				category -> {
 					assertThat(category).isNull();
 
-					verify(this.categoryRepository).findById(eq(DEFAULT_ID));
+					verify(this.categoryRepository).patchById(argThat(patch -> DEFAULT_ID.equals(patch.getId())));
 					verifyNoMoreInteractions(this.categoryRepository);
-					verifyNoInteractions(this.caregoryFullUpdateMapper, this.categoryPartialUpdateMapper);
+					verifyNoInteractions(this.caregoryFullUpdateMapper);
 				});
 	}
 
 	@Test
 	@RunOnVertxContext
 	void partiallyUpdateCategory(UniAsserter asserter) {
-		when(this.categoryRepository.findById(eq(DEFAULT_ID)))
+		when(this.categoryRepository.patchById(any(Category.class)))
 			.thenReturn(Uni.createFrom().item(createDefaultCategory()));
 
 		asserter.assertThat(() -> this.categoryService.partialUpdateCategory(createPartialUpdatedCategory()),
@@ -423,20 +853,38 @@ class CategoryServiceTests {
 						.extracting(Category::getId, Category::getName, Category::getDescription)
 						.containsExactly(DEFAULT_ID, DEFAULT_NAME, DEFAULT_DESCRIPTION);
 
-					verify(this.categoryRepository).findById(eq(DEFAULT_ID));
+					verify(this.categoryRepository).patchById(argThat(patch -> DEFAULT_ID.equals(patch.getId())));
 					verifyNoMoreInteractions(this.categoryRepository);
-					verify(this.categoryPartialUpdateMapper).mapPartialUpdate(any(Category.class), any(Category.class));
 					verifyNoInteractions(this.caregoryFullUpdateMapper);
 				});
 	}
 
+	@Test
+	@RunOnVertxContext
+	void partiallyUpdateOnlyValidatesProvidedFields(UniAsserter asserter) {
+		var category = new Category();
+		category.setId(DEFAULT_ID);
+		category.setDescription(UPDATED_DESCRIPTION);
+
+		when(this.categoryRepository.patchById(any(Category.class)))
+			.thenReturn(Uni.createFrom().item(createDefaultCategory()));
+
+		asserter.assertThat(() -> this.categoryService.partialUpdateCategory(category), updated -> {
+			assertThat(updated).isNotNull();
+
+			verify(this.categoryRepository).patchById(category);
+			verifyNoMoreInteractions(this.categoryRepository);
+		});
+	}
+
 	@Test
 	@RunOnVertxContext
 	void deleteCategory(UniAsserter asserter) {
-		when(this.categoryRepository.deleteById(eq(DEFAULT_ID))).thenReturn(Uni.createFrom().item(true));
+		when(this.categoryRepository.deleteByIds(eq(List.of(DEFAULT_ID))))
+			.thenReturn(Uni.createFrom().item(Map.of(DEFAULT_ID, 1L)));
 
 		asserter.assertThat(() -> this.categoryService.deleteCategory(DEFAULT_ID), v -> {
-			verify(this.categoryRepository).deleteById(eq(DEFAULT_ID));
+			verify(this.categoryRepository).deleteByIds(eq(List.of(DEFAULT_ID)));
 			verifyNoMoreInteractions(this.categoryRepository);
 		});
 	}
@@ -444,18 +892,11 @@ class CategoryServiceTests {
 	@Test
 	@RunOnVertxContext
 	void deleteAllCategories(UniAsserter asserter) {
-		var h1 = createDefaultCategory();
-		var h2 = createUpdatedCategory();
-		h2.setId(UPDATED_ID);
-
-		when(this.categoryRepository.deleteById(any(UUID.class))).thenReturn(Uni.createFrom().item(true));
-
-		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of(h1, h2)));
+		when(this.categoryRepository.deleteAllReturningVersions())
+			.thenReturn(Uni.createFrom().item(Map.of(DEFAULT_ID, 1L, UPDATED_ID, 2L)));
 
 		asserter.assertThat(() -> this.categoryService.deleteAllCategories(), v -> {
-			verify(this.categoryRepository).listAll();
-			verify(this.categoryRepository).deleteById(h1.getId());
-			verify(this.categoryRepository).deleteById(h2.getId());
+			verify(this.categoryRepository).deleteAllReturningVersions();
 			verifyNoMoreInteractions(this.categoryRepository);
 		});
 	}
@@ -463,28 +904,225 @@ class CategoryServiceTests {
 	@Test
 	@RunOnVertxContext
 	void replaceAllCategories(UniAsserter asserter) {
-		var h1 = createDefaultCategory();
-		var h2 = createUpdatedCategory();
-		h2.setId(UPDATED_ID);
-
 		var categories = List.of(createDefaultCategory(), createPartialUpdatedCategory());
 		categories.forEach(h -> h.setId(null));
 
-		when(this.categoryRepository.deleteById(any(UUID.class))).thenReturn(Uni.createFrom().item(true));
-
-		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of(h1, h2)));
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of()));
+		when(this.categoryRepository.deleteByIds(anyCollection())).thenReturn(Uni.createFrom().item(Map.of()));
+		when(this.categoryRepository.insertAll(anyList(), anyInt())).thenReturn(Uni.createFrom().item(2));
 
-		when(this.categoryRepository.persist(anyIterable())).thenReturn(Uni.createFrom().voidItem());
+		asserter.assertThat(() -> this.categoryService.replaceAllCategories(categories), summary -> {
+			assertThat(summary).isEqualTo(new CategoryReplaceSummary(2, 0, 0, 0));
 
-		asserter.assertThat(() -> this.categoryService.replaceAllCategories(categories), v -> {
 			verify(this.categoryRepository).listAll();
-			verify(this.categoryRepository).deleteById(eq(h1.getId()));
-			verify(this.categoryRepository).deleteById(eq(h2.getId()));
-			verify(this.categoryRepository).persist(anyIterable());
+			verify(this.categoryRepository).deleteByIds(argThat(Collection::isEmpty));
+			verify(this.categoryRepository).insertAll(eq(categories), anyInt());
+			verifyNoMoreInteractions(this.categoryRepository);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void replaceAllCategoriesOnlyWritesChanges(UniAsserter asserter) {
+		var unchanged = createDefaultCategory();
+		var changed = createDefaultCategory();
+		changed.setId(UPDATED_ID);
+		var removed = createDefaultCategory();
+		removed.setId(UUID.randomUUID());
+
+		var unchangedReplacement = createDefaultCategory();
+		var changedReplacement = createUpdatedCategory();
+		changedReplacement.setId(UPDATED_ID);
+		var created = createDefaultCategory();
+		created.setId(null);
+
+		when(this.categoryRepository.listAll()).thenReturn(Uni.createFrom().item(List.of(unchanged, changed, removed)));
+		when(this.categoryRepository.deleteByIds(anyCollection()))
+			.thenReturn(Uni.createFrom().item(Map.of(removed.getId(), 1L)));
+		when(this.categoryRepository.insertAll(anyList(), anyInt())).thenReturn(Uni.createFrom().item(1));
+
+		asserter.assertThat(
+				() -> this.categoryService
+					.replaceAllCategories(List.of(unchangedReplacement, changedReplacement, created)),
+				summary -> {
+					assertThat(summary).isEqualTo(new CategoryReplaceSummary(1, 1, 1, 1));
+					assertThat(changed).extracting(Category::getName, Category::getDescription)
+						.containsExactly(UPDATED_NAME, UPDATED_DESCRIPTION);
+
+					verify(this.categoryRepository).listAll();
+					verify(this.categoryRepository).deleteByIds(eq(Set.of(removed.getId())));
+					verify(this.categoryRepository).insertAll(eq(List.of(created)), anyInt());
+					verifyNoMoreInteractions(this.categoryRepository);
+					verify(this.caregoryFullUpdateMapper).mapFullUpdate(changedReplacement, changed);
+				});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void findCategoriesByIds(UniAsserter asserter) {
+		var category = createDefaultCategory();
+		var missingId = UUID.randomUUID();
+
+		when(this.categoryRepository.listByIds(anyCollection())).thenReturn(Uni.createFrom().item(List.of(category)));
+
+		asserter.assertThat(() -> this.categoryService.findCategoriesByIds(List.of(missingId, DEFAULT_ID, DEFAULT_ID)),
+				lookups -> {
+					assertThat(lookups).containsExactly(new CategoryLookup(missingId, false, null),
+							new CategoryLookup(DEFAULT_ID, true, category), new CategoryLookup(DEFAULT_ID, true, category));
+
+					verify(this.categoryRepository).listByIds(eq(Set.of(missingId, DEFAULT_ID)));
+					verifyNoMoreInteractions(this.categoryRepository);
+				});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void importCategories(UniAsserter asserter) {
+		var lines = Multi.createFrom()
+			.items("{\"name\": \"" + DEFAULT_NAME + "\", \"description\": \"" + DEFAULT_DESCRIPTION + "\"}", "",
+					"{\"name\": \"V\"}", "not json", "{\"name\": \"" + UPDATED_NAME + "\"}");
+
+		when(this.categoryRepository.insertAll(anyList(), anyInt())).thenReturn(Uni.createFrom().item(2));
+
+		asserter.assertThat(() -> this.categoryService.importCategories(lines), summary -> {
+			assertThat(summary).extracting(CategoryImportSummary::lines, CategoryImportSummary::imported,
+					CategoryImportSummary::rejected)
+				.containsExactly(5L, 2, 2);
+			assertThat(summary.errors()).extracting(CategoryImportSummary.LineError::line).containsExactly(3L, 4L);
+			assertThat(summary.errors().get(0).message()).isEqualTo("name size must be between 3 and 50");
+			assertThat(summary.errors().get(1).message()).startsWith("Invalid JSON");
+
+			verify(this.categoryRepository).insertAll(
+					argThat(categories -> (categories.size() == 2) && DEFAULT_NAME.equals(categories.get(0).getName())
+							&& UPDATED_NAME.equals(categories.get(1).getName())),
+					eq(2));
+			verifyNoMoreInteractions(this.categoryRepository);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void importCategoriesWithDuplicateId(UniAsserter asserter) {
+		var lines = Multi.createFrom()
+			.items("{\"id\": \"" + DEFAULT_ID + "\", \"name\": \"" + DEFAULT_NAME + "\"}",
+					"{\"id\": \"" + DEFAULT_ID + "\", \"name\": \"" + UPDATED_NAME + "\"}",
+					"{\"name\": \"" + DEFAULT_NAME + "\"}");
+		var insertedIds = new HashSet<UUID>();
+
+		// Like the database, rejects a statement inserting an identifier twice
+		when(this.categoryRepository.insertAll(anyList(), anyInt())).thenAnswer(invocation -> {
+			List<Category> categories = invocation.getArgument(0);
+			var ids = categories.stream().map(Category::getId).filter(Objects::nonNull).toList();
+
+			if ((Set.copyOf(ids).size() < ids.size()) || ids.stream().anyMatch(insertedIds::contains)) {
+				return Uni.createFrom()
+					.failure(new IllegalStateException("Insert failed",
+							new IllegalStateException("duplicate key value violates unique constraint")));
+			}
+
+			insertedIds.addAll(ids);
+			return Uni.createFrom().item(categories.size());
+		});
+
+		asserter.assertThat(() -> this.categoryService.importCategories(lines), summary -> {
+			assertThat(summary).extracting(CategoryImportSummary::lines, CategoryImportSummary::imported,
+					CategoryImportSummary::rejected)
+				.containsExactly(3L, 2, 1);
+			assertThat(summary.errors()).singleElement()
+				.isEqualTo(new CategoryImportSummary.LineError(2,
+						"Not inserted: duplicate key value violates unique constraint"));
+
+			// The batch, then each of its lines
+			verify(this.categoryRepository, times(4)).insertAll(anyList(), anyInt());
 			verifyNoMoreInteractions(this.categoryRepository);
 		});
 	}
 
+	@Test
+	@RunOnVertxContext
+	void applyBatch(UniAsserter asserter) {
+		var created = new Category();
+		created.setName(DEFAULT_NAME);
+		var batch = new CategoryBatch(false,
+				List.of(new CategoryOperation(CategoryOperation.Type.CREATE, null, null, created),
+						new CategoryOperation(CategoryOperation.Type.UPDATE, UPDATED_ID, null, createUpdatedCategory()),
+						new CategoryOperation(CategoryOperation.Type.PATCH, DEFAULT_ID, null, new Category()),
+						new CategoryOperation(CategoryOperation.Type.DELETE, DEFAULT_ID, null, null),
+						new CategoryOperation(CategoryOperation.Type.DELETE, UPDATED_ID, null, null)));
+
+		when(this.categoryRepository.insertAll(anyList(), anyInt())).thenAnswer(invocation -> {
+			List<Category> categories = invocation.getArgument(0);
+			categories.forEach(category -> category.setId(UUID.randomUUID()));
+			return Uni.createFrom().item(categories.size());
+		});
+		when(this.categoryRepository.replaceById(any(Category.class))).thenReturn(Uni.createFrom().nullItem());
+		when(this.categoryRepository.patchById(any(Category.class)))
+			.thenReturn(Uni.createFrom().item(createDefaultCategory()));
+		when(this.categoryRepository.deleteByIds(anyCollection()))
+			.thenReturn(Uni.createFrom().item(Map.of(DEFAULT_ID, 1L)));
+
+		asserter.assertThat(() -> this.categoryService.applyBatch(batch), result -> {
+			assertThat(result.committed()).isTrue();
+			assertThat(result.results()).extracting(CategoryOperationResult::status)
+				.containsExactly(201, 404, 200, 204, 404);
+			assertThat(result.results().get(0).id()).isNotNull().isEqualTo(created.getId());
+
+			verify(this.categoryRepository).insertAll(eq(List.of(created)), anyInt());
+			verify(this.categoryRepository).replaceById(argThat(category -> UPDATED_ID.equals(category.getId())));
+			verify(this.categoryRepository).patchById(argThat(category -> DEFAULT_ID.equals(category.getId())));
+			verify(this.categoryRepository).deleteByIds(eq(List.of(DEFAULT_ID, UPDATED_ID)));
+			verifyNoMoreInteractions(this.categoryRepository);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void applyAtomicBatchWithConflict(UniAsserter asserter) {
+		var current = createDefaultCategory();
+		current.setVersion(3L);
+		var batch = new CategoryBatch(true,
+				List.of(new CategoryOperation(CategoryOperation.Type.DELETE, UPDATED_ID, null, null),
+						new CategoryOperation(CategoryOperation.Type.UPDATE, DEFAULT_ID, 2L, createUpdatedCategory()),
+						new CategoryOperation(CategoryOperation.Type.DELETE, DEFAULT_ID, null, null)));
+
+		when(this.categoryRepository.deleteByIds(anyCollection()))
+			.thenReturn(Uni.createFrom().item(Map.of(UPDATED_ID, 1L)));
+		when(this.categoryRepository.replaceById(any(Category.class)))
+			.thenReturn(Uni.createFrom().failure(new OptimisticLockException("Modified", null, current)));
+
+		asserter.assertThat(() -> this.categoryService.applyBatch(batch), result -> {
+			assertThat(result.committed()).isFalse();
+			assertThat(result.results()).extracting(CategoryOperationResult::status).containsExactly(424, 412, 424);
+			assertThat(result.results().get(1).category()).isSameAs(current);
+
+			verify(this.categoryRepository).deleteByIds(eq(List.of(UPDATED_ID)));
+			verify(this.categoryRepository).replaceById(
+					argThat(category -> DEFAULT_ID.equals(category.getId()) && Long.valueOf(2).equals(category.getVersion())));
+			verifyNoMoreInteractions(this.categoryRepository);
+		});
+	}
+
+	@Test
+	@RunOnVertxContext
+	void applyInvalidAtomicBatch(UniAsserter asserter) {
+		var invalid = new Category();
+		invalid.setName("V");
+		var batch = new CategoryBatch(true,
+				List.of(new CategoryOperation(CategoryOperation.Type.CREATE, null, null, createDefaultCategory()),
+						new CategoryOperation(CategoryOperation.Type.PATCH, DEFAULT_ID, null, invalid),
+						new CategoryOperation(CategoryOperation.Type.DELETE, null, null, null)));
+
+		asserter.assertThat(() -> this.categoryService.applyBatch(batch), result -> {
+			assertThat(result.committed()).isFalse();
+			assertThat(result.results()).extracting(CategoryOperationResult::status, CategoryOperationResult::error)
+				.containsExactly(tuple(424, "Not applied, as operations[1] failed"),
+						tuple(400, "name size must be between 3 and 50"),
+						tuple(424, "Not applied, as operations[1] failed"));
+
+			verifyNoInteractions(this.categoryRepository);
+		});
+	}
+
 	private static Category createDefaultCategory() {
 		Category category = new Category();
 		category.setId(DEFAULT_ID);